@@ -1,7 +1,10 @@
 package com.gestionale.controller;
 
+import com.gestionale.dto.SuggerimentoDto;
 import com.gestionale.entity.Articolo;
 import com.gestionale.service.ArticoloService;
+import com.gestionale.service.ElenchiStreamingService;
+import com.gestionale.service.SuggerimentiService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -9,6 +12,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -22,6 +26,12 @@ public class ArticoloController {
     @Autowired
     private ArticoloService articoloService;
     
+    @Autowired
+    private SuggerimentiService suggerimentiService;
+    
+    @Autowired
+    private ElenchiStreamingService elenchiStreamingService;
+    
     @GetMapping
     public ResponseEntity<Page<Articolo>> getAllArticoli(
             @RequestParam(defaultValue = "0") int page,
@@ -38,9 +48,12 @@ public class ArticoloController {
         return ResponseEntity.ok(articoli);
     }
     
+    /**
+     * Tutti gli articoli, scritti in streaming fino al limite richiesto (comunque entro elenchi.limite-massimo)
+     */
     @GetMapping("/all")
-    public List<Articolo> getAllArticoliNonPaginati() {
-        return articoloService.getAllArticoli();
+    public ResponseEntity<StreamingResponseBody> getAllArticoliNonPaginati(@RequestParam(required = false) Integer limit) {
+        return elenchiStreamingService.risposta(articoloService::streamArticoli, limit);
     }
     
     @GetMapping("/paginati")
@@ -53,6 +66,21 @@ public class ArticoloController {
         return ResponseEntity.ok(articoli);
     }
     
+    /**
+     * Elenco degli articoli per descrizione paginato per chiave: la risposta contiene il cursore
+     * per la pagina successiva e non viene eseguito alcun conteggio totale
+     */
+    @GetMapping("/cursore")
+    public ResponseEntity<?> scorriArticoli(
+            @RequestParam(required = false) String cursore,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(articoloService.scorriArticoli(cursore, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
     @GetMapping("/{id}")
     public ResponseEntity<Articolo> getArticoloById(@PathVariable Long id) {
         Optional<Articolo> articolo = articoloService.getArticoloById(id);
@@ -68,18 +96,30 @@ public class ArticoloController {
     }
     
     @GetMapping("/attivi")
-    public List<Articolo> getArticoliAttivi() {
-        return articoloService.getArticoliAttivi();
+    public ResponseEntity<StreamingResponseBody> getArticoliAttivi(@RequestParam(required = false) Integer limit) {
+        return elenchiStreamingService.risposta(articoloService::streamArticoliAttivi, limit);
     }
     
     @GetMapping("/search")
-    public List<Articolo> searchArticoli(@RequestParam String query) {
-        return articoloService.searchArticoli(query);
+    public ResponseEntity<StreamingResponseBody> searchArticoli(@RequestParam String query,
+                                                                @RequestParam(required = false) Integer limit) {
+        return elenchiStreamingService.risposta(() -> articoloService.streamSearchArticoli(query), limit);
+    }
+    
+    /**
+     * Suggerimenti durante la digitazione su descrizione e codice, dall'indice in memoria
+     */
+    @GetMapping("/suggest")
+    public List<SuggerimentoDto> suggerisciArticoli(
+            @RequestParam String q,
+            @RequestParam(required = false) Integer limit) {
+        return suggerimentiService.suggerisci(SuggerimentiService.Risorsa.ARTICOLI, q, null, limit);
     }
     
     @GetMapping("/categoria/{categoria}")
-    public List<Articolo> getArticoliByCategoria(@PathVariable String categoria) {
-        return articoloService.getArticoliByCategoria(categoria);
+    public ResponseEntity<StreamingResponseBody> getArticoliByCategoria(@PathVariable String categoria,
+                                                                        @RequestParam(required = false) Integer limit) {
+        return elenchiStreamingService.risposta(() -> articoloService.streamArticoliByCategoria(categoria), limit);
     }
     
     @GetMapping("/prezzo-range")
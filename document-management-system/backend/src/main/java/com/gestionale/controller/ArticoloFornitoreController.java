@@ -1,17 +1,29 @@
 package com.gestionale.controller;
 
+import com.gestionale.dto.RiepilogoFornitoreDto;
+import com.gestionale.dto.StatistichePrezzoDto;
+import com.gestionale.dto.SuggerimentoDto;
 import com.gestionale.entity.ArticoloFornitore;
+import com.gestionale.entity.PrezzoArticoloFornitore;
 import com.gestionale.service.ArticoloFornitoreService;
+import com.gestionale.service.ElenchiStreamingService;
+import com.gestionale.service.PrezziArticoliFornitoriService;
+import com.gestionale.service.SuggerimentiService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/articoli-fornitori")
@@ -21,6 +33,15 @@ public class ArticoloFornitoreController {
     @Autowired
     private ArticoloFornitoreService articoloFornitoreService;
     
+    @Autowired
+    private SuggerimentiService suggerimentiService;
+    
+    @Autowired
+    private ElenchiStreamingService elenchiStreamingService;
+    
+    @Autowired
+    private PrezziArticoliFornitoriService prezziArticoliFornitoriService;
+    
     @GetMapping
     public ResponseEntity<Page<ArticoloFornitore>> getAllArticoliFornitori(
             @RequestParam(defaultValue = "0") int page,
@@ -37,9 +58,12 @@ public class ArticoloFornitoreController {
         return ResponseEntity.ok(articoliFornitori);
     }
     
+    /**
+     * Tutti gli articoli fornitori, scritti in streaming fino al limite richiesto (comunque entro elenchi.limite-massimo)
+     */
     @GetMapping("/all")
-    public List<ArticoloFornitore> getAllArticoliFornitoriNonPaginati() {
-        return articoloFornitoreService.getAllArticoliFornitori();
+    public ResponseEntity<StreamingResponseBody> getAllArticoliFornitoriNonPaginati(@RequestParam(required = false) Integer limit) {
+        return elenchiStreamingService.risposta(articoloFornitoreService::streamArticoliFornitori, limit);
     }
     
     @GetMapping("/paginati")
@@ -67,13 +91,27 @@ public class ArticoloFornitoreController {
     }
     
     @GetMapping("/fornitore/{partitaIva}")
-    public List<ArticoloFornitore> getArticoliByFornitore(@PathVariable String partitaIva) {
-        return articoloFornitoreService.getArticoliByFornitore(partitaIva);
+    public ResponseEntity<StreamingResponseBody> getArticoliByFornitore(@PathVariable String partitaIva,
+                                                                        @RequestParam(required = false) Integer limit) {
+        return elenchiStreamingService.risposta(() -> articoloFornitoreService.streamArticoliByFornitore(partitaIva), limit);
     }
     
     @GetMapping("/search")
-    public List<ArticoloFornitore> searchArticoliFornitori(@RequestParam String query) {
-        return articoloFornitoreService.searchArticoliFornitori(query);
+    public ResponseEntity<StreamingResponseBody> searchArticoliFornitori(@RequestParam String query,
+                                                                         @RequestParam(required = false) Integer limit) {
+        return elenchiStreamingService.risposta(() -> articoloFornitoreService.streamSearchArticoliFornitori(query), limit);
+    }
+    
+    /**
+     * Suggerimenti durante la digitazione su descrizione e codice, dall'indice in memoria,
+     * eventualmente per un solo fornitore (partita IVA)
+     */
+    @GetMapping("/suggest")
+    public List<SuggerimentoDto> suggerisciArticoliFornitori(
+            @RequestParam String q,
+            @RequestParam(required = false) String fornitore,
+            @RequestParam(required = false) Integer limit) {
+        return suggerimentiService.suggerisciArticoliFornitori(q, fornitore, limit);
     }
     
     @PostMapping
@@ -100,6 +138,55 @@ public class ArticoloFornitoreController {
                       : ResponseEntity.notFound().build();
     }
     
+    /**
+     * Andamento del prezzo di un articolo nel tempo, per un fornitore o per tutti
+     */
+    @GetMapping("/prezzi/andamento")
+    public ResponseEntity<?> getAndamentoPrezzi(
+            @RequestParam String codice,
+            @RequestParam(required = false) String fornitore,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate da,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate a) {
+        try {
+            List<PrezzoArticoloFornitore> prezzi = prezziArticoliFornitoriService.getAndamento(codice, fornitore, da, a);
+            return ResponseEntity.ok(prezzi);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    /**
+     * Ultimo prezzo registrato di un articolo per un fornitore
+     */
+    @GetMapping("/prezzi/ultimo")
+    public ResponseEntity<?> getUltimoPrezzo(@RequestParam String codice, @RequestParam String fornitore) {
+        try {
+            return prezziArticoliFornitoriService.getUltimoPrezzo(codice, fornitore)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    /**
+     * Prezzo minimo, massimo e medio di un articolo per mese o per anno
+     */
+    @GetMapping("/prezzi/statistiche")
+    public ResponseEntity<?> getStatistichePrezzi(
+            @RequestParam String codice,
+            @RequestParam(required = false) String fornitore,
+            @RequestParam(defaultValue = "mese") String periodo,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate da,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate a) {
+        try {
+            List<StatistichePrezzoDto> statistiche = prezziArticoliFornitoriService.getStatistiche(codice, fornitore, periodo, da, a);
+            return ResponseEntity.ok(statistiche);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
     @GetMapping("/stats/count")
     public ResponseEntity<Long> countArticoliFornitori() {
         return ResponseEntity.ok(articoloFornitoreService.countArticoliFornitori());
@@ -107,6 +194,19 @@ public class ArticoloFornitoreController {
     
     @GetMapping("/stats/fornitori")
     public ResponseEntity<List<String>> getAllFornitori() {
-        return ResponseEntity.ok(articoloFornitoreService.getAllFornitori());
+        return ResponseEntity.ok()
+            .cacheControl(CacheControl.maxAge(60, TimeUnit.SECONDS))
+            .body(articoloFornitoreService.getAllFornitori());
+    }
+    
+    /**
+     * Fornitori degli articoli con partita IVA, categoria, numero di articoli e data dell'ultimo documento
+     * (riepilogo in cache sul server, riutilizzabile dal client per un minuto)
+     */
+    @GetMapping("/fornitori")
+    public ResponseEntity<List<RiepilogoFornitoreDto>> getRiepilogoFornitori() {
+        return ResponseEntity.ok()
+            .cacheControl(CacheControl.maxAge(60, TimeUnit.SECONDS))
+            .body(articoloFornitoreService.getRiepilogoFornitori());
     }
 }
@@ -1,7 +1,10 @@
 package com.gestionale.controller;
 
+import com.gestionale.dto.SuggerimentoDto;
 import com.gestionale.entity.Cliente;
 import com.gestionale.service.ClienteService;
+import com.gestionale.service.ElenchiStreamingService;
+import com.gestionale.service.SuggerimentiService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -9,6 +12,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Optional;
@@ -21,6 +25,12 @@ public class ClienteController {
     @Autowired
     private ClienteService clienteService;
     
+    @Autowired
+    private SuggerimentiService suggerimentiService;
+    
+    @Autowired
+    private ElenchiStreamingService elenchiStreamingService;
+    
     @GetMapping
     public ResponseEntity<Page<Cliente>> getAllClienti(
             @RequestParam(defaultValue = "0") int page,
@@ -37,9 +47,12 @@ public class ClienteController {
         return ResponseEntity.ok(clienti);
     }
     
+    /**
+     * Tutti i clienti, scritti in streaming fino al limite richiesto (comunque entro elenchi.limite-massimo)
+     */
     @GetMapping("/all")
-    public List<Cliente> getAllClientiNonPaginati() {
-        return clienteService.getAllClienti();
+    public ResponseEntity<StreamingResponseBody> getAllClientiNonPaginati(@RequestParam(required = false) Integer limit) {
+        return elenchiStreamingService.risposta(clienteService::streamClienti, limit);
     }
     
     @GetMapping("/paginati")
@@ -52,6 +65,21 @@ public class ClienteController {
         return ResponseEntity.ok(clienti);
     }
     
+    /**
+     * Elenco dei clienti per ragione sociale paginato per chiave: la risposta contiene il cursore
+     * per la pagina successiva e non viene eseguito alcun conteggio totale
+     */
+    @GetMapping("/cursore")
+    public ResponseEntity<?> scorriClienti(
+            @RequestParam(required = false) String cursore,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            return ResponseEntity.ok(clienteService.scorriClienti(cursore, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
     @GetMapping("/{id}")
     public ResponseEntity<Cliente> getClienteById(@PathVariable Long id) {
         Optional<Cliente> cliente = clienteService.getClienteById(id);
@@ -80,13 +108,26 @@ public class ClienteController {
     }
     
     @GetMapping("/attivi")
-    public List<Cliente> getClientiAttivi() {
-        return clienteService.getClientiAttivi();
+    public ResponseEntity<StreamingResponseBody> getClientiAttivi(@RequestParam(required = false) Integer limit) {
+        return elenchiStreamingService.risposta(clienteService::streamClientiAttivi, limit);
     }
     
     @GetMapping("/search")
-    public List<Cliente> searchClienti(@RequestParam String query) {
-        return clienteService.searchClienti(query);
+    public ResponseEntity<StreamingResponseBody> searchClienti(@RequestParam String query,
+                                                               @RequestParam(required = false) Integer limit) {
+        return elenchiStreamingService.risposta(() -> clienteService.streamSearchClienti(query), limit);
+    }
+    
+    /**
+     * Suggerimenti durante la digitazione su ragione sociale e partita IVA, dall'indice in memoria;
+     * con tipo FORNITORE restituisce i fornitori
+     */
+    @GetMapping("/suggest")
+    public List<SuggerimentoDto> suggerisciClienti(
+            @RequestParam String q,
+            @RequestParam(required = false) Cliente.TipoCliente tipo,
+            @RequestParam(required = false) Integer limit) {
+        return suggerimentiService.suggerisciClienti(q, tipo, limit);
     }
     
     @GetMapping("/tipo/{tipo}")
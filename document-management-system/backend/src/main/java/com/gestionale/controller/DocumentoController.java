@@ -14,11 +14,14 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import javax.validation.ConstraintViolationException;
 import javax.validation.Valid;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Collectors;
 
 /**
  * Controller REST per la gestione dei documenti
@@ -26,6 +29,7 @@ import java.util.List;
 @RestController
 @RequestMapping("/api/documenti")
 @CrossOrigin(origins = "*")
+@Validated
 public class DocumentoController {
 
     @Autowired
@@ -40,6 +44,31 @@ public class DocumentoController {
         return ResponseEntity.status(HttpStatus.CREATED).body(documento);
     }
 
+    /**
+     * Crea più documenti in un'unica transazione, con un solo intervallo di numerazione per tipo e anno
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<?> creaDocumenti(@RequestBody List<@Valid DocumentoCreateDto> createDtos) {
+        try {
+            List<DocumentoResponseDto> documenti = documentoService.creaDocumenti(createDtos);
+            return ResponseEntity.status(HttpStatus.CREATED).body(documenti);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Errori di validazione dei documenti inviati in blocco
+     */
+    @ExceptionHandler(ConstraintViolationException.class)
+    public ResponseEntity<List<String>> gestisciDocumentiNonValidi(ConstraintViolationException e) {
+        List<String> errori = e.getConstraintViolations().stream()
+            .map(violazione -> violazione.getPropertyPath() + ": " + violazione.getMessage())
+            .sorted()
+            .collect(Collectors.toList());
+        return ResponseEntity.badRequest().body(errori);
+    }
+
     /**
      * Recupera un documento per ID
      */
@@ -58,32 +87,7 @@ public class DocumentoController {
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "dataDocumento") String sortBy,
             @RequestParam(defaultValue = "desc") String sortDir,
-            @RequestParam(required = false) TipoDocumento tipoDocumento,
-            @RequestParam(required = false) StatoDocumento statoDocumento,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataInizio,
-            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dataFine,
-            @RequestParam(required = false) String soggettoFilter,
-            @RequestParam(required = false) Long soggettoId,
-            @RequestParam(required = false) String numeroDocumento,
-            @RequestParam(required = false) Boolean inviato,
-            @RequestParam(required = false) Boolean stampato,
-            @RequestParam(required = false) String partitaIva,
-            @RequestParam(required = false) String codiceFiscale) {
-
-        // Crea filtro
-        DocumentoFilter filter = DocumentoFilter.builder()
-                .tipoDocumento(tipoDocumento)
-                .statoDocumento(statoDocumento)
-                .dataInizio(dataInizio)
-                .dataFine(dataFine)
-                .soggettoFilter(soggettoFilter)
-                .soggettoId(soggettoId)
-                .numeroDocumento(numeroDocumento)
-                .inviato(inviato)
-                .stampato(stampato)
-                .partitaIva(partitaIva)
-                .codiceFiscale(codiceFiscale)
-                .build();
+            @ModelAttribute DocumentoFilter filter) {
 
         // Crea paginazione
         Sort sort = Sort.by(sortDir.equals("desc") ? Sort.Direction.DESC : Sort.Direction.ASC, sortBy);
@@ -93,6 +97,54 @@ public class DocumentoController {
         return ResponseEntity.ok(documenti);
     }
 
+    /**
+     * Elenco compatto dei documenti (id, tipo, numero, anno, data, ragione sociale, totale, stato)
+     * con gli stessi filtri e la stessa paginazione di getDocumenti
+     */
+    @GetMapping("/sintesi")
+    public ResponseEntity<Page<DocumentoSintesiDto>> getSintesiDocumenti(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "dataDocumento") String sortBy,
+            @RequestParam(defaultValue = "desc") String sortDir,
+            @ModelAttribute DocumentoFilter filter) {
+
+        Sort sort = Sort.by(sortDir.equals("desc") ? Sort.Direction.DESC : Sort.Direction.ASC, sortBy);
+        Pageable pageable = PageRequest.of(page, size, sort);
+
+        Page<DocumentoSintesiDto> documenti = documentoService.getSintesiDocumenti(filter, pageable);
+        return ResponseEntity.ok(documenti);
+    }
+
+    /**
+     * Elenco compatto dei documenti paginato per chiave, dal più recente: la risposta contiene
+     * il cursore da passare per la pagina successiva. Adatto a scorrere elenchi lunghi,
+     * il costo di ogni pagina non dipende dalla sua posizione.
+     */
+    @GetMapping("/cursore")
+    public ResponseEntity<?> scorriDocumenti(
+            @RequestParam(required = false) String cursore,
+            @RequestParam(defaultValue = "20") int size,
+            @ModelAttribute DocumentoFilter filter) {
+
+        try {
+            return ResponseEntity.ok(documentoService.scorriDocumenti(filter, cursore, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Ricerca testuale per la casella di ricerca: ragione sociale, partita IVA, note e numero,
+     * con i risultati più rilevanti per primi
+     */
+    @GetMapping("/cerca")
+    public ResponseEntity<List<DocumentoSintesiDto>> cercaDocumenti(
+            @RequestParam("q") String testo,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(documentoService.cercaDocumenti(testo, limit));
+    }
+
     /**
      * Aggiorna un documento esistente
      */
@@ -4,6 +4,7 @@ import com.gestionale.dto.ImportResultDto;
 import com.gestionale.dto.ImportArticoliResponse;
 import com.gestionale.dto.ImportFornitoriResponse;
 import com.gestionale.dto.ImportArticoliFornitoriResponse;
+import com.gestionale.service.ImportFattureService;
 import com.gestionale.service.ImportService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -21,10 +22,14 @@ public class ImportController {
     @Autowired
     private ImportService importService;
 
+    @Autowired
+    private ImportFattureService importFattureService;
+
     @PostMapping("/clienti/json")
     public ResponseEntity<ImportResultDto> importClientiFromJson(
             @RequestParam("file") MultipartFile file,
-            @RequestParam(value = "preview", defaultValue = "false") boolean preview) {
+            @RequestParam(value = "preview", defaultValue = "false") boolean preview,
+            @RequestParam(value = "forza", defaultValue = "false") boolean forza) {
         
         try {
             if (file.isEmpty()) {
@@ -32,7 +37,7 @@ public class ImportController {
                     .body(new ImportResultDto(false, "File vuoto", 0, 0, null));
             }
 
-            ImportResultDto result = importService.importClientiFromJson(file, preview);
+            ImportResultDto result = importService.importClientiFromJson(file, preview, forza);
             
             if (result.isSuccess()) {
                 return ResponseEntity.ok(result);
@@ -73,7 +78,8 @@ public class ImportController {
     @PostMapping("/articoli/json")
     public ResponseEntity<ImportArticoliResponse> importArticoliFromJson(
             @RequestParam("file") MultipartFile file,
-            @RequestParam(value = "preview", defaultValue = "false") boolean preview) {
+            @RequestParam(value = "preview", defaultValue = "false") boolean preview,
+            @RequestParam(value = "forza", defaultValue = "false") boolean forza) {
         
         try {
             if (file.isEmpty()) {
@@ -81,7 +87,7 @@ public class ImportController {
                     .body(new ImportArticoliResponse(false, 0, 0, 0, null, "File vuoto"));
             }
 
-            ImportArticoliResponse result = importService.importArticoliFromJson(file, preview);
+            ImportArticoliResponse result = importService.importArticoliFromJson(file, preview, forza);
             
             if (result.isSuccess()) {
                 return ResponseEntity.ok(result);
@@ -124,7 +130,8 @@ public class ImportController {
     // Endpoints per fornitori
     @PostMapping("/fornitori/json")
     public ResponseEntity<ImportFornitoriResponse> importFornitoriFromJson(
-            @RequestParam("file") MultipartFile file) {
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "forza", defaultValue = "false") boolean forza) {
         
         try {
             if (file.isEmpty()) {
@@ -134,12 +141,7 @@ public class ImportController {
                 return ResponseEntity.badRequest().body(response);
             }
 
-            String content = new String(file.getBytes());
-            var fornitori = importService.parseFornitori(content);
-            ImportFornitoriResponse result = importService.importFornitori(fornitori);
-            
-            result.setSuccess(result.getFornitoriImportati() > 0);
-            result.setMessage("Importazione completata");
+            ImportFornitoriResponse result = importService.importFornitoriFromJson(file, false, forza);
             
             if (result.isSuccess()) {
                 return ResponseEntity.ok(result);
@@ -167,9 +169,7 @@ public class ImportController {
                 return ResponseEntity.badRequest().body(response);
             }
 
-            String content = new String(file.getBytes());
-            var fornitori = importService.parseFornitori(content);
-            ImportFornitoriResponse result = importService.validateFornitori(fornitori);
+            ImportFornitoriResponse result = importService.validateFornitoriJson(file);
             
             result.setSuccess(result.getErrors().isEmpty());
             result.setMessage("Validazione completata");
@@ -193,13 +193,8 @@ public class ImportController {
                 return ResponseEntity.badRequest().body(Map.of("error", "File vuoto"));
             }
 
-            String content = new String(file.getBytes());
-            var fornitori = importService.parseFornitori(content);
-            
-            return ResponseEntity.ok(Map.of(
-                "fornitori", fornitori.stream().limit(10).toList(), // Mostra solo i primi 10
-                "total", fornitori.size()
-            ));
+            // Mostra solo i primi 10
+            return ResponseEntity.ok(importService.previewJson(file, "fornitori"));
             
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -212,7 +207,8 @@ public class ImportController {
     @PostMapping("/articoli-fornitori/json")
     public ResponseEntity<ImportArticoliFornitoriResponse> importArticoliFornitoriFromJson(
             @RequestParam("file") MultipartFile file,
-            @RequestParam(value = "preview", defaultValue = "false") boolean preview) {
+            @RequestParam(value = "preview", defaultValue = "false") boolean preview,
+            @RequestParam(value = "forza", defaultValue = "false") boolean forza) {
         
         try {
             if (file.isEmpty()) {
@@ -221,7 +217,7 @@ public class ImportController {
                 return ResponseEntity.badRequest().body(errorResponse);
             }
 
-            ImportArticoliFornitoriResponse result = importService.importArticoliFornitoriFromJson(file, preview);
+            ImportArticoliFornitoriResponse result = importService.importArticoliFornitoriFromJson(file, preview, forza);
             
             if (result.getErrori().isEmpty() || result.getArticoliImportati() > 0) {
                 return ResponseEntity.ok(result);
@@ -278,17 +274,37 @@ public class ImportController {
                     .body(Map.of("error", "File vuoto"));
             }
 
-            String jsonContent = new String(file.getBytes());
-            var articoli = importService.parseArticoliFornitori(jsonContent);
-            
-            return ResponseEntity.ok(Map.of(
-                "articoli", articoli.stream().limit(10).toList(), // Mostra solo i primi 10
-                "total", articoli.size()
-            ));
+            // Mostra solo i primi 10
+            return ResponseEntity.ok(importService.previewJson(file, "articoli"));
             
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body(Map.of("error", "Errore durante il preview: " + e.getMessage()));
         }
     }
+
+    @PostMapping("/fatture/json")
+    public ResponseEntity<ImportResultDto> importFattureFromJson(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "forza", defaultValue = "false") boolean forza) {
+        
+        try {
+            if (file.isEmpty()) {
+                return ResponseEntity.badRequest()
+                    .body(new ImportResultDto(false, "File vuoto", 0, 0, null));
+            }
+
+            ImportResultDto result = importFattureService.importFattureFromJson(file, forza);
+            
+            if (result.isSuccess()) {
+                return ResponseEntity.ok(result);
+            } else {
+                return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT).body(result);
+            }
+            
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(new ImportResultDto(false, "Errore durante l'importazione delle fatture: " + e.getMessage(), 0, 0, null));
+        }
+    }
 }
@@ -0,0 +1,82 @@
+package com.gestionale.controller;
+
+import com.gestionale.dto.ImportJobDto;
+import com.gestionale.enums.TipoImport;
+import com.gestionale.service.ImportJobService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/api/import/jobs")
+@CrossOrigin(origins = "*")
+public class ImportJobController {
+
+    @Autowired
+    private ImportJobService importJobService;
+
+    /**
+     * Avvia un'importazione in background e restituisce subito l'id del job.
+     * Con forza=true il file viene importato anche se risulta già importato.
+     */
+    @PostMapping
+    public ResponseEntity<?> avviaJob(
+            @RequestParam("tipo") TipoImport tipo,
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "forza", defaultValue = "false") boolean forza) {
+        
+        try {
+            if (file.isEmpty()) {
+                return ResponseEntity.badRequest().body(Map.of("error", "File vuoto"));
+            }
+            
+            ImportJobDto job = importJobService.avviaJob(tipo, file, forza);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+            
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(Map.of("error", "Troppe importazioni in corso, riprovare più tardi"));
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("error", "Errore durante l'avvio dell'importazione: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Stato di avanzamento di un job: righe elaborate, errori e velocità
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<ImportJobDto> getJob(@PathVariable String id) {
+        return importJobService.getJob(id)
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Riprende un job fallito dall'ultimo blocco confermato
+     */
+    @PostMapping("/{id}/riprendi")
+    public ResponseEntity<?> riprendiJob(@PathVariable String id) {
+        try {
+            return importJobService.riprendiJob(id)
+                .<ResponseEntity<?>>map(job -> ResponseEntity.status(HttpStatus.ACCEPTED).body(job))
+                .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", e.getMessage()));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(Map.of("error", "Troppe importazioni in corso, riprovare più tardi"));
+        }
+    }
+
+    @GetMapping
+    public ResponseEntity<List<ImportJobDto>> getJobs() {
+        return ResponseEntity.ok(importJobService.getJobs());
+    }
+}
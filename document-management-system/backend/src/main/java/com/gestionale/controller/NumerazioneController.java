@@ -0,0 +1,41 @@
+package com.gestionale.controller;
+
+import com.gestionale.dto.VerificaNumerazioneDto;
+import com.gestionale.entity.TipoDocumento;
+import com.gestionale.service.VerificaNumerazioneService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Controller REST per le verifiche delle numerazioni documenti
+ */
+@RestController
+@RequestMapping("/api/numerazioni")
+@CrossOrigin(origins = "*")
+public class NumerazioneController {
+
+    @Autowired
+    private VerificaNumerazioneService verificaNumerazioneService;
+
+    /**
+     * Verifica numeri mancanti e coerenza delle numerazioni di un anno (anno corrente se non indicato)
+     */
+    @GetMapping("/verifica")
+    public ResponseEntity<List<VerificaNumerazioneDto>> verificaAnno(@RequestParam(required = false) Integer anno) {
+        int annoVerifica = anno != null ? anno : LocalDate.now().getYear();
+        return ResponseEntity.ok(verificaNumerazioneService.verificaAnno(annoVerifica));
+    }
+
+    /**
+     * Verifica la numerazione di un tipo documento per un anno
+     */
+    @GetMapping("/verifica/{tipoDocumento}/{anno}")
+    public ResponseEntity<VerificaNumerazioneDto> verifica(@PathVariable TipoDocumento tipoDocumento,
+                                                           @PathVariable Integer anno) {
+        return ResponseEntity.ok(verificaNumerazioneService.verifica(tipoDocumento, anno));
+    }
+}
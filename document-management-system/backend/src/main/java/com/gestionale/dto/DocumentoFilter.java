@@ -3,18 +3,21 @@ package com.gestionale.dto;
 import com.gestionale.entity.StatoDocumento;
 import com.gestionale.entity.TipoDocumento;
 import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
 
 import java.time.LocalDate;
 
 /**
- * DTO per filtrare i documenti
+ * DTO per filtrare i documenti, letto dai parametri della richiesta negli elenchi (@ModelAttribute)
  */
 @Data
 public class DocumentoFilter {
     
     private TipoDocumento tipoDocumento;
     private StatoDocumento statoDocumento;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
     private LocalDate dataInizio;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
     private LocalDate dataFine;
     private String soggettoFilter;
     private Long soggettoId;
@@ -18,6 +18,9 @@ public class DocumentoResponseDto {
     
     private Integer anno;
     
+    // Numero con prefisso, suffisso e lunghezza della numerazione
+    private String numeroFormattato;
+    
     private LocalDate dataDocumento;
     
     private LocalDate dataRegistrazione;
@@ -235,6 +238,9 @@ public class DocumentoResponseDto {
     public Integer getAnno() { return anno; }
     public void setAnno(Integer anno) { this.anno = anno; }
 
+    public String getNumeroFormattato() { return numeroFormattato; }
+    public void setNumeroFormattato(String numeroFormattato) { this.numeroFormattato = numeroFormattato; }
+
     public LocalDate getDataDocumento() { return dataDocumento; }
     public void setDataDocumento(LocalDate dataDocumento) { this.dataDocumento = dataDocumento; }
 
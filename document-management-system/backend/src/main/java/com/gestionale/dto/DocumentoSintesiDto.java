@@ -0,0 +1,68 @@
+package com.gestionale.dto;
+
+import com.gestionale.entity.StatoDocumento;
+import com.gestionale.entity.TipoDocumento;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Dati di sintesi di un documento per gli elenchi, letti direttamente dalla query
+ * senza caricare l'entity Documento
+ */
+public class DocumentoSintesiDto {
+
+    private Long id;
+    private TipoDocumento tipoDocumento;
+    private Long numero;
+    private Integer anno;
+    private LocalDate dataDocumento;
+    private String ragioneSociale;
+    private BigDecimal totaleDocumento;
+    private StatoDocumento statoDocumento;
+    // Numero con prefisso, suffisso e lunghezza della numerazione, impostato dal service
+    private String numeroFormattato;
+
+    public DocumentoSintesiDto() {}
+
+    public DocumentoSintesiDto(Long id, TipoDocumento tipoDocumento, Long numero, Integer anno,
+                               LocalDate dataDocumento, String ragioneSociale, BigDecimal totaleDocumento,
+                               StatoDocumento statoDocumento) {
+        this.id = id;
+        this.tipoDocumento = tipoDocumento;
+        this.numero = numero;
+        this.anno = anno;
+        this.dataDocumento = dataDocumento;
+        this.ragioneSociale = ragioneSociale;
+        this.totaleDocumento = totaleDocumento;
+        this.statoDocumento = statoDocumento;
+    }
+
+    // Getter e Setter
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public TipoDocumento getTipoDocumento() { return tipoDocumento; }
+    public void setTipoDocumento(TipoDocumento tipoDocumento) { this.tipoDocumento = tipoDocumento; }
+
+    public Long getNumero() { return numero; }
+    public void setNumero(Long numero) { this.numero = numero; }
+
+    public Integer getAnno() { return anno; }
+    public void setAnno(Integer anno) { this.anno = anno; }
+
+    public LocalDate getDataDocumento() { return dataDocumento; }
+    public void setDataDocumento(LocalDate dataDocumento) { this.dataDocumento = dataDocumento; }
+
+    public String getRagioneSociale() { return ragioneSociale; }
+    public void setRagioneSociale(String ragioneSociale) { this.ragioneSociale = ragioneSociale; }
+
+    public BigDecimal getTotaleDocumento() { return totaleDocumento; }
+    public void setTotaleDocumento(BigDecimal totaleDocumento) { this.totaleDocumento = totaleDocumento; }
+
+    public StatoDocumento getStatoDocumento() { return statoDocumento; }
+    public void setStatoDocumento(StatoDocumento statoDocumento) { this.statoDocumento = statoDocumento; }
+
+    public String getNumeroFormattato() { return numeroFormattato; }
+    public void setNumeroFormattato(String numeroFormattato) { this.numeroFormattato = numeroFormattato; }
+}
@@ -10,6 +10,8 @@ public class ImportArticoliFornitoriResponse {
     private int articoliScartati;
     private int articoliDuplicati;
     private int articoliAggiornati;
+    private int articoliInvariati;
+    private boolean fileGiaImportato;
     private List<String> errori;
     private List<ArticoloFornitoreDto> articoliValidi;
     private List<ArticoloFornitoreDto> articoliInvalidi;
@@ -132,6 +134,13 @@ public class ImportArticoliFornitoriResponse {
     public int getArticoliAggiornati() { return articoliAggiornati; }
     public void setArticoliAggiornati(int articoliAggiornati) { this.articoliAggiornati = articoliAggiornati; }
     
+    // Record identici a quelli di un'importazione precedente, non rielaborati
+    public int getArticoliInvariati() { return articoliInvariati; }
+    public void setArticoliInvariati(int articoliInvariati) { this.articoliInvariati = articoliInvariati; }
+    
+    public boolean isFileGiaImportato() { return fileGiaImportato; }
+    public void setFileGiaImportato(boolean fileGiaImportato) { this.fileGiaImportato = fileGiaImportato; }
+    
     public List<String> getErrori() { return errori; }
     public void setErrori(List<String> errori) { this.errori = errori; }
     
@@ -0,0 +1,66 @@
+package com.gestionale.dto;
+
+import com.gestionale.enums.StatoImportJob;
+import com.gestionale.enums.TipoImport;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stato di un job di importazione restituito al client
+ */
+public class ImportJobDto {
+
+    private String id;
+    private TipoImport tipo;
+    private String nomeFile;
+    private StatoImportJob stato;
+    private int righeElaborate;
+    private int errori;
+    private int ultimaRigaConfermata;
+    private double righePerSecondo;
+    private LocalDateTime creatoIl;
+    private LocalDateTime avviatoIl;
+    private LocalDateTime completatoIl;
+    private String messaggio;
+    private Object risultato;
+
+    // Getters e Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public TipoImport getTipo() { return tipo; }
+    public void setTipo(TipoImport tipo) { this.tipo = tipo; }
+
+    public String getNomeFile() { return nomeFile; }
+    public void setNomeFile(String nomeFile) { this.nomeFile = nomeFile; }
+
+    public StatoImportJob getStato() { return stato; }
+    public void setStato(StatoImportJob stato) { this.stato = stato; }
+
+    public int getRigheElaborate() { return righeElaborate; }
+    public void setRigheElaborate(int righeElaborate) { this.righeElaborate = righeElaborate; }
+
+    public int getErrori() { return errori; }
+    public void setErrori(int errori) { this.errori = errori; }
+
+    public int getUltimaRigaConfermata() { return ultimaRigaConfermata; }
+    public void setUltimaRigaConfermata(int ultimaRigaConfermata) { this.ultimaRigaConfermata = ultimaRigaConfermata; }
+
+    public double getRighePerSecondo() { return righePerSecondo; }
+    public void setRighePerSecondo(double righePerSecondo) { this.righePerSecondo = righePerSecondo; }
+
+    public LocalDateTime getCreatoIl() { return creatoIl; }
+    public void setCreatoIl(LocalDateTime creatoIl) { this.creatoIl = creatoIl; }
+
+    public LocalDateTime getAvviatoIl() { return avviatoIl; }
+    public void setAvviatoIl(LocalDateTime avviatoIl) { this.avviatoIl = avviatoIl; }
+
+    public LocalDateTime getCompletatoIl() { return completatoIl; }
+    public void setCompletatoIl(LocalDateTime completatoIl) { this.completatoIl = completatoIl; }
+
+    public String getMessaggio() { return messaggio; }
+    public void setMessaggio(String messaggio) { this.messaggio = messaggio; }
+
+    public Object getRisultato() { return risultato; }
+    public void setRisultato(Object risultato) { this.risultato = risultato; }
+}
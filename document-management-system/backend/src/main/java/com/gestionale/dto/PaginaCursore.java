@@ -0,0 +1,46 @@
+package com.gestionale.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Pagina di un elenco scorso per chiave (keyset): contiene i risultati e il cursore
+ * da passare alla richiesta successiva, nullo quando non ci sono altri risultati.
+ * Non viene eseguito alcun conteggio totale.
+ */
+public class PaginaCursore<T> {
+
+    // Dimensione massima di una pagina richiesta con cursore
+    public static final int DIMENSIONE_MASSIMA = 500;
+
+    private List<T> contenuto;
+    private String cursoreSuccessivo;
+
+    public PaginaCursore() {}
+
+    public PaginaCursore(List<T> contenuto, String cursoreSuccessivo) {
+        this.contenuto = contenuto;
+        this.cursoreSuccessivo = cursoreSuccessivo;
+    }
+
+    /**
+     * Costruisce la pagina da righe lette con un elemento in più della dimensione richiesta:
+     * l'elemento in più indica che esiste una pagina successiva e viene scartato
+     */
+    public static <T> PaginaCursore<T> da(List<T> righe, int dimensione, Function<T, String> cursore) {
+        if (righe.size() <= dimensione) {
+            return new PaginaCursore<>(righe, null);
+        }
+        List<T> contenuto = righe.subList(0, dimensione);
+        return new PaginaCursore<>(contenuto, cursore.apply(contenuto.get(dimensione - 1)));
+    }
+
+    public boolean isUltima() { return cursoreSuccessivo == null; }
+
+    // Getter e Setter
+    public List<T> getContenuto() { return contenuto; }
+    public void setContenuto(List<T> contenuto) { this.contenuto = contenuto; }
+
+    public String getCursoreSuccessivo() { return cursoreSuccessivo; }
+    public void setCursoreSuccessivo(String cursoreSuccessivo) { this.cursoreSuccessivo = cursoreSuccessivo; }
+}
@@ -0,0 +1,47 @@
+package com.gestionale.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.time.LocalDate;
+
+/**
+ * Riepilogo di un fornitore presente negli articoli fornitori, calcolato dal database
+ * con un raggruppamento per partita IVA
+ */
+public class RiepilogoFornitoreDto {
+
+    private String partitaIva;
+    private String ragioneSociale;
+    private String categoria;
+    // Nome atteso dal frontend
+    @JsonProperty("articoliCount")
+    private Long numeroArticoli;
+    private LocalDate ultimaDataDocumento;
+
+    public RiepilogoFornitoreDto() {}
+
+    public RiepilogoFornitoreDto(String partitaIva, String ragioneSociale, String categoria,
+                                 Long numeroArticoli, LocalDate ultimaDataDocumento) {
+        this.partitaIva = partitaIva;
+        this.ragioneSociale = ragioneSociale;
+        this.categoria = categoria;
+        this.numeroArticoli = numeroArticoli;
+        this.ultimaDataDocumento = ultimaDataDocumento;
+    }
+
+    // Getter e Setter
+    public String getPartitaIva() { return partitaIva; }
+    public void setPartitaIva(String partitaIva) { this.partitaIva = partitaIva; }
+
+    public String getRagioneSociale() { return ragioneSociale; }
+    public void setRagioneSociale(String ragioneSociale) { this.ragioneSociale = ragioneSociale; }
+
+    public String getCategoria() { return categoria; }
+    public void setCategoria(String categoria) { this.categoria = categoria; }
+
+    public Long getNumeroArticoli() { return numeroArticoli; }
+    public void setNumeroArticoli(Long numeroArticoli) { this.numeroArticoli = numeroArticoli; }
+
+    public LocalDate getUltimaDataDocumento() { return ultimaDataDocumento; }
+    public void setUltimaDataDocumento(LocalDate ultimaDataDocumento) { this.ultimaDataDocumento = ultimaDataDocumento; }
+}
@@ -0,0 +1,53 @@
+package com.gestionale.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Prezzo minimo, massimo e medio di un articolo fornitore in un periodo (mese, o anno se mese è null),
+ * calcolati dal database sullo storico prezzi
+ */
+public class StatistichePrezzoDto {
+
+    private Integer anno;
+    private Integer mese;
+    private BigDecimal prezzoMinimo;
+    private BigDecimal prezzoMassimo;
+    private Double prezzoMedio;
+    private Long numeroPrezzi;
+
+    public StatistichePrezzoDto() {}
+
+    public StatistichePrezzoDto(Integer anno, BigDecimal prezzoMinimo, BigDecimal prezzoMassimo,
+                                Double prezzoMedio, Long numeroPrezzi) {
+        this(anno, null, prezzoMinimo, prezzoMassimo, prezzoMedio, numeroPrezzi);
+    }
+
+    public StatistichePrezzoDto(Integer anno, Integer mese, BigDecimal prezzoMinimo, BigDecimal prezzoMassimo,
+                                Double prezzoMedio, Long numeroPrezzi) {
+        this.anno = anno;
+        this.mese = mese;
+        this.prezzoMinimo = prezzoMinimo;
+        this.prezzoMassimo = prezzoMassimo;
+        this.prezzoMedio = prezzoMedio;
+        this.numeroPrezzi = numeroPrezzi;
+    }
+
+    // Getter e Setter
+    public Integer getAnno() { return anno; }
+    public void setAnno(Integer anno) { this.anno = anno; }
+
+    public Integer getMese() { return mese; }
+    public void setMese(Integer mese) { this.mese = mese; }
+
+    public BigDecimal getPrezzoMinimo() { return prezzoMinimo; }
+    public void setPrezzoMinimo(BigDecimal prezzoMinimo) { this.prezzoMinimo = prezzoMinimo; }
+
+    public BigDecimal getPrezzoMassimo() { return prezzoMassimo; }
+    public void setPrezzoMassimo(BigDecimal prezzoMassimo) { this.prezzoMassimo = prezzoMassimo; }
+
+    public Double getPrezzoMedio() { return prezzoMedio; }
+    public void setPrezzoMedio(Double prezzoMedio) { this.prezzoMedio = prezzoMedio; }
+
+    public Long getNumeroPrezzi() { return numeroPrezzi; }
+    public void setNumeroPrezzi(Long numeroPrezzi) { this.numeroPrezzi = numeroPrezzi; }
+}
@@ -0,0 +1,30 @@
+package com.gestionale.dto;
+
+/**
+ * Suggerimento restituito durante la digitazione: id dell'elemento, testo principale
+ * (ragione sociale o descrizione) e dettaglio (partita IVA o codice)
+ */
+public class SuggerimentoDto {
+
+    private Long id;
+    private String testo;
+    private String dettaglio;
+
+    public SuggerimentoDto() {}
+
+    public SuggerimentoDto(Long id, String testo, String dettaglio) {
+        this.id = id;
+        this.testo = testo;
+        this.dettaglio = dettaglio;
+    }
+
+    // Getter e Setter
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getTesto() { return testo; }
+    public void setTesto(String testo) { this.testo = testo; }
+
+    public String getDettaglio() { return dettaglio; }
+    public void setDettaglio(String dettaglio) { this.dettaglio = dettaglio; }
+}
@@ -0,0 +1,76 @@
+package com.gestionale.dto;
+
+import com.gestionale.entity.TipoDocumento;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Esito della verifica di una numerazione: confronto tra l'ultimo numero assegnato
+ * e i numeri effettivamente usati dai documenti, con gli intervalli mancanti
+ */
+public class VerificaNumerazioneDto {
+
+    private TipoDocumento tipoDocumento;
+    private Integer anno;
+    private Long ultimoNumeroAssegnato;
+    private Long ultimoNumeroUsato;
+    private long documenti;
+    private long numeriMancanti;
+    private boolean numerazioneContinua;
+    private boolean coerente;
+    private List<IntervalloNumeri> buchi = new ArrayList<>();
+    private boolean buchiTroncati;
+
+    /**
+     * Intervallo di numeri consecutivi non usati da alcun documento
+     */
+    public static class IntervalloNumeri {
+        private long da;
+        private long a;
+
+        public IntervalloNumeri() {}
+
+        public IntervalloNumeri(long da, long a) {
+            this.da = da;
+            this.a = a;
+        }
+
+        public long getDa() { return da; }
+        public void setDa(long da) { this.da = da; }
+
+        public long getA() { return a; }
+        public void setA(long a) { this.a = a; }
+    }
+
+    // Getter e Setter
+    public TipoDocumento getTipoDocumento() { return tipoDocumento; }
+    public void setTipoDocumento(TipoDocumento tipoDocumento) { this.tipoDocumento = tipoDocumento; }
+
+    public Integer getAnno() { return anno; }
+    public void setAnno(Integer anno) { this.anno = anno; }
+
+    public Long getUltimoNumeroAssegnato() { return ultimoNumeroAssegnato; }
+    public void setUltimoNumeroAssegnato(Long ultimoNumeroAssegnato) { this.ultimoNumeroAssegnato = ultimoNumeroAssegnato; }
+
+    public Long getUltimoNumeroUsato() { return ultimoNumeroUsato; }
+    public void setUltimoNumeroUsato(Long ultimoNumeroUsato) { this.ultimoNumeroUsato = ultimoNumeroUsato; }
+
+    public long getDocumenti() { return documenti; }
+    public void setDocumenti(long documenti) { this.documenti = documenti; }
+
+    public long getNumeriMancanti() { return numeriMancanti; }
+    public void setNumeriMancanti(long numeriMancanti) { this.numeriMancanti = numeriMancanti; }
+
+    public boolean isNumerazioneContinua() { return numerazioneContinua; }
+    public void setNumerazioneContinua(boolean numerazioneContinua) { this.numerazioneContinua = numerazioneContinua; }
+
+    public boolean isCoerente() { return coerente; }
+    public void setCoerente(boolean coerente) { this.coerente = coerente; }
+
+    public List<IntervalloNumeri> getBuchi() { return buchi; }
+    public void setBuchi(List<IntervalloNumeri> buchi) { this.buchi = buchi; }
+
+    public boolean isBuchiTroncati() { return buchiTroncati; }
+    public void setBuchiTroncati(boolean buchiTroncati) { this.buchiTroncati = buchiTroncati; }
+}
@@ -9,7 +9,9 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "articoli")
+@Table(name = "articoli", indexes = {
+    @Index(name = "idx_articoli_descrizione_id", columnList = "descrizione, id")
+})
 @Data
 @EqualsAndHashCode(exclude = {"id"})
 @ToString
@@ -5,7 +5,10 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "articoli_fornitori")
+@Table(name = "articoli_fornitori", indexes = {
+    @Index(name = "idx_articoli_fornitori_riepilogo",
+           columnList = "fornitore_partita_iva, fornitore_ragione_sociale, fornitore_categoria, data_documento")
+})
 public class ArticoloFornitore {
     
     @Id
@@ -52,10 +55,6 @@ public class ArticoloFornitore {
     @Column(name = "codice_interno", length = 50)
     private String codiceInterno;
     
-    // Prezzi storici come JSON
-    @Column(name = "prezzi_storici", columnDefinition = "TEXT")
-    private String prezziStorici;
-    
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
     
@@ -128,8 +127,6 @@ public class ArticoloFornitore {
     public String getCodiceInterno() { return codiceInterno; }
     public void setCodiceInterno(String codiceInterno) { this.codiceInterno = codiceInterno; }
     
-    public String getPrezziStorici() { return prezziStorici; }
-    public void setPrezziStorici(String prezziStorici) { this.prezziStorici = prezziStorici; }
     
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
@@ -4,7 +4,9 @@ import javax.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "clienti")
+@Table(name = "clienti", indexes = {
+    @Index(name = "idx_clienti_ragione_sociale_id", columnList = "ragioneSociale, id")
+})
 public class Cliente {
     
     @Id
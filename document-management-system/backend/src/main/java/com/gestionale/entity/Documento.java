@@ -6,6 +6,7 @@ import com.gestionale.enums.AliquotaIva;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.ToString;
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -22,14 +23,38 @@ import java.util.stream.Collectors;
  * Supporta fatture, DDT, preventivi, note di credito/debito
  */
 @Entity
-@Table(name = "documenti")
+@Table(name = "documenti", indexes = {
+    @Index(name = "idx_documenti_tipo_anno_numero", columnList = "tipo_documento, anno, numero"),
+    @Index(name = "idx_documenti_soggetto_data", columnList = "soggetto_id, data_documento"),
+    @Index(name = "idx_documenti_stato_data", columnList = "stato, data_documento"),
+    @Index(name = "idx_documenti_data_numero_id", columnList = "data_documento DESC, numero DESC, id DESC")
+})
+@NamedEntityGraphs({
+    // Elenchi paginati: solo le associazioni singole, le collezioni sono caricate a lotti (@BatchSize)
+    @NamedEntityGraph(name = Documento.GRAFO_LISTA, attributeNodes = {
+        @NamedAttributeNode("soggetto"),
+        @NamedAttributeNode("modalitaPagamento"),
+        @NamedAttributeNode("causaleTrasporto")
+    }),
+    // Singolo documento: anche le righe con la stessa query
+    @NamedEntityGraph(name = Documento.GRAFO_DETTAGLIO, attributeNodes = {
+        @NamedAttributeNode("soggetto"),
+        @NamedAttributeNode("modalitaPagamento"),
+        @NamedAttributeNode("causaleTrasporto"),
+        @NamedAttributeNode("righe")
+    })
+})
 @Data
 @EqualsAndHashCode(exclude = {"righe", "riepiloghi", "scadenze"})
 @ToString(exclude = {"righe", "riepiloghi", "scadenze"})
 public class Documento {
 
+    public static final String GRAFO_LISTA = "Documento.lista";
+    public static final String GRAFO_DETTAGLIO = "Documento.dettaglio";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "documenti_seq")
+    @SequenceGenerator(name = "documenti_seq", sequenceName = "documenti_id_seq", allocationSize = 50)
     private Long id;
 
     @Enumerated(EnumType.STRING)
@@ -192,18 +217,26 @@ public class Documento {
     @Column(name = "data_ordine")
     private LocalDate dataOrdine;
 
+    // Numero attribuito dal fornitore (fatture di acquisto)
+    @Column(name = "numero_esterno", length = 50)
+    @Size(max = 50, message = "Numero esterno troppo lungo")
+    private String numeroEsterno;
+
     // ==================== RELAZIONI ====================
     @OneToMany(mappedBy = "documento", cascade = CascadeType.ALL, 
                orphanRemoval = true, fetch = FetchType.LAZY)
     @OrderBy("rigaNumero ASC")
+    @BatchSize(size = 50)
     private List<RigaDocumento> righe = new ArrayList<>();
 
     @OneToMany(mappedBy = "documento", cascade = CascadeType.ALL, 
                orphanRemoval = true, fetch = FetchType.LAZY)
+    @BatchSize(size = 50)
     private List<RiepilogoIva> riepiloghi = new ArrayList<>();
 
     @OneToMany(mappedBy = "documento", cascade = CascadeType.ALL, 
                orphanRemoval = true, fetch = FetchType.LAZY)
+    @BatchSize(size = 50)
     private List<Scadenza> scadenze = new ArrayList<>();
 
     // ==================== AUDIT ====================
@@ -328,6 +361,9 @@ public class Documento {
     public LocalDate getDataOrdine() { return dataOrdine; }
     public void setDataOrdine(LocalDate dataOrdine) { this.dataOrdine = dataOrdine; }
 
+    public String getNumeroEsterno() { return numeroEsterno; }
+    public void setNumeroEsterno(String numeroEsterno) { this.numeroEsterno = numeroEsterno; }
+
     public List<RigaDocumento> getRighe() { return righe; }
     public void setRighe(List<RigaDocumento> righe) { this.righe = righe; }
 
@@ -565,6 +601,7 @@ public class Documento {
             case FATTURA_ELETTRONICA:
             case NOTA_CREDITO:
             case NOTA_DEBITO:
+            case FATTURA_ACQUISTO:
                 validaDocumentoFiscale();
                 break;
             case DDT:
@@ -4,6 +4,7 @@ import javax.persistence.*;
 import javax.validation.constraints.*;
 import lombok.Data;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
@@ -12,8 +13,10 @@ import java.time.LocalDateTime;
  * Entity per la gestione delle numerazioni dei documenti
  */
 @Entity
-@Table(name = "numerazioni")
+@Table(name = "numerazioni",
+       uniqueConstraints = @UniqueConstraint(name = "uk_numerazioni_tipo_anno", columnNames = {"tipo_documento", "anno"}))
 @Data
+@DynamicUpdate
 public class Numerazione {
 
     @Id
@@ -0,0 +1,81 @@
+package com.gestionale.entity;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Prezzo di un articolo fornitore a una data, registrato in sola aggiunta durante le importazioni.
+ * L'articolo è identificato dalla stessa chiave di articoli_fornitori (codice, partita IVA fornitore).
+ */
+@Entity
+@Table(name = "articolo_fornitore_prezzo",
+       uniqueConstraints = @UniqueConstraint(name = "uk_articolo_fornitore_prezzo_chiave",
+           columnNames = {"codice", "fornitore_partita_iva", "data_prezzo", "prezzo_unitario", "numero_fattura"}))
+public class PrezzoArticoloFornitore {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "codice", length = 50, nullable = false)
+    private String codice;
+
+    @Column(name = "fornitore_partita_iva", length = 20, nullable = false)
+    private String fornitorePartitaIva;
+
+    @Column(name = "data_prezzo", nullable = false)
+    private LocalDate dataPrezzo;
+
+    @Column(name = "prezzo_unitario", precision = 15, scale = 4, nullable = false)
+    private BigDecimal prezzoUnitario;
+
+    @Column(name = "quantita", precision = 15, scale = 4)
+    private BigDecimal quantita;
+
+    // Numero della fattura del fornitore da cui proviene il prezzo; stringa vuota se non noto,
+    // perché fa parte del vincolo di unicità (esposto come null)
+    @Column(name = "numero_fattura", length = 50, nullable = false)
+    private String numeroFattura = "";
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    public PrezzoArticoloFornitore() {}
+
+    public PrezzoArticoloFornitore(String codice, String fornitorePartitaIva, LocalDate dataPrezzo,
+                                   BigDecimal prezzoUnitario, BigDecimal quantita, String numeroFattura) {
+        this.codice = codice;
+        this.fornitorePartitaIva = fornitorePartitaIva;
+        this.dataPrezzo = dataPrezzo;
+        this.prezzoUnitario = prezzoUnitario;
+        this.quantita = quantita;
+        setNumeroFattura(numeroFattura);
+    }
+
+    // Getters e Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getCodice() { return codice; }
+    public void setCodice(String codice) { this.codice = codice; }
+
+    public String getFornitorePartitaIva() { return fornitorePartitaIva; }
+    public void setFornitorePartitaIva(String fornitorePartitaIva) { this.fornitorePartitaIva = fornitorePartitaIva; }
+
+    public LocalDate getDataPrezzo() { return dataPrezzo; }
+    public void setDataPrezzo(LocalDate dataPrezzo) { this.dataPrezzo = dataPrezzo; }
+
+    public BigDecimal getPrezzoUnitario() { return prezzoUnitario; }
+    public void setPrezzoUnitario(BigDecimal prezzoUnitario) { this.prezzoUnitario = prezzoUnitario; }
+
+    public BigDecimal getQuantita() { return quantita; }
+    public void setQuantita(BigDecimal quantita) { this.quantita = quantita; }
+
+    public String getNumeroFattura() { return numeroFattura.isEmpty() ? null : numeroFattura; }
+    public void setNumeroFattura(String numeroFattura) { this.numeroFattura = numeroFattura != null ? numeroFattura : ""; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,76 @@
+package com.gestionale.entity;
+
+import com.gestionale.enums.TipoImport;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Registro dei file importati, identificati dall'hash SHA-256 del contenuto
+ */
+@Entity
+@Table(name = "registro_import",
+       uniqueConstraints = @UniqueConstraint(name = "uk_registro_import_tipo_hash", columnNames = {"tipo", "hash_file"}))
+public class RegistroImport {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tipo", length = 30, nullable = false)
+    private TipoImport tipo;
+
+    @Column(name = "hash_file", length = 64, nullable = false)
+    private String hashFile;
+
+    @Column(name = "nome_file", length = 255)
+    private String nomeFile;
+
+    @Column(name = "record_totali", nullable = false)
+    private Integer recordTotali;
+
+    @Column(name = "record_importati", nullable = false)
+    private Integer recordImportati;
+
+    @Column(name = "importato_il", nullable = false)
+    private LocalDateTime importatoIl;
+
+    public RegistroImport() {
+    }
+
+    public RegistroImport(TipoImport tipo, String hashFile, String nomeFile, int recordTotali, int recordImportati) {
+        this.tipo = tipo;
+        this.hashFile = hashFile;
+        this.nomeFile = nomeFile;
+        this.recordTotali = recordTotali;
+        this.recordImportati = recordImportati;
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        this.importatoIl = LocalDateTime.now();
+    }
+
+    // Getters e Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public TipoImport getTipo() { return tipo; }
+    public void setTipo(TipoImport tipo) { this.tipo = tipo; }
+
+    public String getHashFile() { return hashFile; }
+    public void setHashFile(String hashFile) { this.hashFile = hashFile; }
+
+    public String getNomeFile() { return nomeFile; }
+    public void setNomeFile(String nomeFile) { this.nomeFile = nomeFile; }
+
+    public Integer getRecordTotali() { return recordTotali; }
+    public void setRecordTotali(Integer recordTotali) { this.recordTotali = recordTotali; }
+
+    public Integer getRecordImportati() { return recordImportati; }
+    public void setRecordImportati(Integer recordImportati) { this.recordImportati = recordImportati; }
+
+    public LocalDateTime getImportatoIl() { return importatoIl; }
+    public void setImportatoIl(LocalDateTime importatoIl) { this.importatoIl = importatoIl; }
+}
@@ -0,0 +1,48 @@
+package com.gestionale.entity;
+
+import com.gestionale.enums.TipoImport;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Impronta SHA-256 di un record già importato, usata per saltare i record invariati nei caricamenti successivi.
+ * La chiave dell'articolo scritto permette di riconoscere i record il cui articolo è stato poi modificato o eliminato.
+ */
+@Entity
+@Table(name = "registro_import_record")
+public class RegistroImportRecord {
+
+    @Id
+    @Column(name = "hash", length = 64)
+    private String hash;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "tipo", length = 30, nullable = false)
+    private TipoImport tipo;
+
+    @Column(name = "codice", length = 50)
+    private String codice;
+
+    @Column(name = "fornitore_partita_iva", length = 20)
+    private String fornitorePartitaIva;
+
+    @Column(name = "registrato_il", nullable = false)
+    private LocalDateTime registratoIl;
+
+    // Getters e Setters
+    public String getHash() { return hash; }
+    public void setHash(String hash) { this.hash = hash; }
+
+    public TipoImport getTipo() { return tipo; }
+    public void setTipo(TipoImport tipo) { this.tipo = tipo; }
+
+    public String getCodice() { return codice; }
+    public void setCodice(String codice) { this.codice = codice; }
+
+    public String getFornitorePartitaIva() { return fornitorePartitaIva; }
+    public void setFornitorePartitaIva(String fornitorePartitaIva) { this.fornitorePartitaIva = fornitorePartitaIva; }
+
+    public LocalDateTime getRegistratoIl() { return registratoIl; }
+    public void setRegistratoIl(LocalDateTime registratoIl) { this.registratoIl = registratoIl; }
+}
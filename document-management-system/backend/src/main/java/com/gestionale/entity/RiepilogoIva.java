@@ -20,7 +20,8 @@ import java.math.BigDecimal;
 public class RiepilogoIva {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "riepiloghi_iva_seq")
+    @SequenceGenerator(name = "riepiloghi_iva_seq", sequenceName = "riepiloghi_iva_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -24,7 +24,8 @@ import java.time.LocalDateTime;
 public class RigaDocumento {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "righe_documenti_seq")
+    @SequenceGenerator(name = "righe_documenti_seq", sequenceName = "righe_documenti_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -23,7 +23,8 @@ import java.time.LocalDateTime;
 public class Scadenza {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "scadenze_seq")
+    @SequenceGenerator(name = "scadenze_seq", sequenceName = "scadenze_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
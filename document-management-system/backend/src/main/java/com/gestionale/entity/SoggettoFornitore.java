@@ -0,0 +1,17 @@
+package com.gestionale.entity;
+
+import javax.persistence.DiscriminatorValue;
+import javax.persistence.Entity;
+
+/**
+ * Soggetto fornitore, intestatario dei documenti di acquisto
+ */
+@Entity
+@DiscriminatorValue("FORNITORE")
+public class SoggettoFornitore extends Soggetto {
+
+    @Override
+    public String getTipoSoggetto() {
+        return "FORNITORE";
+    }
+}
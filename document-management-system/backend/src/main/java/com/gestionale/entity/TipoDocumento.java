@@ -11,7 +11,8 @@ public enum TipoDocumento {
     FATTURA_ELETTRONICA("Fattura Elettronica", "FE", true, true),
     NOTA_CREDITO("Nota di Credito", "NC", true, false),
     NOTA_DEBITO("Nota di Debito", "ND", true, true),
-    RICEVUTA("Ricevuta", "RC", true, false);
+    RICEVUTA("Ricevuta", "RC", true, false),
+    FATTURA_ACQUISTO("Fattura di Acquisto", "FA", true, false);
 
     private final String descrizione;
     private final String codice;
@@ -55,6 +56,14 @@ public enum TipoDocumento {
         return fiscale; // Solo documenti fiscali possono essere inviati
     }
 
+    /**
+     * Verifica se la numerazione deve essere progressiva e senza buchi (documenti fiscali).
+     * Per gli altri tipi i numeri possono essere riservati a blocchi e restare inutilizzati.
+     */
+    public boolean richiedeNumerazioneContinua() {
+        return fiscale;
+    }
+
     /**
      * Verifica se il tipo documento richiede validazioni fiscali
      */
@@ -0,0 +1,53 @@
+package com.gestionale.enums;
+
+import java.util.Locale;
+
+/**
+ * Formati dei file accettati dalle importazioni
+ */
+public enum FormatoImport {
+
+    JSON("Array JSON", ".json"),
+    NDJSON("JSON delimitato da a capo, un oggetto per riga", ".ndjson"),
+    CSV("CSV separato da punto e virgola, con riga di intestazione", ".csv");
+
+    private final String descrizione;
+    private final String estensione;
+
+    FormatoImport(String descrizione, String estensione) {
+        this.descrizione = descrizione;
+        this.estensione = estensione;
+    }
+
+    public String getDescrizione() {
+        return descrizione;
+    }
+
+    public String getEstensione() {
+        return estensione;
+    }
+
+    /**
+     * Riconosce il formato dal nome del file e, in mancanza, dal content type; il predefinito è JSON
+     */
+    public static FormatoImport rileva(String nomeFile, String contentType) {
+        String nome = nomeFile != null ? nomeFile.toLowerCase(Locale.ROOT) : "";
+        if (nome.endsWith(".ndjson") || nome.endsWith(".jsonl")) {
+            return NDJSON;
+        }
+        if (nome.endsWith(".csv")) {
+            return CSV;
+        }
+        if (nome.endsWith(".json") || contentType == null) {
+            return JSON;
+        }
+        String tipo = contentType.toLowerCase(Locale.ROOT);
+        if (tipo.startsWith("application/x-ndjson") || tipo.startsWith("application/jsonl")) {
+            return NDJSON;
+        }
+        if (tipo.startsWith("text/csv")) {
+            return CSV;
+        }
+        return JSON;
+    }
+}
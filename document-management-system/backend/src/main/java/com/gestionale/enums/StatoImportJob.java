@@ -0,0 +1,29 @@
+package com.gestionale.enums;
+
+/**
+ * Stati di un job di importazione
+ */
+public enum StatoImportJob {
+
+    IN_CODA("In coda"),
+    IN_ESECUZIONE("In esecuzione"),
+    COMPLETATO("Completato"),
+    FALLITO("Fallito");
+
+    private final String descrizione;
+
+    StatoImportJob(String descrizione) {
+        this.descrizione = descrizione;
+    }
+
+    public String getDescrizione() {
+        return descrizione;
+    }
+
+    /**
+     * Verifica se il job è terminato, con o senza errori
+     */
+    public boolean isTerminato() {
+        return this == COMPLETATO || this == FALLITO;
+    }
+}
@@ -0,0 +1,23 @@
+package com.gestionale.enums;
+
+/**
+ * Tipologie di importazione eseguibili in background
+ */
+public enum TipoImport {
+
+    CLIENTI("Clienti"),
+    ARTICOLI("Articoli"),
+    FORNITORI("Fornitori"),
+    ARTICOLI_FORNITORI("Articoli fornitori"),
+    FATTURE_ACQUISTO("Fatture di acquisto");
+
+    private final String descrizione;
+
+    TipoImport(String descrizione) {
+        this.descrizione = descrizione;
+    }
+
+    public String getDescrizione() {
+        return descrizione;
+    }
+}
@@ -1,16 +1,23 @@
 package com.gestionale.repository;
 
+import com.gestionale.dto.RiepilogoFornitoreDto;
 import com.gestionale.entity.ArticoloFornitore;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
-public interface ArticoloFornitoreRepository extends JpaRepository<ArticoloFornitore, Long> {
+public interface ArticoloFornitoreRepository extends JpaRepository<ArticoloFornitore, Long>, ArticoloFornitoreRepositoryCustom {
     
     // Trova per codice
     Optional<ArticoloFornitore> findByCodice(String codice);
@@ -37,6 +44,22 @@ public interface ArticoloFornitoreRepository extends JpaRepository<ArticoloForni
            "LOWER(a.fornitoreRagioneSociale) LIKE LOWER(CONCAT('%', :search, '%'))")
     List<ArticoloFornitore> searchArticoli(@Param("search") String search);
     
+    // Elenchi completi letti in streaming (da consumare in una transazione), ordinati per id
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("SELECT a FROM ArticoloFornitore a ORDER BY a.id")
+    Stream<ArticoloFornitore> streamAll();
+    
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("SELECT a FROM ArticoloFornitore a WHERE a.fornitorePartitaIva = :partitaIva ORDER BY a.id")
+    Stream<ArticoloFornitore> streamByFornitore(@Param("partitaIva") String partitaIva);
+    
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("SELECT a FROM ArticoloFornitore a WHERE " +
+           "LOWER(a.codice) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "LOWER(a.descrizione) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "LOWER(a.fornitoreRagioneSociale) LIKE LOWER(CONCAT('%', :search, '%')) ORDER BY a.id")
+    Stream<ArticoloFornitore> streamSearch(@Param("search") String search);
+    
     // Verifica esistenza per codice
     boolean existsByCodice(String codice);
     
@@ -46,6 +69,12 @@ public interface ArticoloFornitoreRepository extends JpaRepository<ArticoloForni
     // Conta articoli per fornitore
     long countByFornitorePartitaIva(String fornitorePartitaIva);
     
+    // Riepilogo dei fornitori raggruppato per partita IVA, servito dall'indice idx_articoli_fornitori_riepilogo
+    @Query("SELECT new com.gestionale.dto.RiepilogoFornitoreDto(a.fornitorePartitaIva, MAX(a.fornitoreRagioneSociale), " +
+           "MAX(a.fornitoreCategoria), COUNT(a), MAX(a.dataDocumento)) " +
+           "FROM ArticoloFornitore a GROUP BY a.fornitorePartitaIva ORDER BY MAX(a.fornitoreRagioneSociale), a.fornitorePartitaIva")
+    List<RiepilogoFornitoreDto> findRiepilogoFornitori();
+    
     // Trova tutti ordinati per data documento desc
     List<ArticoloFornitore> findAllByOrderByDataDocumentoDesc();
     
@@ -0,0 +1,38 @@
+package com.gestionale.repository;
+
+import com.gestionale.entity.ArticoloFornitore;
+
+import java.util.List;
+
+/**
+ * Operazioni massive sugli articoli fornitori, eseguite con batch JDBC
+ */
+public interface ArticoloFornitoreRepositoryCustom {
+
+    /**
+     * Inserisce o aggiorna gli articoli indicati usando come chiave (codice, partita IVA fornitore).
+     * Gli articoli esistenti vengono cercati a blocchi e le scritture inviate in batch.
+     * Un articolo non viene aggiornato con dati di un documento più vecchio di quello già registrato.
+     */
+    EsitoUpsert upsertAll(List<ArticoloFornitore> articoli);
+
+    /**
+     * Numero di articoli inseriti e aggiornati da un upsert. Le ripetizioni di una chiave
+     * all'interno dello stesso blocco sono contate a parte come duplicati, sia per gli articoli nuovi che per gli esistenti.
+     */
+    class EsitoUpsert {
+        private final int inseriti;
+        private final int aggiornati;
+        private final int duplicati;
+
+        public EsitoUpsert(int inseriti, int aggiornati, int duplicati) {
+            this.inseriti = inseriti;
+            this.aggiornati = aggiornati;
+            this.duplicati = duplicati;
+        }
+
+        public int getInseriti() { return inseriti; }
+        public int getAggiornati() { return aggiornati; }
+        public int getDuplicati() { return duplicati; }
+    }
+}
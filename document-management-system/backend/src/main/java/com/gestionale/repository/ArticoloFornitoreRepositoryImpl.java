@@ -0,0 +1,172 @@
+package com.gestionale.repository;
+
+import com.gestionale.entity.ArticoloFornitore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Implementazione delle operazioni massive su articoli_fornitori
+ */
+public class ArticoloFornitoreRepositoryImpl implements ArticoloFornitoreRepositoryCustom {
+
+    // Numero massimo di righe per ricerca e per batch di scrittura
+    private static final int CHUNK_SIZE = 500;
+
+    private static final String SELECT_ESISTENTI =
+        "SELECT id, codice, fornitore_partita_iva FROM articoli_fornitori " +
+        "WHERE codice IN (:codici) AND fornitore_partita_iva IN (:partiteIva)";
+
+    private static final String INSERT =
+        "INSERT INTO articoli_fornitori (codice, descrizione, quantita, prezzo_unitario, importo, unita_misura, " +
+        "aliquota_iva, fornitore_partita_iva, fornitore_ragione_sociale, fornitore_categoria, data_documento, " +
+        "data_ultimo_aggiornamento, codice_interno, created_at, updated_at) " +
+        "VALUES (:codice, :descrizione, :quantita, :prezzoUnitario, :importo, :unitaMisura, " +
+        ":aliquotaIva, :fornitorePartitaIva, :fornitoreRagioneSociale, :fornitoreCategoria, :dataDocumento, " +
+        ":dataUltimoAggiornamento, :codiceInterno, :adesso, :adesso)";
+
+    // Un prezzo con data documento precedente a quella registrata non sovrascrive il più recente
+    // (lo storico dei prezzi è in articolo_fornitore_prezzo, vedi PrezzoArticoloFornitoreRepository)
+    private static final String UPDATE =
+        "UPDATE articoli_fornitori SET descrizione = :descrizione, quantita = :quantita, " +
+        "prezzo_unitario = :prezzoUnitario, importo = :importo, unita_misura = :unitaMisura, " +
+        "aliquota_iva = :aliquotaIva, fornitore_ragione_sociale = :fornitoreRagioneSociale, " +
+        "fornitore_categoria = :fornitoreCategoria, data_documento = :dataDocumento, " +
+        "data_ultimo_aggiornamento = :dataUltimoAggiornamento, codice_interno = :codiceInterno, updated_at = :adesso " +
+        "WHERE id = :id AND (data_documento IS NULL OR :dataDocumento IS NULL OR data_documento <= :dataDocumento)";
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Override
+    public EsitoUpsert upsertAll(List<ArticoloFornitore> articoli) {
+        int inseriti = 0;
+        int aggiornati = 0;
+        int duplicati = 0;
+        for (int i = 0; i < articoli.size(); i += CHUNK_SIZE) {
+            EsitoUpsert esito = upsertBlocco(articoli.subList(i, Math.min(i + CHUNK_SIZE, articoli.size())));
+            inseriti += esito.getInseriti();
+            aggiornati += esito.getAggiornati();
+            duplicati += esito.getDuplicati();
+        }
+        return new EsitoUpsert(inseriti, aggiornati, duplicati);
+    }
+
+    private EsitoUpsert upsertBlocco(List<ArticoloFornitore> blocco) {
+        Map<String, Long> esistenti = trovaEsistenti(blocco);
+        LocalDateTime adesso = LocalDateTime.now();
+
+        // Una stessa chiave ripetuta nel blocco viene scritta una sola volta con i valori più recenti
+        // e ogni ripetizione è contata come duplicato, che l'articolo sia nuovo o già presente
+        Map<String, ArticoloFornitore> nuovi = new LinkedHashMap<>();
+        Map<Long, ArticoloFornitore> daAggiornare = new LinkedHashMap<>();
+        int aggiornati = 0;
+        int duplicati = 0;
+        for (ArticoloFornitore articolo : blocco) {
+            String chiave = chiave(articolo.getCodice(), articolo.getFornitorePartitaIva());
+            Long id = esistenti.get(chiave);
+            if (id != null ? daAggiornare.containsKey(id) : nuovi.containsKey(chiave)) {
+                duplicati++;
+            }
+            if (id != null) {
+                daAggiornare.merge(id, articolo, ArticoloFornitoreRepositoryImpl::piuRecente);
+            } else {
+                nuovi.merge(chiave, articolo, ArticoloFornitoreRepositoryImpl::piuRecente);
+            }
+        }
+
+        if (!nuovi.isEmpty()) {
+            List<SqlParameterSource> parametri = new ArrayList<>(nuovi.size());
+            for (ArticoloFornitore articolo : nuovi.values()) {
+                parametri.add(parametri(articolo, adesso));
+            }
+            jdbcTemplate.batchUpdate(INSERT, parametri.toArray(new SqlParameterSource[0]));
+        }
+        if (!daAggiornare.isEmpty()) {
+            List<SqlParameterSource> parametri = new ArrayList<>(daAggiornare.size());
+            for (Map.Entry<Long, ArticoloFornitore> entry : daAggiornare.entrySet()) {
+                parametri.add(parametri(entry.getValue(), adesso).addValue("id", entry.getKey()));
+            }
+            for (int righe : jdbcTemplate.batchUpdate(UPDATE, parametri.toArray(new SqlParameterSource[0]))) {
+                if (righe != 0) {
+                    aggiornati++;
+                }
+            }
+        }
+        return new EsitoUpsert(nuovi.size(), aggiornati, duplicati);
+    }
+
+    /**
+     * Cerca con un'unica query gli articoli già presenti per le chiavi del blocco
+     */
+    private Map<String, Long> trovaEsistenti(List<ArticoloFornitore> blocco) {
+        Set<String> codici = new HashSet<>();
+        Set<String> partiteIva = new HashSet<>();
+        for (ArticoloFornitore articolo : blocco) {
+            codici.add(articolo.getCodice());
+            partiteIva.add(articolo.getFornitorePartitaIva());
+        }
+
+        // La query può restituire combinazioni non richieste: vengono semplicemente ignorate
+        Map<String, Long> esistenti = new HashMap<>();
+        MapSqlParameterSource parametri = new MapSqlParameterSource()
+            .addValue("codici", codici)
+            .addValue("partiteIva", partiteIva);
+        jdbcTemplate.query(SELECT_ESISTENTI, parametri, rs -> {
+            esistenti.putIfAbsent(chiave(rs.getString("codice"), rs.getString("fornitore_partita_iva")), rs.getLong("id"));
+        });
+        return esistenti;
+    }
+
+    private MapSqlParameterSource parametri(ArticoloFornitore articolo, LocalDateTime adesso) {
+        return new MapSqlParameterSource()
+            .addValue("codice", articolo.getCodice())
+            .addValue("descrizione", articolo.getDescrizione())
+            .addValue("quantita", articolo.getQuantita())
+            .addValue("prezzoUnitario", articolo.getPrezzoUnitario())
+            .addValue("importo", articolo.getImporto())
+            .addValue("unitaMisura", articolo.getUnitaMisura())
+            .addValue("aliquotaIva", articolo.getAliquotaIVA())
+            .addValue("fornitorePartitaIva", articolo.getFornitorePartitaIva())
+            .addValue("fornitoreRagioneSociale", articolo.getFornitoreRagioneSociale())
+            .addValue("fornitoreCategoria", articolo.getFornitoreCategoria())
+            .addValue("dataDocumento", toSqlDate(articolo.getDataDocumento()), Types.DATE)
+            .addValue("dataUltimoAggiornamento", toSqlDate(articolo.getDataUltimoAggiornamento()), Types.DATE)
+            .addValue("codiceInterno", articolo.getCodiceInterno())
+            .addValue("adesso", Timestamp.valueOf(adesso));
+    }
+
+    /**
+     * Tra due valori per la stessa chiave sceglie quello con data documento più recente;
+     * a parità, o senza date, vale l'ultimo letto
+     */
+    private static ArticoloFornitore piuRecente(ArticoloFornitore attuale, ArticoloFornitore nuovo) {
+        if (attuale.getDataDocumento() != null && nuovo.getDataDocumento() != null
+                && nuovo.getDataDocumento().isBefore(attuale.getDataDocumento())) {
+            return attuale;
+        }
+        return nuovo;
+    }
+
+    private static Date toSqlDate(LocalDate data) {
+        return data != null ? Date.valueOf(data) : null;
+    }
+
+    private static String chiave(String codice, String partitaIva) {
+        return codice + '|' + partitaIva;
+    }
+}
@@ -1,14 +1,21 @@
 package com.gestionale.repository;
 
 import com.gestionale.entity.Articolo;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
 public interface ArticoloRepository extends JpaRepository<Articolo, Long> {
@@ -47,6 +54,34 @@ public interface ArticoloRepository extends JpaRepository<Articolo, Long> {
     @Query("SELECT DISTINCT a.fornitore FROM Articolo a WHERE a.fornitore IS NOT NULL ORDER BY a.fornitore")
     List<String> findAllFornitori();
     
+    // Paginazione per chiave (descrizione, id): la dimensione della pagina arriva dal Pageable, senza conteggio
+    List<Articolo> findByOrderByDescrizioneAscIdAsc(Pageable limite);
+
+    // Il primo confronto delimita l'intervallo sull'indice (descrizione, id), il secondo esclude le righe già lette
+    @Query("SELECT a FROM Articolo a WHERE a.descrizione >= :descrizione AND (a.descrizione > :descrizione " +
+           "OR a.id > :id) ORDER BY a.descrizione, a.id")
+    List<Articolo> findDopo(@Param("descrizione") String descrizione, @Param("id") Long id, Pageable limite);
+    
+    // Elenchi completi letti in streaming (da consumare in una transazione), ordinati per id
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("SELECT a FROM Articolo a ORDER BY a.id")
+    Stream<Articolo> streamAll();
+    
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("SELECT a FROM Articolo a WHERE a.attivo = true ORDER BY a.id")
+    Stream<Articolo> streamAttivi();
+    
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("SELECT a FROM Articolo a WHERE a.categoria = :categoria ORDER BY a.id")
+    Stream<Articolo> streamByCategoria(@Param("categoria") String categoria);
+    
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("SELECT a FROM Articolo a WHERE " +
+           "LOWER(a.codice) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "LOWER(a.descrizione) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "LOWER(a.categoria) LIKE LOWER(CONCAT('%', :search, '%')) ORDER BY a.id")
+    Stream<Articolo> streamSearch(@Param("search") String search);
+    
     boolean existsByCodice(String codice);
     
     long countByAttivoTrue();
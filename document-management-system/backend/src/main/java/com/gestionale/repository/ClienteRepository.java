@@ -1,13 +1,21 @@
 package com.gestionale.repository;
 
 import com.gestionale.entity.Cliente;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
 public interface ClienteRepository extends JpaRepository<Cliente, Long> {
@@ -33,8 +41,36 @@ public interface ClienteRepository extends JpaRepository<Cliente, Long> {
            "LOWER(c.email) LIKE LOWER(CONCAT('%', :search, '%'))")
     List<Cliente> searchClienti(@Param("search") String search);
     
+    // Paginazione per chiave (ragione sociale, id): la dimensione della pagina arriva dal Pageable, senza conteggio
+    List<Cliente> findByOrderByRagioneSocialeAscIdAsc(Pageable limite);
+
+    // Il primo confronto delimita l'intervallo sull'indice (ragione_sociale, id), il secondo esclude le righe già lette
+    @Query("SELECT c FROM Cliente c WHERE c.ragioneSociale >= :ragioneSociale AND (c.ragioneSociale > :ragioneSociale " +
+           "OR c.id > :id) ORDER BY c.ragioneSociale, c.id")
+    List<Cliente> findDopo(@Param("ragioneSociale") String ragioneSociale, @Param("id") Long id, Pageable limite);
+    
+    // Elenchi completi letti in streaming (da consumare in una transazione), ordinati per id
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("SELECT c FROM Cliente c ORDER BY c.id")
+    Stream<Cliente> streamAll();
+    
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("SELECT c FROM Cliente c WHERE c.attivo = true ORDER BY c.id")
+    Stream<Cliente> streamAttivi();
+    
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("SELECT c FROM Cliente c WHERE " +
+           "LOWER(c.ragioneSociale) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "LOWER(c.partitaIva) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "LOWER(c.email) LIKE LOWER(CONCAT('%', :search, '%')) ORDER BY c.id")
+    Stream<Cliente> streamSearch(@Param("search") String search);
+    
     boolean existsByPartitaIva(String partitaIva);
     
+    // Restituisce, tra le Partite IVA indicate, quelle già presenti (verifica duplicati a blocchi)
+    @Query("SELECT c.partitaIva FROM Cliente c WHERE c.partitaIva IN (:partiteIva)")
+    List<String> findPartiteIvaEsistenti(@Param("partiteIva") Collection<String> partiteIva);
+    
     boolean existsByCodiceFiscale(String codiceFiscale);
 
     long countByAttivoTrue(); // Conta i clienti attivi
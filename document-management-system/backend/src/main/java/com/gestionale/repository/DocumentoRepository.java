@@ -5,6 +5,8 @@ import com.gestionale.entity.StatoDocumento;
 import com.gestionale.entity.TipoDocumento;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
@@ -13,16 +15,33 @@ import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository per la gestione dei documenti
  */
 @Repository
-public interface DocumentoRepository extends JpaRepository<Documento, Long>, JpaSpecificationExecutor<Documento> {
+public interface DocumentoRepository extends JpaRepository<Documento, Long>, JpaSpecificationExecutor<Documento>,
+        DocumentoRepositoryCustom {
 
     // ==================== QUERY BASE ====================
+
+    /**
+     * Trova documenti con filtri e paginazione, caricando soggetto, modalità di pagamento
+     * e causale di trasporto nella stessa query
+     */
+    @Override
+    @EntityGraph(Documento.GRAFO_LISTA)
+    Page<Documento> findAll(Specification<Documento> spec, Pageable pageable);
+
+    /**
+     * Trova un documento con le associazioni e le righe necessarie al dettaglio
+     */
+    @EntityGraph(Documento.GRAFO_DETTAGLIO)
+    Optional<Documento> findDettaglioById(Long id);
     
     /**
      * Trova documenti per tipo
@@ -64,6 +83,15 @@ public interface DocumentoRepository extends JpaRepository<Documento, Long>, Jpa
      */
     boolean existsByTipoDocumentoAndNumeroAndAnno(TipoDocumento tipoDocumento, Long numero, Integer anno);
 
+    /**
+     * Restituisce partita IVA e numero esterno dei documenti già registrati tra i numeri indicati,
+     * per riconoscere le fatture di acquisto già importate
+     */
+    @Query("SELECT d.partitaIva, d.numeroEsterno FROM Documento d " +
+           "WHERE d.tipoDocumento = :tipoDocumento AND d.numeroEsterno IN (:numeriEsterni)")
+    List<Object[]> findNumeriEsterniEsistenti(@Param("tipoDocumento") TipoDocumento tipoDocumento,
+                                             @Param("numeriEsterni") Collection<String> numeriEsterni);
+
     // ==================== QUERY FILTRI AVANZATI ====================
 
     /**
@@ -98,6 +126,16 @@ public interface DocumentoRepository extends JpaRepository<Documento, Long>, Jpa
             @Param("tipoDocumento") TipoDocumento tipoDocumento,
             @Param("anno") Integer anno);
 
+    /**
+     * Numeri usati per tipo documento e anno, letti in streaming (da consumare in una transazione)
+     */
+    @Query("SELECT d.numero FROM Documento d WHERE " +
+           "d.tipoDocumento = :tipoDocumento AND " +
+           "d.anno = :anno")
+    Stream<Long> streamNumeriByTipoAndAnno(
+            @Param("tipoDocumento") TipoDocumento tipoDocumento,
+            @Param("anno") Integer anno);
+
     /**
      * Calcola fatturato per periodo
      */
@@ -111,7 +149,8 @@ public interface DocumentoRepository extends JpaRepository<Documento, Long>, Jpa
             @Param("dataFine") LocalDate dataFine);
 
     /**
-     * Trova documenti per ricerca testuale
+     * Trova documenti per ricerca testuale.
+     * Non usa indici (scansione completa di documenti): per la casella di ricerca usare cercaSintesi
      */
     @Query("SELECT d FROM Documento d WHERE " +
            "LOWER(d.ragioneSociale) LIKE LOWER(CONCAT('%', :searchText, '%')) OR " +
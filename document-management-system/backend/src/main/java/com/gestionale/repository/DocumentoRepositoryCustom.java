@@ -0,0 +1,37 @@
+package com.gestionale.repository;
+
+import com.gestionale.dto.DocumentoSintesiDto;
+import com.gestionale.entity.Documento;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Letture dei documenti con proiezione sui soli campi necessari
+ */
+public interface DocumentoRepositoryCustom {
+
+    /**
+     * Trova i documenti che soddisfano la specifica restituendo solo i dati di sintesi
+     * (nessuna entity caricata nel contesto di persistenza, nessuna colonna TEXT letta)
+     */
+    Page<DocumentoSintesiDto> findSintesi(Specification<Documento> spec, Pageable pageable);
+
+    /**
+     * Trova i dati di sintesi dei documenti ordinati per data, numero e id decrescenti, a partire
+     * dal documento successivo alla chiave indicata (paginazione per chiave, senza offset né conteggio).
+     * Con chiave nulla restituisce i primi documenti.
+     */
+    List<DocumentoSintesiDto> findSintesiDopo(Specification<Documento> spec, LocalDate dataDocumento,
+                                              Long numero, Long id, int limite);
+
+    /**
+     * Ricerca testuale ordinata per rilevanza (query nativa PostgreSQL, richiede la migrazione V10):
+     * sottostringa di ragione sociale e partita IVA con indici trigrammi, parole delle note con tsvector,
+     * numero documento esatto se il testo è numerico
+     */
+    List<DocumentoSintesiDto> cercaSintesi(String testo, int limite);
+}
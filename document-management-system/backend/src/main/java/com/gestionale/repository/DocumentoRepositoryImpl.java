@@ -0,0 +1,167 @@
+package com.gestionale.repository;
+
+import com.gestionale.dto.DocumentoSintesiDto;
+import com.gestionale.entity.Documento;
+import com.gestionale.entity.StatoDocumento;
+import com.gestionale.entity.TipoDocumento;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CompoundSelection;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementazione delle letture con proiezione su documenti
+ */
+public class DocumentoRepositoryImpl implements DocumentoRepositoryCustom {
+
+    // Ogni condizione in OR è servita da un indice (trigrammi, tsvector, numero), combinati con BitmapOr.
+    // Prima i documenti con il numero cercato, poi per somiglianza della ragione sociale o rango nelle note.
+    private static final String RICERCA =
+        "SELECT d.id, d.tipo_documento, d.numero, d.anno, d.data_documento, d.ragione_sociale, " +
+        "d.totale_documento, d.stato FROM documenti d " +
+        "WHERE lower(d.ragione_sociale) LIKE :contiene " +
+        "OR d.partita_iva LIKE :prefisso " +
+        "OR d.testo_ricerca @@ plainto_tsquery('italian', :testo) " +
+        "OR d.numero = :numero " +
+        "ORDER BY (d.numero = :numero) DESC, " +
+        "GREATEST(similarity(lower(d.ragione_sociale), :testo), " +
+        "ts_rank(d.testo_ricerca, plainto_tsquery('italian', :testo))) DESC, " +
+        "d.data_documento DESC, d.id DESC " +
+        "LIMIT :limite";
+
+    // Numeri di una o due cifre: i trigrammi non sarebbero selettivi, si cerca solo per numero
+    private static final String RICERCA_NUMERO =
+        "SELECT d.id, d.tipo_documento, d.numero, d.anno, d.data_documento, d.ragione_sociale, " +
+        "d.totale_documento, d.stato FROM documenti d " +
+        "WHERE d.numero = :numero ORDER BY d.data_documento DESC, d.id DESC LIMIT :limite";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<DocumentoSintesiDto> findSintesi(Specification<Documento> spec, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<DocumentoSintesiDto> query = cb.createQuery(DocumentoSintesiDto.class);
+        Root<Documento> root = query.from(Documento.class);
+        query.select(sintesi(cb, root));
+        Predicate predicato = spec != null ? spec.toPredicate(root, query, cb) : null;
+        if (predicato != null) {
+            query.where(predicato);
+        }
+        if (pageable.getSort().isSorted()) {
+            query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+        }
+
+        TypedQuery<DocumentoSintesiDto> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset());
+            typedQuery.setMaxResults(pageable.getPageSize());
+        }
+        List<DocumentoSintesiDto> contenuto = typedQuery.getResultList();
+
+        // Il conteggio viene eseguito solo se non deducibile dalla pagina letta
+        return PageableExecutionUtils.getPage(contenuto, pageable, () -> conta(spec));
+    }
+
+    @Override
+    public List<DocumentoSintesiDto> findSintesiDopo(Specification<Documento> spec, LocalDate dataDocumento,
+                                                     Long numero, Long id, int limite) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<DocumentoSintesiDto> query = cb.createQuery(DocumentoSintesiDto.class);
+        Root<Documento> root = query.from(Documento.class);
+        query.select(sintesi(cb, root));
+
+        List<Predicate> predicati = new ArrayList<>();
+        Predicate predicato = spec != null ? spec.toPredicate(root, query, cb) : null;
+        if (predicato != null) {
+            predicati.add(predicato);
+        }
+        if (id != null) {
+            // Limite sulla prima colonna dell'indice (data, numero, id): delimita l'intervallo letto
+            predicati.add(cb.lessThanOrEqualTo(root.get("dataDocumento"), dataDocumento));
+            // (data, numero, id) < (:data, :numero, :id) espanso, JPQL non ha confronti tra tuple
+            predicati.add(cb.or(
+                cb.lessThan(root.get("dataDocumento"), dataDocumento),
+                cb.and(cb.equal(root.get("dataDocumento"), dataDocumento), cb.or(
+                    cb.lessThan(root.get("numero"), numero),
+                    cb.and(cb.equal(root.get("numero"), numero), cb.lessThan(root.get("id"), id))))));
+        }
+        query.where(predicati.toArray(new Predicate[0]));
+        query.orderBy(cb.desc(root.get("dataDocumento")), cb.desc(root.get("numero")), cb.desc(root.get("id")));
+
+        return entityManager.createQuery(query).setMaxResults(limite).getResultList();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<DocumentoSintesiDto> cercaSintesi(String testo, int limite) {
+        String cerca = testo.trim().toLowerCase();
+        // Caratteri jolly del LIKE trattati come testo
+        String letterale = cerca.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        long numero = cerca.matches("\\d{1,18}") ? Long.parseLong(cerca) : -1L;
+
+        Query query;
+        if (cerca.length() < 3) {
+            query = entityManager.createNativeQuery(RICERCA_NUMERO);
+        } else {
+            query = entityManager.createNativeQuery(RICERCA)
+                .setParameter("testo", cerca)
+                .setParameter("contiene", "%" + letterale + "%")
+                .setParameter("prefisso", letterale + "%");
+        }
+        List<Object[]> righe = query
+            .setParameter("numero", numero)
+            .setParameter("limite", limite)
+            .getResultList();
+
+        List<DocumentoSintesiDto> risultati = new ArrayList<>(righe.size());
+        for (Object[] riga : righe) {
+            risultati.add(new DocumentoSintesiDto(
+                ((Number) riga[0]).longValue(),
+                TipoDocumento.valueOf((String) riga[1]),
+                ((Number) riga[2]).longValue(),
+                ((Number) riga[3]).intValue(),
+                ((Date) riga[4]).toLocalDate(),
+                (String) riga[5],
+                (BigDecimal) riga[6],
+                riga[7] != null ? StatoDocumento.valueOf((String) riga[7]) : null));
+        }
+        return risultati;
+    }
+
+    private static CompoundSelection<DocumentoSintesiDto> sintesi(CriteriaBuilder cb, Root<Documento> root) {
+        return cb.construct(DocumentoSintesiDto.class,
+            root.get("id"), root.get("tipoDocumento"), root.get("numero"), root.get("anno"),
+            root.get("dataDocumento"), root.get("ragioneSociale"), root.get("totaleDocumento"), root.get("stato"));
+    }
+
+    private long conta(Specification<Documento> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Documento> root = query.from(Documento.class);
+        query.select(cb.count(root));
+        Predicate predicato = spec != null ? spec.toPredicate(root, query, cb) : null;
+        if (predicato != null) {
+            query.where(predicato);
+        }
+        return entityManager.createQuery(query).getSingleResult();
+    }
+}
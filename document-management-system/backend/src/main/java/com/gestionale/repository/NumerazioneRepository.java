@@ -38,13 +38,22 @@ public interface NumerazioneRepository extends JpaRepository<Numerazione, Long>
     boolean existsByTipoDocumentoAndAnno(String tipoDocumento, Integer anno);
 
     /**
-     * Ottiene e incrementa il numero atomicamente
+     * Riserva un blocco di numeri incrementando atomicamente l'ultimo numero della quantità indicata
      */
     @Modifying
     @Transactional
-    @Query("UPDATE Numerazione n SET n.ultimoNumero = n.ultimoNumero + 1 WHERE " +
+    @Query("UPDATE Numerazione n SET n.ultimoNumero = n.ultimoNumero + :quantita WHERE " +
            "n.tipoDocumento = :tipoDocumento AND n.anno = :anno")
-    int incrementaNumero(@Param("tipoDocumento") String tipoDocumento, @Param("anno") Integer anno);
+    int riservaNumeri(@Param("tipoDocumento") String tipoDocumento,
+                      @Param("anno") Integer anno,
+                      @Param("quantita") Long quantita);
+
+    /**
+     * Ultimo numero assegnato; letto dopo riservaNumeri nella stessa transazione restituisce l'ultimo numero del blocco appena riservato
+     */
+    @Query("SELECT n.ultimoNumero FROM Numerazione n WHERE " +
+           "n.tipoDocumento = :tipoDocumento AND n.anno = :anno")
+    Long getUltimoNumero(@Param("tipoDocumento") String tipoDocumento, @Param("anno") Integer anno);
 
     /**
      * Ottiene il prossimo numero senza incrementare
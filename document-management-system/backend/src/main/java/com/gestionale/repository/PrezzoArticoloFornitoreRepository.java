@@ -0,0 +1,51 @@
+package com.gestionale.repository;
+
+import com.gestionale.dto.StatistichePrezzoDto;
+import com.gestionale.entity.PrezzoArticoloFornitore;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository dello storico prezzi degli articoli fornitori. Tutte le interrogazioni
+ * partono da codice (e fornitore) e usano l'indice del vincolo uk_articolo_fornitore_prezzo_chiave,
+ * che inizia con (codice, fornitore_partita_iva, data_prezzo).
+ * Con fornitore null si considerano i prezzi di tutti i fornitori dell'articolo.
+ */
+@Repository
+public interface PrezzoArticoloFornitoreRepository extends JpaRepository<PrezzoArticoloFornitore, Long>, PrezzoArticoloFornitoreRepositoryCustom {
+
+    // Prezzi di un articolo in un intervallo di date, in ordine cronologico
+    @Query("SELECT p FROM PrezzoArticoloFornitore p WHERE p.codice = :codice " +
+           "AND (:fornitore IS NULL OR p.fornitorePartitaIva = :fornitore) " +
+           "AND p.dataPrezzo BETWEEN :da AND :a ORDER BY p.dataPrezzo, p.id")
+    List<PrezzoArticoloFornitore> findAndamento(@Param("codice") String codice, @Param("fornitore") String fornitore,
+                                                @Param("da") LocalDate da, @Param("a") LocalDate a);
+
+    // Ultimo prezzo registrato per articolo e fornitore
+    Optional<PrezzoArticoloFornitore> findFirstByCodiceAndFornitorePartitaIvaOrderByDataPrezzoDescIdDesc(
+        String codice, String fornitorePartitaIva);
+
+    @Query("SELECT new com.gestionale.dto.StatistichePrezzoDto(YEAR(p.dataPrezzo), MONTH(p.dataPrezzo), " +
+           "MIN(p.prezzoUnitario), MAX(p.prezzoUnitario), AVG(p.prezzoUnitario), COUNT(p)) " +
+           "FROM PrezzoArticoloFornitore p WHERE p.codice = :codice " +
+           "AND (:fornitore IS NULL OR p.fornitorePartitaIva = :fornitore) " +
+           "AND p.dataPrezzo BETWEEN :da AND :a " +
+           "GROUP BY YEAR(p.dataPrezzo), MONTH(p.dataPrezzo) ORDER BY YEAR(p.dataPrezzo), MONTH(p.dataPrezzo)")
+    List<StatistichePrezzoDto> findStatisticheMensili(@Param("codice") String codice, @Param("fornitore") String fornitore,
+                                                      @Param("da") LocalDate da, @Param("a") LocalDate a);
+
+    @Query("SELECT new com.gestionale.dto.StatistichePrezzoDto(YEAR(p.dataPrezzo), " +
+           "MIN(p.prezzoUnitario), MAX(p.prezzoUnitario), AVG(p.prezzoUnitario), COUNT(p)) " +
+           "FROM PrezzoArticoloFornitore p WHERE p.codice = :codice " +
+           "AND (:fornitore IS NULL OR p.fornitorePartitaIva = :fornitore) " +
+           "AND p.dataPrezzo BETWEEN :da AND :a " +
+           "GROUP BY YEAR(p.dataPrezzo) ORDER BY YEAR(p.dataPrezzo)")
+    List<StatistichePrezzoDto> findStatisticheAnnuali(@Param("codice") String codice, @Param("fornitore") String fornitore,
+                                                      @Param("da") LocalDate da, @Param("a") LocalDate a);
+}
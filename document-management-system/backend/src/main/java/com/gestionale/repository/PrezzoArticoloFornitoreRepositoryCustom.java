@@ -0,0 +1,18 @@
+package com.gestionale.repository;
+
+import com.gestionale.entity.PrezzoArticoloFornitore;
+
+import java.util.List;
+
+/**
+ * Scrittura massiva dello storico prezzi degli articoli fornitori, eseguita con batch JDBC
+ */
+public interface PrezzoArticoloFornitoreRepositoryCustom {
+
+    /**
+     * Aggiunge i prezzi indicati, saltando quelli già registrati con stesso articolo, fornitore,
+     * data, prezzo e numero fattura (un file reimportato non duplica lo storico).
+     * Restituisce il numero di prezzi effettivamente aggiunti.
+     */
+    int registraAll(List<PrezzoArticoloFornitore> prezzi);
+}
@@ -0,0 +1,62 @@
+package com.gestionale.repository;
+
+import com.gestionale.entity.PrezzoArticoloFornitore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementazione della scrittura massiva su articolo_fornitore_prezzo
+ */
+public class PrezzoArticoloFornitoreRepositoryImpl implements PrezzoArticoloFornitoreRepositoryCustom {
+
+    // Numero massimo di righe per batch di scrittura
+    private static final int CHUNK_SIZE = 500;
+
+    // Solo aggiunte: i prezzi già registrati violano uk_articolo_fornitore_prezzo_chiave e vengono saltati,
+    // anche se scritti nello stesso momento da un'altra importazione
+    private static final String INSERT =
+        "INSERT INTO articolo_fornitore_prezzo (codice, fornitore_partita_iva, data_prezzo, prezzo_unitario, " +
+        "quantita, numero_fattura, created_at) " +
+        "VALUES (:codice, :fornitorePartitaIva, :dataPrezzo, :prezzoUnitario, :quantita, :numeroFattura, :adesso) " +
+        "ON CONFLICT DO NOTHING";
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Override
+    public int registraAll(List<PrezzoArticoloFornitore> prezzi) {
+        Timestamp adesso = Timestamp.valueOf(LocalDateTime.now());
+        int aggiunti = 0;
+        for (int i = 0; i < prezzi.size(); i += CHUNK_SIZE) {
+            List<PrezzoArticoloFornitore> blocco = prezzi.subList(i, Math.min(i + CHUNK_SIZE, prezzi.size()));
+            List<SqlParameterSource> parametri = new ArrayList<>(blocco.size());
+            for (PrezzoArticoloFornitore prezzo : blocco) {
+                parametri.add(new MapSqlParameterSource()
+                    .addValue("codice", prezzo.getCodice(), Types.VARCHAR)
+                    .addValue("fornitorePartitaIva", prezzo.getFornitorePartitaIva(), Types.VARCHAR)
+                    .addValue("dataPrezzo", Date.valueOf(prezzo.getDataPrezzo()), Types.DATE)
+                    .addValue("prezzoUnitario", prezzo.getPrezzoUnitario(), Types.NUMERIC)
+                    .addValue("quantita", prezzo.getQuantita(), Types.NUMERIC)
+                    // Numero fattura non noto: stringa vuota, come nella colonna (vedi PrezzoArticoloFornitore)
+                    .addValue("numeroFattura", prezzo.getNumeroFattura() != null ? prezzo.getNumeroFattura() : "", Types.VARCHAR)
+                    .addValue("adesso", adesso, Types.TIMESTAMP));
+            }
+            for (int righe : jdbcTemplate.batchUpdate(INSERT, parametri.toArray(new SqlParameterSource[0]))) {
+                // Alcuni driver restituiscono SUCCESS_NO_INFO (-2) per le righe dei batch
+                if (righe != 0) {
+                    aggiunti++;
+                }
+            }
+        }
+        return aggiunti;
+    }
+}
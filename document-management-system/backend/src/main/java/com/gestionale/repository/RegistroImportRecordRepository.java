@@ -0,0 +1,22 @@
+package com.gestionale.repository;
+
+import com.gestionale.entity.RegistroImportRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface RegistroImportRecordRepository extends JpaRepository<RegistroImportRecord, String>, RegistroImportRecordRepositoryCustom {
+
+    /**
+     * Impronte già registrate tra quelle indicate il cui articolo fornitore esiste ancora
+     * e non è stato aggiornato dopo la registrazione (da un'altra importazione o dall'utente)
+     */
+    @Query("SELECT r.hash FROM RegistroImportRecord r, ArticoloFornitore a WHERE r.hash IN (:hash) " +
+           "AND a.codice = r.codice AND a.fornitorePartitaIva = r.fornitorePartitaIva AND a.updatedAt <= r.registratoIl")
+    List<String> findHashArticoliFornitoriInvariati(@Param("hash") Collection<String> hash);
+}
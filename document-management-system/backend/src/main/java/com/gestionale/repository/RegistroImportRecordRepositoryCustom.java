@@ -0,0 +1,18 @@
+package com.gestionale.repository;
+
+import com.gestionale.entity.ArticoloFornitore;
+import com.gestionale.enums.TipoImport;
+
+import java.util.Map;
+
+/**
+ * Scrittura massiva delle impronte dei record importati
+ */
+public interface RegistroImportRecordRepositoryCustom {
+
+    /**
+     * Registra le impronte con la chiave (codice, partita IVA fornitore) dell'articolo scritto, con insert JDBC a batch.
+     * Un'impronta già presente viene registrata di nuovo con la data attuale.
+     */
+    void registraTutti(TipoImport tipo, Map<String, ArticoloFornitore> articoliPerHash);
+}
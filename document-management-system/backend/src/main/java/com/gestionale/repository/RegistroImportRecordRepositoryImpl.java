@@ -0,0 +1,48 @@
+package com.gestionale.repository;
+
+import com.gestionale.entity.ArticoloFornitore;
+import com.gestionale.enums.TipoImport;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementazione delle operazioni massive su registro_import_record
+ */
+public class RegistroImportRecordRepositoryImpl implements RegistroImportRecordRepositoryCustom {
+
+    // Un record reimportato dopo una modifica del suo articolo torna invariato da questo momento
+    private static final String INSERT =
+        "INSERT INTO registro_import_record (hash, tipo, codice, fornitore_partita_iva, registrato_il) " +
+        "VALUES (:hash, :tipo, :codice, :fornitorePartitaIva, :adesso) " +
+        "ON CONFLICT (hash) DO UPDATE SET codice = EXCLUDED.codice, " +
+        "fornitore_partita_iva = EXCLUDED.fornitore_partita_iva, registrato_il = EXCLUDED.registrato_il";
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Override
+    public void registraTutti(TipoImport tipo, Map<String, ArticoloFornitore> articoliPerHash) {
+        if (articoliPerHash.isEmpty()) {
+            return;
+        }
+        Timestamp adesso = Timestamp.valueOf(LocalDateTime.now());
+        List<SqlParameterSource> parametri = new ArrayList<>(articoliPerHash.size());
+        for (Map.Entry<String, ArticoloFornitore> entry : articoliPerHash.entrySet()) {
+            parametri.add(new MapSqlParameterSource()
+                .addValue("hash", entry.getKey())
+                .addValue("tipo", tipo.name())
+                .addValue("codice", entry.getValue().getCodice())
+                .addValue("fornitorePartitaIva", entry.getValue().getFornitorePartitaIva())
+                .addValue("adesso", adesso));
+        }
+        jdbcTemplate.batchUpdate(INSERT, parametri.toArray(new SqlParameterSource[0]));
+    }
+}
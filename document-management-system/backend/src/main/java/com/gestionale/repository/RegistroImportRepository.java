@@ -0,0 +1,22 @@
+package com.gestionale.repository;
+
+import com.gestionale.entity.RegistroImport;
+import com.gestionale.enums.TipoImport;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Optional;
+
+@Repository
+public interface RegistroImportRepository extends JpaRepository<RegistroImport, Long> {
+
+    Optional<RegistroImport> findByTipoAndHashFile(TipoImport tipo, String hashFile);
+
+    @Modifying
+    @Query("DELETE FROM RegistroImport r WHERE r.tipo IN (:tipi)")
+    int deleteByTipoIn(@Param("tipi") Collection<TipoImport> tipi);
+}
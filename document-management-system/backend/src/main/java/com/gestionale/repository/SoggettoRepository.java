@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -65,6 +66,17 @@ public interface SoggettoRepository extends JpaRepository<Soggetto, Long>, JpaSp
      */
     boolean existsByPartitaIva(String partitaIva);
 
+    /**
+     * Restituisce, tra le partite IVA indicate, quelle già associate a un soggetto
+     */
+    @Query("SELECT s.partitaIva FROM Soggetto s WHERE s.partitaIva IN (:partiteIva)")
+    List<String> findPartiteIvaEsistenti(@Param("partiteIva") Collection<String> partiteIva);
+
+    /**
+     * Trova i soggetti con le partite IVA indicate
+     */
+    List<Soggetto> findByPartitaIvaIn(Collection<String> partiteIva);
+
     /**
      * Verifica se esiste un soggetto con codice fiscale
      */
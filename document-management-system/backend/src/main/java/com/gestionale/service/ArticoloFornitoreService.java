@@ -1,17 +1,24 @@
 package com.gestionale.service;
 
+import com.gestionale.dto.RiepilogoFornitoreDto;
 import com.gestionale.entity.ArticoloFornitore;
+import com.gestionale.enums.TipoImport;
 import com.gestionale.repository.ArticoloFornitoreRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
@@ -20,8 +27,24 @@ public class ArticoloFornitoreService {
     @Autowired
     private ArticoloFornitoreRepository articoloFornitoreRepository;
     
-    public List<ArticoloFornitore> getAllArticoliFornitori() {
-        return articoloFornitoreRepository.findAll();
+    @Autowired
+    private RegistroImportService registroImportService;
+    
+    @Autowired
+    private SuggerimentiService suggerimentiService;
+    
+    // Il riepilogo fornitori resta in cache fino alla prossima modifica, e comunque al massimo per questa durata
+    @Value("${articoli-fornitori.riepilogo-fornitori.durata-cache-secondi:300}")
+    private long durataCacheRiepilogo;
+    
+    private volatile RiepilogoInCache riepilogoFornitori;
+    
+    // Incrementata a ogni invalidazione: un riepilogo calcolato prima non viene messo in cache
+    private final AtomicLong versioneRiepilogo = new AtomicLong();
+    
+    // Gli elenchi completi sono letti in streaming e vanno consumati in una transazione (vedi ElenchiStreamingService)
+    public Stream<ArticoloFornitore> streamArticoliFornitori() {
+        return articoloFornitoreRepository.streamAll();
     }
     
     public Page<ArticoloFornitore> getArticoliFornitoriPaginati(Pageable pageable) {
@@ -36,12 +59,12 @@ public class ArticoloFornitoreService {
         return articoloFornitoreRepository.findByCodice(codice);
     }
     
-    public List<ArticoloFornitore> getArticoliByFornitore(String partitaIva) {
-        return articoloFornitoreRepository.findByFornitorePartitaIva(partitaIva);
+    public Stream<ArticoloFornitore> streamArticoliByFornitore(String partitaIva) {
+        return articoloFornitoreRepository.streamByFornitore(partitaIva);
     }
     
-    public List<ArticoloFornitore> searchArticoliFornitori(String query) {
-        return articoloFornitoreRepository.searchArticoli(query);
+    public Stream<ArticoloFornitore> streamSearchArticoliFornitori(String query) {
+        return articoloFornitoreRepository.streamSearch(query);
     }
     
     public ArticoloFornitore createArticoloFornitore(ArticoloFornitore articoloFornitore) {
@@ -57,6 +80,7 @@ public class ArticoloFornitoreService {
         
         articoloFornitore.setCreatedAt(LocalDateTime.now());
         articoloFornitore.setUpdatedAt(LocalDateTime.now());
+        invalidaRiepilogoFornitori();
         return articoloFornitoreRepository.save(articoloFornitore);
     }
     
@@ -74,6 +98,9 @@ public class ArticoloFornitoreService {
                 articoloEsistente.setFornitoreCategoria(articoloFornitoreAggiornato.getFornitoreCategoria());
                 articoloEsistente.setCodiceInterno(articoloFornitoreAggiornato.getCodiceInterno());
                 articoloEsistente.setUpdatedAt(LocalDateTime.now());
+                invalidaRiepilogoFornitori();
+                // Ricaricando un file già importato l'articolo deve tornare ai valori del file
+                registroImportService.invalidaImportazioni(TipoImport.ARTICOLI_FORNITORI);
                 
                 return articoloFornitoreRepository.save(articoloEsistente);
             });
@@ -82,6 +109,8 @@ public class ArticoloFornitoreService {
     public boolean deleteArticoloFornitore(Long id) {
         if (articoloFornitoreRepository.existsById(id)) {
             articoloFornitoreRepository.deleteById(id);
+            invalidaRiepilogoFornitori();
+            registroImportService.invalidaImportazioni(TipoImport.ARTICOLI_FORNITORI);
             return true;
         }
         return false;
@@ -91,13 +120,64 @@ public class ArticoloFornitoreService {
         return articoloFornitoreRepository.count();
     }
     
+    /**
+     * Ragioni sociali dei fornitori in ordine alfabetico, ricavate dal riepilogo in cache
+     */
+    @Transactional(readOnly = true)
     public List<String> getAllFornitori() {
-        return articoloFornitoreRepository.findAll()
+        return getRiepilogoFornitori()
             .stream()
-            .filter(af -> af.getFornitoreRagioneSociale() != null)
-            .map(ArticoloFornitore::getFornitoreRagioneSociale)
+            .map(RiepilogoFornitoreDto::getRagioneSociale)
+            .filter(ragioneSociale -> ragioneSociale != null)
             .distinct()
             .sorted()
             .collect(Collectors.toList());
     }
+    
+    /**
+     * Fornitori degli articoli con categoria, numero di articoli e data dell'ultimo documento.
+     * Calcolato con una GROUP BY sul database e tenuto in cache fino alla prossima modifica.
+     */
+    @Transactional(readOnly = true)
+    public List<RiepilogoFornitoreDto> getRiepilogoFornitori() {
+        RiepilogoInCache inCache = riepilogoFornitori;
+        if (inCache != null && System.nanoTime() - inCache.calcolatoIl < TimeUnit.SECONDS.toNanos(durataCacheRiepilogo)) {
+            return inCache.fornitori;
+        }
+        long versione = versioneRiepilogo.get();
+        List<RiepilogoFornitoreDto> fornitori = Collections.unmodifiableList(articoloFornitoreRepository.findRiepilogoFornitori());
+        if (versioneRiepilogo.get() == versione) {
+            riepilogoFornitori = new RiepilogoInCache(fornitori, System.nanoTime());
+        }
+        return fornitori;
+    }
+    
+    /**
+     * Scarta il riepilogo fornitori, subito e di nuovo dopo il commit della transazione corrente
+     */
+    public void invalidaRiepilogoFornitori() {
+        InvalidazioneDopoCommit.esegui(() -> {
+            versioneRiepilogo.incrementAndGet();
+            riepilogoFornitori = null;
+        });
+    }
+    
+    /**
+     * Da chiamare dopo le scritture massive degli articoli fornitori (upsert delle importazioni), che non passano
+     * dagli eventi Hibernate né da questo service: indice dei suggerimenti e riepilogo fornitori vanno ricalcolati
+     */
+    public void invalidaDopoScritturaMassiva() {
+        InvalidazioneDopoCommit.esegui(() -> suggerimentiService.invalida(SuggerimentiService.Risorsa.ARTICOLI_FORNITORI));
+        invalidaRiepilogoFornitori();
+    }
+    
+    private static class RiepilogoInCache {
+        private final List<RiepilogoFornitoreDto> fornitori;
+        private final long calcolatoIl;
+        
+        RiepilogoInCache(List<RiepilogoFornitoreDto> fornitori, long calcolatoIl) {
+            this.fornitori = fornitori;
+            this.calcolatoIl = calcolatoIl;
+        }
+    }
 }
@@ -1,9 +1,12 @@
 package com.gestionale.service;
 
+import com.gestionale.dto.PaginaCursore;
 import com.gestionale.entity.Articolo;
+import com.gestionale.enums.TipoImport;
 import com.gestionale.repository.ArticoloRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -12,6 +15,7 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
@@ -20,14 +24,35 @@ public class ArticoloService {
     @Autowired
     private ArticoloRepository articoloRepository;
     
-    public List<Articolo> getAllArticoli() {
-        return articoloRepository.findAll();
+    @Autowired
+    private RegistroImportService registroImportService;
+    
+    // Gli elenchi completi sono letti in streaming e vanno consumati in una transazione (vedi ElenchiStreamingService)
+    public Stream<Articolo> streamArticoli() {
+        return articoloRepository.streamAll();
     }
     
     public Page<Articolo> getArticoliPaginati(Pageable pageable) {
         return articoloRepository.findAll(pageable);
     }
     
+    /**
+     * Scorre gli articoli per descrizione e id a partire dal cursore della pagina precedente,
+     * senza offset né conteggio totale
+     */
+    public PaginaCursore<Articolo> scorriArticoli(String cursore, int dimensione) {
+        int limite = Math.min(Math.max(dimensione, 1), PaginaCursore.DIMENSIONE_MASSIMA);
+        Pageable righe = PageRequest.of(0, limite + 1);
+        List<Articolo> articoli;
+        if (cursore == null || cursore.isEmpty()) {
+            articoli = articoloRepository.findByOrderByDescrizioneAscIdAsc(righe);
+        } else {
+            List<String> chiave = CursoreKeyset.decodifica(cursore, 2);
+            articoli = articoloRepository.findDopo(chiave.get(0), Long.valueOf(chiave.get(1)), righe);
+        }
+        return PaginaCursore.da(articoli, limite, ultimo -> CursoreKeyset.codifica(ultimo.getDescrizione(), ultimo.getId()));
+    }
+    
     public Optional<Articolo> getArticoloById(Long id) {
         return articoloRepository.findById(id);
     }
@@ -36,16 +61,16 @@ public class ArticoloService {
         return articoloRepository.findByCodice(codice);
     }
     
-    public List<Articolo> getArticoliAttivi() {
-        return articoloRepository.findByAttivoTrue();
+    public Stream<Articolo> streamArticoliAttivi() {
+        return articoloRepository.streamAttivi();
     }
     
-    public List<Articolo> searchArticoli(String query) {
-        return articoloRepository.searchArticoli(query);
+    public Stream<Articolo> streamSearchArticoli(String query) {
+        return articoloRepository.streamSearch(query);
     }
     
-    public List<Articolo> getArticoliByCategoria(String categoria) {
-        return articoloRepository.findByCategoria(categoria);
+    public Stream<Articolo> streamArticoliByCategoria(String categoria) {
+        return articoloRepository.streamByCategoria(categoria);
     }
     
     public List<Articolo> getArticoliByPrezzoRange(BigDecimal minPrezzo, BigDecimal maxPrezzo) {
@@ -74,6 +99,8 @@ public class ArticoloService {
                     articolo.setGiacenzaMinima(articoloAggiornato.getGiacenzaMinima());
                     articolo.setFornitore(articoloAggiornato.getFornitore());
                     articolo.setUpdatedAt(LocalDateTime.now());
+                    // Gli articoli importati da file già registrati potrebbero non corrispondere più al file
+                    registroImportService.invalidaImportazioni(TipoImport.ARTICOLI);
                     return articoloRepository.save(articolo);
                 });
     }
@@ -81,6 +108,7 @@ public class ArticoloService {
     public boolean deleteArticolo(Long id) {
         if (articoloRepository.existsById(id)) {
             articoloRepository.deleteById(id);
+            registroImportService.invalidaImportazioni(TipoImport.ARTICOLI);
             return true;
         }
         return false;
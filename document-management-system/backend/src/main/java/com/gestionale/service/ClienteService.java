@@ -1,9 +1,12 @@
 package com.gestionale.service;
 
+import com.gestionale.dto.PaginaCursore;
 import com.gestionale.entity.Cliente;
+import com.gestionale.enums.TipoImport;
 import com.gestionale.repository.ClienteRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -12,6 +15,7 @@ import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Service
 public class ClienteService {
@@ -19,14 +23,35 @@ public class ClienteService {
     @Autowired
     private ClienteRepository clienteRepository;
     
-    public List<Cliente> getAllClienti() {
-        return clienteRepository.findAll();
+    @Autowired
+    private RegistroImportService registroImportService;
+    
+    // Gli elenchi completi sono letti in streaming e vanno consumati in una transazione (vedi ElenchiStreamingService)
+    public Stream<Cliente> streamClienti() {
+        return clienteRepository.streamAll();
     }
     
     public Page<Cliente> getClientiPaginati(Pageable pageable) {
         return clienteRepository.findAll(pageable);
     }
     
+    /**
+     * Scorre i clienti per ragione sociale e id a partire dal cursore della pagina precedente,
+     * senza offset né conteggio totale
+     */
+    public PaginaCursore<Cliente> scorriClienti(String cursore, int dimensione) {
+        int limite = Math.min(Math.max(dimensione, 1), PaginaCursore.DIMENSIONE_MASSIMA);
+        Pageable righe = PageRequest.of(0, limite + 1);
+        List<Cliente> clienti;
+        if (cursore == null || cursore.isEmpty()) {
+            clienti = clienteRepository.findByOrderByRagioneSocialeAscIdAsc(righe);
+        } else {
+            List<String> chiave = CursoreKeyset.decodifica(cursore, 2);
+            clienti = clienteRepository.findDopo(chiave.get(0), Long.valueOf(chiave.get(1)), righe);
+        }
+        return PaginaCursore.da(clienti, limite, ultimo -> CursoreKeyset.codifica(ultimo.getRagioneSociale(), ultimo.getId()));
+    }
+    
     public Optional<Cliente> getClienteById(Long id) {
         return clienteRepository.findById(id);
     }
@@ -43,12 +68,12 @@ public class ClienteService {
         return clienteRepository.findByCodiceFiscale(codiceFiscale);
     }
     
-    public List<Cliente> getClientiAttivi() {
-        return clienteRepository.findByAttivoTrue();
+    public Stream<Cliente> streamClientiAttivi() {
+        return clienteRepository.streamAttivi();
     }
     
-    public List<Cliente> searchClienti(String query) {
-        return clienteRepository.searchClienti(query);
+    public Stream<Cliente> streamSearchClienti(String query) {
+        return clienteRepository.streamSearch(query);
     }
     
     public List<Cliente> getClientiByTipo(String tipo) {
@@ -111,6 +136,8 @@ public class ClienteService {
                         cliente.setNote(clienteAggiornato.getNote());
                     }
                     cliente.setUpdatedAt(LocalDateTime.now());
+                    // Clienti e fornitori importati da file già registrati potrebbero non corrispondere più al file
+                    registroImportService.invalidaImportazioni(TipoImport.CLIENTI, TipoImport.FORNITORI);
                     return clienteRepository.save(cliente);
                 });
     }
@@ -120,6 +147,7 @@ public class ClienteService {
         return clienteRepository.findById(id)
                 .map(cliente -> {
                     clienteRepository.delete(cliente);
+                    registroImportService.invalidaImportazioni(TipoImport.CLIENTI, TipoImport.FORNITORI);
                     return true;
                 })
                 .orElse(false);
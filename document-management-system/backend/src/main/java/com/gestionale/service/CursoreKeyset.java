@@ -0,0 +1,55 @@
+package com.gestionale.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Codifica dei cursori della paginazione per chiave: i valori della chiave di ordinamento
+ * dell'ultimo elemento restituito (id compreso) in un token opaco sicuro negli URL
+ */
+public final class CursoreKeyset {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private CursoreKeyset() {}
+
+    /**
+     * Codifica i valori della chiave nell'ordine di ordinamento
+     */
+    public static String codifica(Object... valori) {
+        List<String> testi = new ArrayList<>(valori.length);
+        for (Object valore : valori) {
+            testi.add(String.valueOf(valore));
+        }
+        try {
+            return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(OBJECT_MAPPER.writeValueAsBytes(testi));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Codifica del cursore non riuscita", e);
+        }
+    }
+
+    /**
+     * Decodifica un cursore nei valori della chiave, verificandone il numero
+     * @throws IllegalArgumentException se il cursore non è valido
+     */
+    public static List<String> decodifica(String cursore, int valoriAttesi) {
+        List<String> valori;
+        try {
+            byte[] json = Base64.getUrlDecoder().decode(cursore);
+            valori = OBJECT_MAPPER.readValue(new String(json, StandardCharsets.UTF_8), new TypeReference<List<String>>() {});
+        } catch (IllegalArgumentException | JsonProcessingException e) {
+            throw new IllegalArgumentException("Cursore non valido");
+        }
+        if (valori == null || valori.size() != valoriAttesi) {
+            throw new IllegalArgumentException("Cursore non valido");
+        }
+        return valori;
+    }
+}
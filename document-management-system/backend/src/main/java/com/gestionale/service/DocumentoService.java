@@ -9,16 +9,26 @@ import com.gestionale.repository.SoggettoRepository;
 import com.gestionale.repository.ArticoloRepository;
 import com.gestionale.service.NumerazioneService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -30,6 +40,23 @@ public class DocumentoService {
     private final DocumentoMapper documentoMapper;
     private final NumerazioneService numerazioneService;
 
+    // Numero documento cercato come "numero" oppure "numero/anno"
+    private static final Pattern NUMERO_ANNO = Pattern.compile("(\\d{1,18})(?:/(\\d{4}))?");
+
+    // Ricerca testuale: lunghezza minima del testo e risultati massimi
+    private static final int LUNGHEZZA_MINIMA_RICERCA = 3;
+    private static final int MAX_RISULTATI_RICERCA = 100;
+
+    // Documenti accettati in una singola creazione massiva
+    private static final int MAX_DOCUMENTI_BULK = 1000;
+
+    // Documenti scritti per ogni flush della creazione massiva
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int dimensioneBatch;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     @Autowired
     public DocumentoService(DocumentoRepository documentoRepository,
                            SoggettoRepository soggettoRepository,
@@ -63,16 +90,88 @@ public class DocumentoService {
         // Salva il documento
         documento = documentoRepository.save(documento);
         
-        return documentoMapper.toResponseDto(documento);
+        return toResponseDto(documento);
+    }
+
+    /**
+     * Crea più documenti in un'unica transazione. I numeri sono riservati con un solo intervallo
+     * per ogni tipo documento e anno, invece di una richiesta di numerazione per documento,
+     * e assegnati nell'ordine in cui i documenti sono stati inviati. I clienti sono letti con una
+     * sola query e documenti, righe, scadenze e riepiloghi vengono scritti con INSERT in batch JDBC.
+     */
+    public List<DocumentoResponseDto> creaDocumenti(List<DocumentoCreateDto> createDtos) {
+        if (createDtos.size() > MAX_DOCUMENTI_BULK) {
+            throw new IllegalArgumentException(
+                "Troppi documenti in una richiesta: " + createDtos.size() + " (massimo " + MAX_DOCUMENTI_BULK + ")");
+        }
+        Map<Long, Soggetto> soggetti = new HashMap<>();
+        for (Soggetto soggetto : soggettoRepository.findAllById(
+                createDtos.stream().map(DocumentoCreateDto::getClienteId).collect(Collectors.toSet()))) {
+            soggetti.put(soggetto.getId(), soggetto);
+        }
+        
+        List<Documento> documenti = new ArrayList<>(createDtos.size());
+        // Ordinati per chiave, così richieste concorrenti bloccano le numerazioni sempre nello stesso ordine
+        Map<String, List<Documento>> perNumerazione = new TreeMap<>();
+        for (DocumentoCreateDto createDto : createDtos) {
+            Soggetto soggetto = soggetti.get(createDto.getClienteId());
+            if (soggetto == null) {
+                throw new IllegalArgumentException("Cliente non trovato: " + createDto.getClienteId());
+            }
+            Documento documento = documentoMapper.toEntity(createDto);
+            documento.setSoggetto(soggetto);
+            // Collegamento diretto delle righe, numerate nell'ordine di invio e con i loro totali già calcolati:
+            // quelli del documento vengono ricalcolati una volta sola al salvataggio, prima che le righe siano persistite
+            if (documento.getRighe() != null) {
+                int rigaNumero = 1;
+                for (RigaDocumento riga : documento.getRighe()) {
+                    riga.setDocumento(documento);
+                    if (riga.getRigaNumero() == null) {
+                        riga.setRigaNumero(rigaNumero);
+                    }
+                    rigaNumero++;
+                    riga.calcolaTotali();
+                }
+            }
+            if (documento.getScadenze() != null) {
+                documento.getScadenze().forEach(scadenza -> scadenza.setDocumento(documento));
+            }
+            documento.setAnno(createDto.getDataDocumento().getYear());
+            documento.setStato(StatoDocumento.BOZZA);
+            documenti.add(documento);
+            perNumerazione.computeIfAbsent(documento.getTipoDocumento().name() + "/" + documento.getAnno(),
+                chiave -> new ArrayList<>()).add(documento);
+        }
+        
+        for (List<Documento> gruppo : perNumerazione.values()) {
+            Documento primo = gruppo.get(0);
+            long numero = numerazioneService.allocateRange(primo.getTipoDocumento(), primo.getAnno(), gruppo.size());
+            for (Documento documento : gruppo) {
+                documento.setNumero(numero++);
+            }
+        }
+        
+        // Scrittura a blocchi della dimensione del batch JDBC, svuotando il contesto di persistenza tra un blocco e l'altro
+        List<DocumentoResponseDto> risultato = new ArrayList<>(documenti.size());
+        for (int inizio = 0; inizio < documenti.size(); inizio += dimensioneBatch) {
+            List<Documento> blocco = documenti.subList(inizio, Math.min(inizio + dimensioneBatch, documenti.size()));
+            blocco.forEach(entityManager::persist);
+            entityManager.flush();
+            for (Documento documento : blocco) {
+                risultato.add(toResponseDto(documento));
+            }
+            entityManager.clear();
+        }
+        return risultato;
     }
 
     /**
      * Recupera un documento per ID
      */
     public DocumentoResponseDto getDocumento(Long id) {
-        Documento documento = documentoRepository.findById(id)
+        Documento documento = documentoRepository.findDettaglioById(id)
             .orElseThrow(() -> new DocumentoNotFoundException("Documento non trovato: " + id));
-        return documentoMapper.toResponseDto(documento);
+        return toResponseDto(documento);
     }
 
     /**
@@ -81,7 +180,53 @@ public class DocumentoService {
     public Page<DocumentoResponseDto> getDocumenti(DocumentoFilter filter, Pageable pageable) {
         Specification<Documento> spec = buildSpecification(filter);
         Page<Documento> documenti = documentoRepository.findAll(spec, pageable);
-        return documenti.map(documentoMapper::toResponseDto);
+        return documenti.map(this::toResponseDto);
+    }
+
+    /**
+     * Recupera i dati di sintesi dei documenti per gli elenchi, con gli stessi filtri di getDocumenti
+     */
+    public Page<DocumentoSintesiDto> getSintesiDocumenti(DocumentoFilter filter, Pageable pageable) {
+        return conNumeriFormattati(documentoRepository.findSintesi(buildSpecification(filter), pageable));
+    }
+
+    /**
+     * Scorre i dati di sintesi dei documenti per chiave (data, numero e id decrescenti):
+     * ogni pagina riparte dal cursore della precedente senza offset né conteggio totale
+     */
+    public PaginaCursore<DocumentoSintesiDto> scorriDocumenti(DocumentoFilter filter, String cursore, int dimensione) {
+        int limite = Math.min(Math.max(dimensione, 1), PaginaCursore.DIMENSIONE_MASSIMA);
+        LocalDate dataDocumento = null;
+        Long numero = null;
+        Long id = null;
+        if (cursore != null && !cursore.isEmpty()) {
+            List<String> chiave = CursoreKeyset.decodifica(cursore, 3);
+            try {
+                dataDocumento = LocalDate.parse(chiave.get(0));
+                numero = Long.valueOf(chiave.get(1));
+                id = Long.valueOf(chiave.get(2));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Cursore non valido");
+            }
+        }
+        List<DocumentoSintesiDto> righe = documentoRepository.findSintesiDopo(
+            buildSpecification(filter), dataDocumento, numero, id, limite + 1);
+        PaginaCursore<DocumentoSintesiDto> pagina = PaginaCursore.da(righe, limite, ultimo ->
+            CursoreKeyset.codifica(ultimo.getDataDocumento(), ultimo.getNumero(), ultimo.getId()));
+        conNumeriFormattati(pagina.getContenuto());
+        return pagina;
+    }
+
+    /**
+     * Ricerca testuale dei documenti ordinata per rilevanza. Testi più corti di 3 caratteri non sono
+     * selettivi per gli indici trigrammi e vengono cercati solo come numero documento.
+     */
+    public List<DocumentoSintesiDto> cercaDocumenti(String testo, int limite) {
+        String cerca = testo != null ? testo.trim() : "";
+        if (cerca.length() < LUNGHEZZA_MINIMA_RICERCA && !cerca.matches("\\d+")) {
+            return new ArrayList<>();
+        }
+        return conNumeriFormattati(documentoRepository.cercaSintesi(cerca, Math.min(Math.max(limite, 1), MAX_RISULTATI_RICERCA)));
     }
 
     /**
@@ -100,7 +245,7 @@ public class DocumentoService {
         documentoMapper.updateEntityFromDto(updateDto, documento);
         documento = documentoRepository.save(documento);
         
-        return documentoMapper.toResponseDto(documento);
+        return toResponseDto(documento);
     }
 
     /**
@@ -127,7 +272,7 @@ public class DocumentoService {
         documento.setStato(nuovoStato);
         documento = documentoRepository.save(documento);
         
-        return documentoMapper.toResponseDto(documento);
+        return toResponseDto(documento);
     }
 
     /**
@@ -154,7 +299,7 @@ public class DocumentoService {
         
         duplicato = documentoRepository.save(duplicato);
         
-        return documentoMapper.toResponseDto(duplicato);
+        return toResponseDto(duplicato);
     }
 
     /**
@@ -177,7 +322,34 @@ public class DocumentoService {
         documento.setDataInvio(LocalDateTime.now());
         documento = documentoRepository.save(documento);
         
-        return documentoMapper.toResponseDto(documento);
+        return toResponseDto(documento);
+    }
+
+    /**
+     * Converte il documento per la risposta, con il numero formattato secondo la sua numerazione
+     */
+    private DocumentoResponseDto toResponseDto(Documento documento) {
+        DocumentoResponseDto dto = documentoMapper.toResponseDto(documento);
+        dto.setNumeroFormattato(formattaNumero(documento.getTipoDocumento(), documento.getNumero(), documento.getAnno()));
+        return dto;
+    }
+
+    /**
+     * Aggiunge il numero formattato ai dati di sintesi. I formati sono in cache in NumerazioneService:
+     * un elenco non esegue query oltre a quelle della pagina, salvo la prima lettura di ogni tipo e anno.
+     */
+    private <T extends Iterable<DocumentoSintesiDto>> T conNumeriFormattati(T documenti) {
+        for (DocumentoSintesiDto documento : documenti) {
+            documento.setNumeroFormattato(formattaNumero(documento.getTipoDocumento(), documento.getNumero(), documento.getAnno()));
+        }
+        return documenti;
+    }
+
+    private String formattaNumero(TipoDocumento tipoDocumento, Long numero, Integer anno) {
+        if (tipoDocumento == null || numero == null || anno == null) {
+            return null;
+        }
+        return numerazioneService.formatNumber(tipoDocumento, numero, anno);
     }
 
     /**
@@ -203,10 +375,57 @@ public class DocumentoService {
                 predicates.add(criteriaBuilder.lessThanOrEqualTo(root.get("dataDocumento"), filter.getDataFine()));
             }
             
+            // Confronto sulla colonna soggetto_id, senza join con soggetti
+            if (filter.getSoggettoId() != null) {
+                predicates.add(criteriaBuilder.equal(root.get("soggetto").get("id"), filter.getSoggettoId()));
+            }
+            
+            // "12" oppure "12/2024" cercano per numero (e anno), altrimenti il numero attribuito dal fornitore
+            if (hasText(filter.getNumeroDocumento())) {
+                String numeroDocumento = filter.getNumeroDocumento().trim();
+                Matcher numeroAnno = NUMERO_ANNO.matcher(numeroDocumento);
+                if (numeroAnno.matches()) {
+                    predicates.add(criteriaBuilder.equal(root.get("numero"), Long.valueOf(numeroAnno.group(1))));
+                    if (numeroAnno.group(2) != null) {
+                        predicates.add(criteriaBuilder.equal(root.get("anno"), Integer.valueOf(numeroAnno.group(2))));
+                    }
+                } else {
+                    predicates.add(criteriaBuilder.equal(root.get("numeroEsterno"), numeroDocumento));
+                }
+            }
+            
+            if (filter.getInviato() != null) {
+                predicates.add(criteriaBuilder.equal(root.get("inviato"), filter.getInviato()));
+            }
+            
+            if (filter.getStampato() != null) {
+                predicates.add(criteriaBuilder.equal(root.get("stampato"), filter.getStampato()));
+            }
+            
+            // Dati fiscali copiati sul documento: uguaglianza esatta sulla colonna, senza funzioni
+            if (hasText(filter.getPartitaIva())) {
+                predicates.add(criteriaBuilder.equal(root.get("partitaIva"), filter.getPartitaIva().trim()));
+            }
+            
+            if (hasText(filter.getCodiceFiscale())) {
+                predicates.add(criteriaBuilder.equal(root.get("codiceFiscale"), filter.getCodiceFiscale().trim().toUpperCase()));
+            }
+            
+            if (hasText(filter.getSoggettoFilter())) {
+                String testo = "%" + filter.getSoggettoFilter().trim().toLowerCase() + "%";
+                predicates.add(criteriaBuilder.or(
+                    criteriaBuilder.like(criteriaBuilder.lower(root.get("ragioneSociale")), testo),
+                    criteriaBuilder.like(criteriaBuilder.lower(root.get("partitaIva")), testo)));
+            }
+            
             return criteriaBuilder.and(predicates.toArray(new javax.persistence.criteria.Predicate[0]));
         };
     }
 
+    private static boolean hasText(String valore) {
+        return valore != null && !valore.trim().isEmpty();
+    }
+
     // Metodi legacy per compatibilità
     public List<Documento> getAllDocumenti() {
         return documentoRepository.findAll();
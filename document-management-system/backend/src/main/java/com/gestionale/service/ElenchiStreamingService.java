@@ -0,0 +1,111 @@
+package com.gestionale.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Scrive gli elenchi completi come array JSON man mano che le righe arrivano dal database,
+ * invece di caricarli in una lista: ogni entity serializzata viene staccata dal contesto
+ * di persistenza, così la memoria usata resta costante qualunque sia la dimensione della tabella.
+ * Le query vanno dichiarate con fetch size (vedi QueryHints sui metodi stream dei repository).
+ */
+@Service
+public class ElenchiStreamingService {
+
+    // Entity scritte tra uno svuotamento e l'altro del buffer di risposta
+    private static final int RIGHE_PER_FLUSH = 500;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Numero massimo di elementi restituiti da un elenco, anche se il client ne chiede di più
+    @Value("${elenchi.limite-massimo:50000}")
+    private int limiteMassimo;
+
+    private final TransactionTemplate transazioneLettura;
+
+    @Autowired
+    public ElenchiStreamingService(PlatformTransactionManager transactionManager) {
+        this.transazioneLettura = new TransactionTemplate(transactionManager);
+        this.transazioneLettura.setReadOnly(true);
+    }
+
+    /**
+     * Limite effettivo per un elenco: quello richiesto, se indicato, entro il limite massimo configurato
+     */
+    public int limite(Integer richiesto) {
+        if (richiesto == null) {
+            return limiteMassimo;
+        }
+        if (richiesto < 1) {
+            throw new IllegalArgumentException("Il limite deve essere positivo");
+        }
+        return Math.min(richiesto, limiteMassimo);
+    }
+
+    /**
+     * Risposta in streaming con il limite effettivo nell'intestazione X-Limite-Elenco,
+     * o 400 con il messaggio di errore se il limite richiesto non è valido
+     */
+    public <T> ResponseEntity<StreamingResponseBody> risposta(Supplier<Stream<T>> query, Integer limiteRichiesto) {
+        int limite;
+        try {
+            limite = limite(limiteRichiesto);
+        } catch (IllegalArgumentException e) {
+            byte[] messaggio = e.getMessage().getBytes(StandardCharsets.UTF_8);
+            return ResponseEntity.badRequest()
+                .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                .body(output -> output.write(messaggio));
+        }
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .header("X-Limite-Elenco", String.valueOf(limite))
+            .body(scrivi(query, limite));
+    }
+
+    /**
+     * Corpo della risposta che legge lo stream in una transazione di sola lettura
+     * e ne scrive al massimo limite elementi come array JSON
+     */
+    public <T> StreamingResponseBody scrivi(Supplier<Stream<T>> query, int limite) {
+        return output -> transazioneLettura.executeWithoutResult(status -> {
+            try (Stream<T> righe = query.get();
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+                generator.writeStartArray();
+                Iterator<T> iterator = righe.limit(limite).iterator();
+                int scritte = 0;
+                while (iterator.hasNext()) {
+                    T entita = iterator.next();
+                    generator.writeObject(entita);
+                    entityManager.detach(entita);
+                    if (++scritte % RIGHE_PER_FLUSH == 0) {
+                        generator.flush();
+                    }
+                }
+                generator.writeEndArray();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+}
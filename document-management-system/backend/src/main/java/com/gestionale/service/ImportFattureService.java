@@ -0,0 +1,598 @@
+package com.gestionale.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gestionale.dto.ImportResultDto;
+import com.gestionale.entity.ArticoloFornitore;
+import com.gestionale.entity.Documento;
+import com.gestionale.entity.PrezzoArticoloFornitore;
+import com.gestionale.entity.RegistroImport;
+import com.gestionale.entity.RigaDocumento;
+import com.gestionale.entity.Soggetto;
+import com.gestionale.entity.SoggettoFornitore;
+import com.gestionale.entity.StatoDocumento;
+import com.gestionale.entity.TipoDocumento;
+import com.gestionale.enums.AliquotaIva;
+import com.gestionale.enums.TipoImport;
+import com.gestionale.repository.ArticoloFornitoreRepository;
+import com.gestionale.repository.ArticoloFornitoreRepositoryCustom;
+import com.gestionale.repository.DocumentoRepository;
+import com.gestionale.repository.PrezzoArticoloFornitoreRepository;
+import com.gestionale.repository.SoggettoRepository;
+import com.gestionale.validation.AnagraficaValidator;
+import com.gestionale.validation.ErroreAnagrafica;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Importazione delle fatture di acquisto nel formato di fatture.json.
+ * Ogni fattura diventa un documento con le sue righe e aggiorna i prezzi degli articoli fornitori.
+ * Le fatture sono lette in streaming e confermate a blocchi.
+ */
+@Service
+public class ImportFattureService {
+
+    private static final TipoDocumento TIPO = TipoDocumento.FATTURA_ACQUISTO;
+
+    private static final DateTimeFormatter FORMATO_DATA = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+    private static final BigDecimal CENTO = new BigDecimal("100");
+
+    // Unità di misura assegnata ai prezzi fornitore, non presente nel file
+    private static final String UNITA_MISURA_PREDEFINITA = "NR";
+
+    @Autowired
+    private DocumentoRepository documentoRepository;
+
+    @Autowired
+    private SoggettoRepository soggettoRepository;
+
+    @Autowired
+    private ArticoloFornitoreRepository articoloFornitoreRepository;
+
+    @Autowired
+    private PrezzoArticoloFornitoreRepository prezzoArticoloFornitoreRepository;
+
+    @Autowired
+    private ArticoloFornitoreService articoloFornitoreService;
+
+    @Autowired
+    private NumerazioneService numerazioneService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ImportPipeline importPipeline;
+
+    @Autowired
+    private RegistroImportService registroImportService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // Numero di fatture confermate in ciascuna transazione
+    @Value("${import.chunk-size:500}")
+    private int dimensioneBlocco;
+
+    public ImportResultDto importFattureFromJson(MultipartFile file, boolean forza) throws IOException {
+        return importFatture(file, forza, 0, ImportProgress.NESSUNO);
+    }
+
+    /**
+     * Importa le fatture di acquisto dalla sorgente indicata, confermando ogni blocco in una transazione.
+     * Le righe fino a rigaDiRipresa (già confermate in un'esecuzione precedente) vengono saltate.
+     * Con forza il file viene rielaborato anche se risulta già importato: le fatture già presenti restano scartate.
+     */
+    public ImportResultDto importFatture(InputStreamSource sorgente, boolean forza, int rigaDiRipresa, ImportProgress progress) throws IOException {
+        // Un file già importato per intero non viene riletto
+        String hashFile = registroImportService.hashFile(sorgente);
+        if (rigaDiRipresa == 0 && !forza) {
+            RegistroImport importazionePrecedente = registroImportService.trovaImportazione(TipoImport.FATTURE_ACQUISTO, hashFile).orElse(null);
+            if (importazionePrecedente != null) {
+                ImportResultDto result = new ImportResultDto(true,
+                    registroImportService.messaggioGiaImportato(importazionePrecedente), 0, 0, new ArrayList<>());
+                Map<String, Object> stats = new HashMap<>();
+                stats.put("giaImportato", true);
+                result.setStatistics(stats);
+                return result;
+            }
+        }
+
+        List<String> errors = new ArrayList<>();
+        List<FatturaLetta> blocco = new ArrayList<>();
+        Set<String> fattureNelFile = new HashSet<>();
+        EsitoImportazione esito = new EsitoImportazione();
+
+        int totalRecords = 0;
+        int ultimaRigaConfermata = rigaDiRipresa;
+
+        try (ImportRecordReader reader = ImportRecordReader.apri(sorgente, objectMapper);
+             ImportPipeline.RecordValidati<FatturaLetta> validati = importPipeline.avvia(reader, rigaDiRipresa,
+                 (record, riga, errori) -> leggiFattura(record, riga))) {
+            while (validati.hasNext()) {
+                ImportPipeline.RecordValidato<FatturaLetta> validato = validati.next();
+                int riga = validato.getRiga();
+                totalRecords++;
+
+                if (validato.getEccezione() != null) {
+                    errors.add("Riga " + riga + ": " + validato.getEccezione().getMessage());
+                } else {
+                    FatturaLetta fattura = validato.getValore();
+                    if (fattureNelFile.add(fattura.chiave())) {
+                        blocco.add(fattura);
+                    } else {
+                        errors.add("Riga " + riga + ": Fattura " + fattura.documento.getNumeroEsterno()
+                            + " duplicata nel file (P.IVA: " + fattura.documento.getPartitaIva() + ")");
+                    }
+                }
+
+                if (blocco.size() >= dimensioneBlocco) {
+                    salvaBlocco(blocco, esito, errors);
+                    progress.bloccoConfermato(riga);
+                    ultimaRigaConfermata = riga;
+                }
+                progress.aggiorna(riga, errors.size());
+            }
+
+            if (!blocco.isEmpty()) {
+                salvaBlocco(blocco, esito, errors);
+                progress.bloccoConfermato(reader.getRowNumber());
+            }
+        } catch (RuntimeException e) {
+            progress.interrotto(e.getMessage());
+            return new ImportResultDto(false,
+                String.format("Errore durante il salvataggio dopo la riga %d: %s", ultimaRigaConfermata, e.getMessage()),
+                totalRecords, esito.fattureImportate, Arrays.asList(e.getMessage()));
+        }
+
+        if (rigaDiRipresa == 0 && errors.isEmpty()) {
+            registroImportService.registraImportazione(TipoImport.FATTURE_ACQUISTO, hashFile, sorgente,
+                totalRecords, esito.fattureImportate);
+        }
+
+        String message = String.format("Importazione completata: %d/%d fatture importate, %d righe",
+            esito.fattureImportate, totalRecords, esito.righeCreate);
+
+        ImportResultDto result = new ImportResultDto(
+            errors.isEmpty() || esito.fattureImportate > 0,
+            message,
+            totalRecords,
+            esito.fattureImportate,
+            errors
+        );
+        result.setStatistics(esito.toMap());
+        return result;
+    }
+
+    /**
+     * Salva un blocco di fatture in una transazione: risolve fornitori e fatture già presenti
+     * con una query per blocco, assegna la numerazione interna e aggiorna i prezzi fornitore.
+     * Contatori ed errori del blocco sono aggiunti all'esito solo dopo il commit.
+     */
+    private void salvaBlocco(List<FatturaLetta> blocco, EsitoImportazione esito, List<String> errors) {
+        EsitoImportazione esitoBlocco = new EsitoImportazione();
+        List<String> erroriBlocco = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            Set<String> giaPresenti = trovaFattureEsistenti(blocco);
+            List<FatturaLetta> daSalvare = new ArrayList<>(blocco.size());
+            for (FatturaLetta fattura : blocco) {
+                if (giaPresenti.contains(fattura.chiave())) {
+                    esitoBlocco.fattureGiaPresenti++;
+                    erroriBlocco.add("Riga " + fattura.riga + ": Fattura " + fattura.documento.getNumeroEsterno()
+                        + " già importata (P.IVA: " + fattura.documento.getPartitaIva() + ")");
+                } else {
+                    daSalvare.add(fattura);
+                }
+            }
+
+            Map<String, Soggetto> fornitori = risolviFornitori(daSalvare, esitoBlocco);
+
+            // Il numero di protocollo interno va assegnato prima del persist (vincolo tipo/numero/anno):
+            // un solo intervallo per anno, riservato nella transazione del blocco
+            Map<Integer, List<Documento>> perAnno = new TreeMap<>();
+            for (FatturaLetta fattura : daSalvare) {
+                Documento documento = fattura.documento;
+                documento.setSoggetto(fornitori.get(documento.getPartitaIva()));
+                perAnno.computeIfAbsent(documento.getAnno(), anno -> new ArrayList<>()).add(documento);
+            }
+            perAnno.forEach((anno, documenti) -> {
+                long numero = numerazioneService.allocateRange(TIPO, anno, documenti.size());
+                for (Documento documento : documenti) {
+                    documento.setNumero(numero++);
+                }
+            });
+
+            List<ArticoloFornitore> prezzi = new ArrayList<>();
+            List<PrezzoArticoloFornitore> storico = new ArrayList<>();
+            for (FatturaLetta fattura : daSalvare) {
+                entityManager.persist(fattura.documento);
+                prezzi.addAll(fattura.prezzi);
+                for (ArticoloFornitore prezzo : fattura.prezzi) {
+                    storico.add(new PrezzoArticoloFornitore(prezzo.getCodice(), prezzo.getFornitorePartitaIva(),
+                        prezzo.getDataDocumento(), BigDecimal.valueOf(prezzo.getPrezzoUnitario()),
+                        BigDecimal.valueOf(prezzo.getQuantita()), fattura.documento.getNumeroEsterno()));
+                }
+                esitoBlocco.fattureImportate++;
+                esitoBlocco.righeCreate += fattura.documento.getRighe().size();
+            }
+            entityManager.flush();
+
+            if (!prezzi.isEmpty()) {
+                ArticoloFornitoreRepositoryCustom.EsitoUpsert esitoPrezzi = articoloFornitoreRepository.upsertAll(prezzi);
+                esitoBlocco.prezziInseriti += esitoPrezzi.getInseriti();
+                esitoBlocco.prezziAggiornati += esitoPrezzi.getAggiornati();
+                esitoBlocco.prezziDuplicati += esitoPrezzi.getDuplicati();
+                // Lo storico riceve ogni prezzo di fattura, anche quando non aggiorna l'articolo (documento più vecchio)
+                esitoBlocco.prezziStorico += prezzoArticoloFornitoreRepository.registraAll(storico);
+                if (esitoPrezzi.getInseriti() + esitoPrezzi.getAggiornati() > 0) {
+                    // I file di articoli fornitori già importati non corrispondono più ai prezzi aggiornati
+                    registroImportService.invalidaImportazioni(TipoImport.ARTICOLI_FORNITORI);
+                }
+            }
+            entityManager.clear();
+        });
+        // Raggiunto solo se il blocco è stato confermato: un blocco annullato non lascia conteggi né errori
+        esito.aggiungi(esitoBlocco);
+        errors.addAll(erroriBlocco);
+        blocco.clear();
+        articoloFornitoreService.invalidaDopoScritturaMassiva();
+    }
+
+    /**
+     * Chiavi (partita IVA e numero) delle fatture del blocco già presenti sul database
+     */
+    private Set<String> trovaFattureEsistenti(List<FatturaLetta> blocco) {
+        Set<String> numeri = new HashSet<>();
+        for (FatturaLetta fattura : blocco) {
+            numeri.add(fattura.documento.getNumeroEsterno());
+        }
+        Set<String> esistenti = new HashSet<>();
+        for (Object[] riga : documentoRepository.findNumeriEsterniEsistenti(TIPO, numeri)) {
+            esistenti.add(chiave((String) riga[0], (String) riga[1]));
+        }
+        return esistenti;
+    }
+
+    /**
+     * Trova i fornitori del blocco con un'unica query e crea quelli mancanti
+     */
+    private Map<String, Soggetto> risolviFornitori(List<FatturaLetta> blocco, EsitoImportazione esito) {
+        Map<String, String> ragioniSociali = new LinkedHashMap<>();
+        for (FatturaLetta fattura : blocco) {
+            ragioniSociali.putIfAbsent(fattura.documento.getPartitaIva(), fattura.documento.getRagioneSociale());
+        }
+
+        Map<String, Soggetto> fornitori = new HashMap<>();
+        if (ragioniSociali.isEmpty()) {
+            return fornitori;
+        }
+        for (Soggetto soggetto : soggettoRepository.findByPartitaIvaIn(ragioniSociali.keySet())) {
+            fornitori.putIfAbsent(soggetto.getPartitaIva(), soggetto);
+        }
+        ragioniSociali.forEach((partitaIva, ragioneSociale) -> {
+            if (!fornitori.containsKey(partitaIva)) {
+                SoggettoFornitore fornitore = new SoggettoFornitore();
+                fornitore.setPartitaIva(partitaIva);
+                fornitore.setRagioneSociale(tronca(ragioneSociale, 255));
+                entityManager.persist(fornitore);
+                fornitori.put(partitaIva, fornitore);
+                esito.fornitoriCreati++;
+            }
+        });
+        return fornitori;
+    }
+
+    // ===================== LETTURA FATTURE =====================
+
+    /**
+     * Legge una fattura dal record; eseguito in parallelo, non accede al database
+     */
+    @SuppressWarnings("unchecked")
+    private FatturaLetta leggiFattura(Map<String, Object> record, int riga) {
+        String numero = getString(record, "numero");
+        if (numero == null) {
+            throw new IllegalArgumentException("Numero fattura obbligatorio");
+        }
+        if (numero.length() > 50) {
+            throw new IllegalArgumentException("Numero fattura troppo lungo: " + numero);
+        }
+
+        LocalDate data = parseData(getString(record, "data"));
+        if (data == null) {
+            throw new IllegalArgumentException("Data fattura mancante o non valida");
+        }
+
+        Object fornitoreValue = record.get("fornitore");
+        if (!(fornitoreValue instanceof Map)) {
+            throw new IllegalArgumentException("Dati fornitore mancanti");
+        }
+        Map<String, Object> fornitore = (Map<String, Object>) fornitoreValue;
+        String partitaIva = AnagraficaValidator.pulisciPartitaIva(getString(fornitore, "partitaIva"));
+        ErroreAnagrafica errorePartitaIva = AnagraficaValidator.verificaPartitaIva(partitaIva);
+        if (errorePartitaIva != null) {
+            throw new IllegalArgumentException(errorePartitaIva.getDescrizione() + " per il fornitore");
+        }
+        String ragioneSociale = getString(fornitore, "ragioneSociale");
+        if (ragioneSociale == null) {
+            throw new IllegalArgumentException("Ragione sociale fornitore obbligatoria");
+        }
+        String categoria = getString(fornitore, "categoria");
+
+        Documento documento = new Documento();
+        documento.setTipoDocumento(TIPO);
+        documento.setNumeroEsterno(numero);
+        documento.setDataDocumento(data);
+        documento.setAnno(data.getYear());
+        documento.setDataRegistrazione(parseDataRegistrazione(getString(record, "dataRegistrazione")));
+        documento.setStato(StatoDocumento.EMESSO);
+        documento.setPartitaIva(partitaIva);
+        documento.setRagioneSociale(tronca(ragioneSociale, 255));
+
+        Object destinazione = record.get("destinazione");
+        if (destinazione instanceof Map) {
+            String indirizzo = getString((Map<String, Object>) destinazione, "indirizzo");
+            if (indirizzo != null) {
+                documento.setNoteInterne("Destinazione: " + indirizzo);
+            }
+        }
+
+        List<ArticoloFornitore> prezzi = new ArrayList<>();
+        Object articoli = record.get("articoli");
+        if (articoli instanceof List) {
+            for (Object articolo : (List<Object>) articoli) {
+                if (articolo instanceof Map) {
+                    leggiRiga((Map<String, Object>) articolo, documento, prezzi, ragioneSociale, categoria);
+                }
+            }
+        }
+        if (documento.getRighe().isEmpty()) {
+            throw new IllegalArgumentException(String.format("Fattura %s senza righe", numero));
+        }
+
+        // Stesse verifiche eseguite al salvataggio, anticipate per scartare solo questa fattura
+        documento.ricalcolaTotali();
+        documento.valida();
+
+        return new FatturaLetta(riga, documento, prezzi);
+    }
+
+    /**
+     * Converte un articolo della fattura in una riga documento.
+     * Le righe a quantità zero con importo sono trattate come righe a corpo, quelle senza importo
+     * come descrizione aggiuntiva della riga precedente e quelle negative come abbuono sulla riga precedente.
+     */
+    private void leggiRiga(Map<String, Object> articolo, Documento documento, List<ArticoloFornitore> prezzi,
+                           String ragioneSociale, String categoria) {
+        String codice = getString(articolo, "codice");
+        String descrizione = getString(articolo, "descrizione");
+        BigDecimal quantita = getDecimal(articolo, "quantita");
+        BigDecimal prezzoUnitario = getDecimal(articolo, "prezzoUnitario");
+        BigDecimal importo = getDecimal(articolo, "importo");
+        BigDecimal aliquota = getDecimal(articolo, "aliquotaIVA");
+        List<RigaDocumento> righe = documento.getRighe();
+
+        if (importo.signum() < 0 || prezzoUnitario.signum() < 0) {
+            applicaAbbuono(righe, importo.signum() < 0 ? importo.negate() : prezzoUnitario.negate().multiply(quantita),
+                aliquota, descrizione);
+            return;
+        }
+
+        if (quantita.signum() == 0 && importo.signum() == 0) {
+            if (!righe.isEmpty() && descrizione != null) {
+                RigaDocumento precedente = righe.get(righe.size() - 1);
+                String estesa = precedente.getDescrizioneEstesa();
+                precedente.setDescrizioneEstesa(estesa == null ? descrizione : estesa + "\n" + descrizione);
+            }
+            return;
+        }
+
+        RigaDocumento riga = new RigaDocumento();
+        riga.setRigaNumero(righe.size() + 1);
+        riga.setCodiceArticolo(codice != null ? tronca(codice, 50) : null);
+        riga.setDescrizione(tronca(descrizione != null ? descrizione : (codice != null ? codice : "Riga " + (righe.size() + 1)), 255));
+        if (quantita.signum() == 0) {
+            // Riga a corpo: l'importo diventa il prezzo di una unità
+            riga.setQuantita(BigDecimal.ONE);
+            riga.setPrezzoUnitario(importo);
+        } else {
+            riga.setQuantita(quantita);
+            riga.setPrezzoUnitario(prezzoUnitario);
+        }
+        AliquotaIva aliquotaIva = AliquotaIva.byPercentuale(aliquota.doubleValue());
+        riga.setAliquotaIva(aliquotaIva);
+        riga.setPercentualeIva(BigDecimal.valueOf(aliquotaIva.getPercentuale()));
+        riga.setNaturaIva(aliquotaIva.getNatura());
+        riga.calcolaTotali();
+        riga.setDocumento(documento);
+        righe.add(riga);
+
+        if (codice != null && quantita.signum() > 0 && prezzoUnitario.signum() > 0) {
+            prezzi.add(creaPrezzoFornitore(codice, descrizione, quantita, prezzoUnitario, importo, aliquota,
+                documento, ragioneSociale, categoria));
+        }
+    }
+
+    /**
+     * Applica una riga di abbuono come sconto sull'ultima riga con la stessa aliquota
+     */
+    private void applicaAbbuono(List<RigaDocumento> righe, BigDecimal abbuono, BigDecimal aliquota, String descrizione) {
+        AliquotaIva aliquotaIva = AliquotaIva.byPercentuale(aliquota.doubleValue());
+        for (int i = righe.size() - 1; i >= 0; i--) {
+            RigaDocumento riga = righe.get(i);
+            if (riga.getAliquotaIva() != aliquotaIva) {
+                continue;
+            }
+            boolean senzaSconto = riga.getSconto1() == null || riga.getSconto1().signum() == 0;
+            if (senzaSconto && abbuono.compareTo(riga.getImponibileRiga()) < 0) {
+                riga.setSconto1(abbuono.multiply(CENTO).divide(riga.getImponibileRiga(), 2, RoundingMode.HALF_UP));
+                if (descrizione != null) {
+                    String estesa = riga.getDescrizioneEstesa();
+                    riga.setDescrizioneEstesa(estesa == null ? descrizione : estesa + "\n" + descrizione);
+                }
+                riga.calcolaTotali();
+                return;
+            }
+            break;
+        }
+        throw new IllegalArgumentException(String.format("Abbuono di %s non applicabile a nessuna riga (%s)",
+            abbuono.toPlainString(), descrizione));
+    }
+
+    private ArticoloFornitore creaPrezzoFornitore(String codice, String descrizione, BigDecimal quantita,
+                                                 BigDecimal prezzoUnitario, BigDecimal importo, BigDecimal aliquota,
+                                                 Documento documento, String ragioneSociale, String categoria) {
+        ArticoloFornitore prezzo = new ArticoloFornitore();
+        prezzo.setCodice(tronca(codice, 50));
+        prezzo.setDescrizione(tronca(descrizione != null ? descrizione : codice, 500));
+        prezzo.setQuantita(quantita.doubleValue());
+        prezzo.setPrezzoUnitario(prezzoUnitario.doubleValue());
+        prezzo.setImporto(importo.doubleValue());
+        prezzo.setUnitaMisura(UNITA_MISURA_PREDEFINITA);
+        prezzo.setAliquotaIVA(aliquota.intValue());
+        prezzo.setFornitorePartitaIva(documento.getPartitaIva());
+        prezzo.setFornitoreRagioneSociale(tronca(ragioneSociale, 200));
+        prezzo.setFornitoreCategoria(categoria != null ? tronca(categoria, 100) : null);
+        prezzo.setDataDocumento(documento.getDataDocumento());
+        prezzo.setDataUltimoAggiornamento(LocalDate.now());
+        return prezzo;
+    }
+
+    // ===================== METODI DI UTILITÀ =====================
+
+    private String getString(Map<String, Object> record, String key) {
+        Object value = record.get(key);
+        if (value == null) {
+            return null;
+        }
+        String testo = value.toString().trim();
+        return testo.isEmpty() ? null : testo;
+    }
+
+    private BigDecimal getDecimal(Map<String, Object> record, String key) {
+        Object value = record.get(key);
+        if (value == null) {
+            return BigDecimal.ZERO;
+        }
+        try {
+            return new BigDecimal(value.toString().trim().replace(",", "."));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("Valore non numerico per %s: %s", key, value));
+        }
+    }
+
+    private LocalDate parseData(String data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(data, FORMATO_DATA);
+        } catch (DateTimeParseException e) {
+            try {
+                return LocalDate.parse(data);
+            } catch (DateTimeParseException ex) {
+                return null;
+            }
+        }
+    }
+
+    private LocalDate parseDataRegistrazione(String data) {
+        if (data == null) {
+            return null;
+        }
+        try {
+            return OffsetDateTime.parse(data).toLocalDate();
+        } catch (DateTimeParseException e) {
+            return parseData(data);
+        }
+    }
+
+    private static String tronca(String testo, int lunghezzaMassima) {
+        return testo.length() > lunghezzaMassima ? testo.substring(0, lunghezzaMassima) : testo;
+    }
+
+    private static String chiave(String partitaIva, String numero) {
+        return partitaIva + '|' + numero;
+    }
+
+    /**
+     * Fattura letta dal file, pronta per il salvataggio
+     */
+    private static class FatturaLetta {
+        private final int riga;
+        private final Documento documento;
+        private final List<ArticoloFornitore> prezzi;
+
+        FatturaLetta(int riga, Documento documento, List<ArticoloFornitore> prezzi) {
+            this.riga = riga;
+            this.documento = documento;
+            this.prezzi = prezzi;
+        }
+
+        String chiave() {
+            return ImportFattureService.chiave(documento.getPartitaIva(), documento.getNumeroEsterno());
+        }
+    }
+
+    /**
+     * Contatori dell'importazione
+     */
+    private static class EsitoImportazione {
+        private int fattureImportate;
+        private int fattureGiaPresenti;
+        private int righeCreate;
+        private int fornitoriCreati;
+        private int prezziInseriti;
+        private int prezziAggiornati;
+        private int prezziDuplicati;
+        private int prezziStorico;
+
+        void aggiungi(EsitoImportazione blocco) {
+            fattureImportate += blocco.fattureImportate;
+            fattureGiaPresenti += blocco.fattureGiaPresenti;
+            righeCreate += blocco.righeCreate;
+            fornitoriCreati += blocco.fornitoriCreati;
+            prezziInseriti += blocco.prezziInseriti;
+            prezziAggiornati += blocco.prezziAggiornati;
+            prezziDuplicati += blocco.prezziDuplicati;
+            prezziStorico += blocco.prezziStorico;
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> statistiche = new LinkedHashMap<>();
+            statistiche.put("fattureImportate", fattureImportate);
+            statistiche.put("fattureGiaPresenti", fattureGiaPresenti);
+            statistiche.put("righeCreate", righeCreate);
+            statistiche.put("fornitoriCreati", fornitoriCreati);
+            statistiche.put("prezziInseriti", prezziInseriti);
+            statistiche.put("prezziAggiornati", prezziAggiornati);
+            statistiche.put("prezziDuplicati", prezziDuplicati);
+            statistiche.put("prezziStorico", prezziStorico);
+            return statistiche;
+        }
+    }
+}
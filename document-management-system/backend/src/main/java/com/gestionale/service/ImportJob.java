@@ -0,0 +1,133 @@
+package com.gestionale.service;
+
+import com.gestionale.dto.ImportJobDto;
+import com.gestionale.enums.StatoImportJob;
+import com.gestionale.enums.TipoImport;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Stato di un'importazione eseguita in background.
+ * Aggiornato dal thread del job e letto dalle richieste di stato.
+ * L'ultima riga confermata fa da checkpoint per riprendere un job fallito.
+ */
+public class ImportJob implements ImportProgress {
+
+    private final String id;
+    private final TipoImport tipo;
+    private final String nomeFile;
+    private final LocalDateTime creatoIl;
+    private final Path file;
+    // Rielabora il file anche se risulta già importato
+    private final boolean forza;
+
+    private volatile StatoImportJob stato = StatoImportJob.IN_CODA;
+    private volatile int righeElaborate;
+    private volatile int errori;
+    private volatile int ultimaRigaConfermata;
+    private volatile int rigaIniziale;
+    private volatile String motivoInterruzione;
+    private volatile LocalDateTime avviatoIl;
+    private volatile LocalDateTime completatoIl;
+    private volatile String messaggio;
+    private volatile Object risultato;
+
+    public ImportJob(String id, TipoImport tipo, String nomeFile, Path file, boolean forza) {
+        this.id = id;
+        this.tipo = tipo;
+        this.nomeFile = nomeFile;
+        this.file = file;
+        this.forza = forza;
+        this.creatoIl = LocalDateTime.now();
+    }
+
+    @Override
+    public void aggiorna(int righeElaborate, int errori) {
+        this.righeElaborate = righeElaborate;
+        this.errori = errori;
+    }
+
+    @Override
+    public void bloccoConfermato(int ultimaRiga) {
+        this.ultimaRigaConfermata = ultimaRiga;
+    }
+
+    @Override
+    public void interrotto(String motivo) {
+        this.motivoInterruzione = motivo;
+    }
+
+    void avvia() {
+        this.motivoInterruzione = null;
+        this.messaggio = null;
+        this.risultato = null;
+        this.completatoIl = null;
+        this.rigaIniziale = ultimaRigaConfermata;
+        this.righeElaborate = ultimaRigaConfermata;
+        this.errori = 0;
+        this.avviatoIl = LocalDateTime.now();
+        this.stato = StatoImportJob.IN_ESECUZIONE;
+    }
+
+    void accoda() {
+        this.stato = StatoImportJob.IN_CODA;
+    }
+
+    void completa(Object risultato) {
+        this.risultato = risultato;
+        this.completatoIl = LocalDateTime.now();
+        this.stato = StatoImportJob.COMPLETATO;
+    }
+
+    void fallisci(String messaggio, Object risultato) {
+        this.messaggio = messaggio;
+        this.risultato = risultato;
+        this.completatoIl = LocalDateTime.now();
+        this.stato = StatoImportJob.FALLITO;
+    }
+
+    /**
+     * Righe elaborate al secondo dall'avvio (o dall'ultima ripresa) del job
+     */
+    public double getRighePerSecondo() {
+        LocalDateTime inizio = avviatoIl;
+        if (inizio == null) {
+            return 0;
+        }
+        LocalDateTime fine = completatoIl != null ? completatoIl : LocalDateTime.now();
+        long millis = Math.max(Duration.between(inizio, fine).toMillis(), 1);
+        return (righeElaborate - rigaIniziale) * 1000.0 / millis;
+    }
+
+    /**
+     * Fotografia dello stato corrente del job
+     */
+    public ImportJobDto toDto() {
+        ImportJobDto dto = new ImportJobDto();
+        dto.setId(id);
+        dto.setTipo(tipo);
+        dto.setNomeFile(nomeFile);
+        dto.setStato(stato);
+        dto.setRigheElaborate(righeElaborate);
+        dto.setErrori(errori);
+        dto.setUltimaRigaConfermata(ultimaRigaConfermata);
+        dto.setRighePerSecondo(Math.round(getRighePerSecondo() * 10) / 10.0);
+        dto.setCreatoIl(creatoIl);
+        dto.setAvviatoIl(avviatoIl);
+        dto.setCompletatoIl(completatoIl);
+        dto.setMessaggio(messaggio);
+        dto.setRisultato(risultato);
+        return dto;
+    }
+
+    public String getId() { return id; }
+    public TipoImport getTipo() { return tipo; }
+    public boolean isForza() { return forza; }
+    public StatoImportJob getStato() { return stato; }
+    public LocalDateTime getCompletatoIl() { return completatoIl; }
+    public int getUltimaRigaConfermata() { return ultimaRigaConfermata; }
+    public String getMotivoInterruzione() { return motivoInterruzione; }
+    Path getFile() { return file; }
+}
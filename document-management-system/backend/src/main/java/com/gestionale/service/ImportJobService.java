@@ -0,0 +1,212 @@
+package com.gestionale.service;
+
+import com.gestionale.dto.ImportJobDto;
+import com.gestionale.enums.StatoImportJob;
+import com.gestionale.enums.TipoImport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Esegue le importazioni in background su un pool di thread limitato.
+ * Il file caricato viene copiato su disco, così il job prosegue anche se il client si disconnette,
+ * e viene conservato finché il job non termina correttamente per permetterne la ripresa.
+ */
+@Service
+public class ImportJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportJobService.class);
+
+    @Autowired
+    private ImportService importService;
+
+    @Autowired
+    private ImportFattureService importFattureService;
+
+    @Value("${import.jobs.thread:2}")
+    private int numeroThread;
+
+    @Value("${import.jobs.coda:10}")
+    private int capacitaCoda;
+
+    // Ore per cui lo stato di un job terminato resta consultabile
+    @Value("${import.jobs.conservazione-ore:24}")
+    private long oreConservazione;
+
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger contatore = new AtomicInteger();
+        executor = new ThreadPoolExecutor(numeroThread, numeroThread, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(capacitaCoda),
+            runnable -> {
+                Thread thread = new Thread(runnable, "import-job-" + contatore.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Accoda l'importazione del file e restituisce subito il job creato.
+     * Con forza il file viene rielaborato anche se risulta già importato.
+     * Lancia RejectedExecutionException se la coda dei job è piena.
+     */
+    public ImportJobDto avviaJob(TipoImport tipo, MultipartFile file, boolean forza) throws IOException {
+        rimuoviJobScaduti();
+
+        // L'estensione della copia conserva il formato del file caricato
+        String estensione = ImportRecordReader.rilevaFormato(file).getEstensione();
+        Path copia = Files.createTempFile("import-" + tipo.name().toLowerCase() + "-", estensione);
+        try {
+            file.transferTo(copia);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(copia);
+            throw e;
+        }
+
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), tipo, file.getOriginalFilename(), copia, forza);
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> esegui(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            Files.deleteIfExists(copia);
+            throw e;
+        }
+        return job.toDto();
+    }
+
+    /**
+     * Riprende un job fallito dalla riga successiva all'ultimo blocco confermato.
+     * Restituisce un Optional vuoto se il job non esiste.
+     */
+    public Optional<ImportJobDto> riprendiJob(String id) {
+        ImportJob job = jobs.get(id);
+        if (job == null) {
+            return Optional.empty();
+        }
+        synchronized (job) {
+            if (job.getStato() != StatoImportJob.FALLITO) {
+                throw new IllegalStateException("Solo i job falliti possono essere ripresi");
+            }
+            if (!Files.exists(job.getFile())) {
+                throw new IllegalStateException("Il file del job non è più disponibile");
+            }
+            job.accoda();
+            try {
+                executor.execute(() -> esegui(job));
+            } catch (RejectedExecutionException e) {
+                job.fallisci("Troppe importazioni in corso, riprovare più tardi", null);
+                throw e;
+            }
+        }
+        return Optional.of(job.toDto());
+    }
+
+    /**
+     * Restituisce lo stato di un job
+     */
+    public Optional<ImportJobDto> getJob(String id) {
+        return Optional.ofNullable(jobs.get(id)).map(ImportJob::toDto);
+    }
+
+    /**
+     * Restituisce tutti i job noti, dal più recente
+     */
+    public List<ImportJobDto> getJobs() {
+        return jobs.values().stream()
+            .map(ImportJob::toDto)
+            .sorted(Comparator.comparing(ImportJobDto::getCreatoIl).reversed())
+            .toList();
+    }
+
+    private void esegui(ImportJob job) {
+        int rigaDiRipresa = job.getUltimaRigaConfermata();
+        boolean forza = job.isForza();
+        job.avvia();
+        try {
+            FileSystemResource sorgente = new FileSystemResource(job.getFile());
+            Object risultato;
+            switch (job.getTipo()) {
+                case CLIENTI:
+                    risultato = importService.importClienti(sorgente, false, forza, rigaDiRipresa, job);
+                    break;
+                case ARTICOLI:
+                    risultato = importService.importArticoli(sorgente, false, forza, rigaDiRipresa, job);
+                    break;
+                case FORNITORI:
+                    risultato = importService.importFornitori(sorgente, false, forza, rigaDiRipresa, job);
+                    break;
+                case ARTICOLI_FORNITORI:
+                    risultato = importService.importArticoliFornitori(sorgente, false, forza, rigaDiRipresa, job);
+                    break;
+                case FATTURE_ACQUISTO:
+                    risultato = importFattureService.importFatture(sorgente, forza, rigaDiRipresa, job);
+                    break;
+                default:
+                    throw new IllegalStateException("Tipo di importazione non gestito: " + job.getTipo());
+            }
+            
+            if (job.getMotivoInterruzione() != null) {
+                job.fallisci(String.format("Importazione interrotta dopo la riga %d: %s",
+                    job.getUltimaRigaConfermata(), job.getMotivoInterruzione()), risultato);
+            } else {
+                job.completa(risultato);
+                eliminaFile(job);
+            }
+        } catch (Exception e) {
+            logger.error("Errore nel job di importazione {}", job.getId(), e);
+            job.fallisci(String.format("Errore durante l'importazione dopo la riga %d: %s",
+                job.getUltimaRigaConfermata(), e.getMessage()), null);
+        }
+    }
+
+    private void rimuoviJobScaduti() {
+        LocalDateTime limite = LocalDateTime.now().minusHours(oreConservazione);
+        jobs.values().removeIf(job -> {
+            boolean scaduto = job.getStato().isTerminato() && job.getCompletatoIl().isBefore(limite);
+            if (scaduto) {
+                eliminaFile(job);
+            }
+            return scaduto;
+        });
+    }
+
+    private void eliminaFile(ImportJob job) {
+        try {
+            Files.deleteIfExists(job.getFile());
+        } catch (IOException e) {
+            logger.warn("Impossibile eliminare il file temporaneo {}", job.getFile(), e);
+        }
+    }
+}
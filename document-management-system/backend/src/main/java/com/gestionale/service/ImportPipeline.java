@@ -0,0 +1,194 @@
+package com.gestionale.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pipeline delle importazioni: lettura, validazione e salvataggio sono fasi separate.
+ * La lettura resta sequenziale sul thread chiamante, la validazione dei record viene eseguita
+ * a lotti in parallelo su un pool dedicato e i risultati vengono restituiti nell'ordine del file,
+ * così il salvataggio e il report degli errori mantengono i numeri di riga ordinati.
+ */
+@Service
+public class ImportPipeline {
+
+    // Thread dedicati alla validazione (0 = numero di processori disponibili)
+    @Value("${import.validation.thread:0}")
+    private int numeroThread;
+
+    // Record validati insieme in un singolo lotto
+    @Value("${import.validation.lotto:1000}")
+    private int dimensioneLotto;
+
+    private ForkJoinPool pool;
+
+    @PostConstruct
+    void init() {
+        int parallelismo = numeroThread > 0 ? numeroThread : Runtime.getRuntime().availableProcessors();
+        AtomicInteger contatore = new AtomicInteger();
+        pool = new ForkJoinPool(parallelismo, forkJoinPool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+            thread.setName("import-validazione-" + contatore.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, null, false);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Avvia la validazione dei record letti dal reader, saltando quelli fino a rigaDiRipresa.
+     * Il validatore deve essere privo di stato condiviso perché viene eseguito su più thread.
+     */
+    public <T> RecordValidati<T> avvia(ImportRecordReader reader, int rigaDiRipresa, Validatore<T> validatore) {
+        return new RecordValidati<>(reader, rigaDiRipresa, validatore);
+    }
+
+    /**
+     * Validazione di un singolo record: restituisce il valore mappato e aggiunge gli eventuali errori
+     */
+    @FunctionalInterface
+    public interface Validatore<T> {
+        T valida(Map<String, Object> record, int riga, List<String> errori);
+    }
+
+    /**
+     * Esito della validazione di un record
+     */
+    public static class RecordValidato<T> {
+        private final int riga;
+        private final Map<String, Object> record;
+        private T valore;
+        private List<String> errori = Collections.emptyList();
+        private RuntimeException eccezione;
+
+        RecordValidato(int riga, Map<String, Object> record) {
+            this.riga = riga;
+            this.record = record;
+        }
+
+        void valida(Validatore<T> validatore) {
+            List<String> erroriRecord = new ArrayList<>(0);
+            try {
+                valore = validatore.valida(record, riga, erroriRecord);
+            } catch (RuntimeException e) {
+                eccezione = e;
+            }
+            if (!erroriRecord.isEmpty()) {
+                errori = erroriRecord;
+            }
+        }
+
+        public int getRiga() { return riga; }
+        public Map<String, Object> getRecord() { return record; }
+        public T getValore() { return valore; }
+        public List<String> getErrori() { return errori; }
+
+        /**
+         * Eccezione sollevata dal validatore, null se la validazione è terminata normalmente
+         */
+        public RuntimeException getEccezione() { return eccezione; }
+    }
+
+    /**
+     * Record validati nell'ordine del file. Mentre il chiamante elabora un lotto,
+     * il lotto successivo è già stato letto ed è in validazione sul pool.
+     */
+    public class RecordValidati<T> implements Closeable {
+        private final ImportRecordReader reader;
+        private final int rigaDiRipresa;
+        private final Validatore<T> validatore;
+
+        private Iterator<RecordValidato<T>> correnti = Collections.emptyIterator();
+        private ForkJoinTask<List<RecordValidato<T>>> prossimo;
+        private boolean avviato;
+
+        private RecordValidati(ImportRecordReader reader, int rigaDiRipresa, Validatore<T> validatore) {
+            this.reader = reader;
+            this.rigaDiRipresa = rigaDiRipresa;
+            this.validatore = validatore;
+        }
+
+        public boolean hasNext() throws IOException {
+            if (correnti.hasNext()) {
+                return true;
+            }
+            if (!avviato) {
+                prossimo = avviaLotto();
+                avviato = true;
+            }
+            if (prossimo == null) {
+                return false;
+            }
+            // Il lotto successivo viene letto mentre quello corrente termina la validazione
+            ForkJoinTask<List<RecordValidato<T>>> inValidazione = prossimo;
+            prossimo = avviaLotto();
+            correnti = attendi(inValidazione).iterator();
+            return correnti.hasNext();
+        }
+
+        public RecordValidato<T> next() throws IOException {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return correnti.next();
+        }
+
+        private ForkJoinTask<List<RecordValidato<T>>> avviaLotto() throws IOException {
+            List<RecordValidato<T>> lotto = new ArrayList<>(dimensioneLotto);
+            while (lotto.size() < dimensioneLotto && reader.hasNext()) {
+                Map<String, Object> record = reader.next();
+                int riga = reader.getRowNumber();
+                if (riga > rigaDiRipresa) {
+                    lotto.add(new RecordValidato<>(riga, record));
+                }
+            }
+            if (lotto.isEmpty()) {
+                return null;
+            }
+            // Lo stream parallelo eseguito dentro il pool ne usa i thread; forEach lascia invariato l'ordine della lista
+            return pool.submit(() -> {
+                lotto.parallelStream().forEach(recordValidato -> recordValidato.valida(validatore));
+                return lotto;
+            });
+        }
+
+        private List<RecordValidato<T>> attendi(ForkJoinTask<List<RecordValidato<T>>> lotto) {
+            try {
+                return lotto.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Validazione interrotta", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Errore durante la validazione: " + e.getCause().getMessage(), e.getCause());
+            }
+        }
+
+        @Override
+        public void close() {
+            if (prossimo != null) {
+                prossimo.cancel(false);
+                prossimo = null;
+            }
+        }
+    }
+}
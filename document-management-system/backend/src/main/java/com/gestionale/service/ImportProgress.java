@@ -0,0 +1,30 @@
+package com.gestionale.service;
+
+/**
+ * Riceve l'avanzamento di un'importazione mentre i record vengono elaborati
+ */
+@FunctionalInterface
+public interface ImportProgress {
+
+    /**
+     * Avanzamento da ignorare, usato dalle importazioni sincrone
+     */
+    ImportProgress NESSUNO = (righeElaborate, errori) -> { };
+
+    /**
+     * Comunica il numero di righe elaborate e di errori rilevati finora
+     */
+    void aggiorna(int righeElaborate, int errori);
+
+    /**
+     * Comunica che tutte le righe fino a quella indicata sono state confermate sul database
+     */
+    default void bloccoConfermato(int ultimaRiga) {
+    }
+
+    /**
+     * Comunica che l'importazione si è interrotta per un errore di salvataggio
+     */
+    default void interrotto(String motivo) {
+    }
+}
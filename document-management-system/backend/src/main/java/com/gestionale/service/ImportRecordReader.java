@@ -0,0 +1,159 @@
+package com.gestionale.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.gestionale.enums.FormatoImport;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.core.io.Resource;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * Lettore in streaming dei record di un file di importazione.
+ * I record vengono letti uno alla volta, senza caricare l'intero file in memoria.
+ */
+public class ImportRecordReader implements Closeable {
+
+    private static final TypeReference<Map<String, Object>> RECORD_TYPE = new TypeReference<Map<String, Object>>() {};
+
+    private static final CsvMapper CSV_MAPPER = new CsvMapper();
+
+    private static final String BOM = "\uFEFF";
+
+    // Riga di intestazione obbligatoria, separatore punto e virgola
+    private static final CsvSchema CSV_SCHEMA = CsvSchema.emptySchema()
+        .withHeader()
+        .withColumnSeparator(';');
+
+    private final MappingIterator<Map<String, Object>> iterator;
+    private final UnaryOperator<Map<String, Object>> conversione;
+    private int rowNumber;
+
+    private ImportRecordReader(MappingIterator<Map<String, Object>> iterator, UnaryOperator<Map<String, Object>> conversione) {
+        this.iterator = iterator;
+        this.conversione = conversione;
+    }
+
+    /**
+     * Apre la sorgente nel formato riconosciuto dal nome del file caricato (o dal content type)
+     */
+    public static ImportRecordReader apri(InputStreamSource sorgente, ObjectMapper objectMapper) throws IOException {
+        switch (rilevaFormato(sorgente)) {
+            case NDJSON:
+                return ndjson(sorgente.getInputStream(), objectMapper);
+            case CSV:
+                return csv(sorgente.getInputStream());
+            default:
+                return json(sorgente.getInputStream(), objectMapper);
+        }
+    }
+
+    /**
+     * Formato della sorgente: per i file caricati si usa il nome originale, per le risorse su disco il nome del file
+     */
+    public static FormatoImport rilevaFormato(InputStreamSource sorgente) {
+        if (sorgente instanceof MultipartFile) {
+            MultipartFile file = (MultipartFile) sorgente;
+            return FormatoImport.rileva(file.getOriginalFilename(), file.getContentType());
+        }
+        if (sorgente instanceof Resource) {
+            return FormatoImport.rileva(((Resource) sorgente).getFilename(), null);
+        }
+        return FormatoImport.JSON;
+    }
+
+    /**
+     * Apre un array JSON di oggetti, leggendone gli elementi uno alla volta
+     */
+    public static ImportRecordReader json(InputStream inputStream, ObjectMapper objectMapper) throws IOException {
+        return new ImportRecordReader(objectMapper.readerFor(RECORD_TYPE).readValues(inputStream), UnaryOperator.identity());
+    }
+
+    /**
+     * Apre un file NDJSON, con un oggetto JSON per riga
+     */
+    public static ImportRecordReader ndjson(InputStream inputStream, ObjectMapper objectMapper) throws IOException {
+        // Una sequenza di oggetti alla radice viene letta dallo stesso iteratore usato per gli array
+        return json(inputStream, objectMapper);
+    }
+
+    /**
+     * Apre un file CSV separato da punto e virgola. La riga di intestazione indica il campo di ogni colonna;
+     * le colonne con il punto (es. "fornitore.partitaIva") valorizzano i campi degli oggetti annidati.
+     */
+    public static ImportRecordReader csv(InputStream inputStream) throws IOException {
+        MappingIterator<Map<String, Object>> iterator = CSV_MAPPER.readerFor(RECORD_TYPE)
+            .with(CSV_SCHEMA)
+            .with(CsvParser.Feature.TRIM_SPACES)
+            .readValues(inputStream);
+        return new ImportRecordReader(iterator, ImportRecordReader::daColonne);
+    }
+
+    /**
+     * Verifica se è disponibile un altro record
+     */
+    public boolean hasNext() throws IOException {
+        return iterator.hasNextValue();
+    }
+
+    /**
+     * Legge il prossimo record
+     */
+    public Map<String, Object> next() throws IOException {
+        Map<String, Object> record = conversione.apply(iterator.nextValue());
+        rowNumber++;
+        return record;
+    }
+
+    /**
+     * Numero (1-based) dell'ultimo record letto
+     */
+    public int getRowNumber() {
+        return rowNumber;
+    }
+
+    @Override
+    public void close() throws IOException {
+        iterator.close();
+    }
+
+    /**
+     * Converte le colonne CSV nella struttura dei record JSON: le celle vuote sono considerate assenti
+     * e le intestazioni con il punto diventano oggetti annidati
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> daColonne(Map<String, Object> colonne) {
+        Map<String, Object> record = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> colonna : colonne.entrySet()) {
+            Object valore = colonna.getValue();
+            if (valore == null || valore.toString().isEmpty()) {
+                continue;
+            }
+            String campo = colonna.getKey().trim();
+            if (campo.startsWith(BOM)) {
+                // Intestazione salvata con il BOM UTF-8 (export da Excel)
+                campo = campo.substring(1);
+            }
+            int punto = campo.indexOf('.');
+            if (punto < 0) {
+                record.put(campo, valore);
+            } else {
+                Object annidato = record.computeIfAbsent(campo.substring(0, punto), chiave -> new LinkedHashMap<String, Object>());
+                if (annidato instanceof Map) {
+                    ((Map<String, Object>) annidato).put(campo.substring(punto + 1), valore);
+                }
+            }
+        }
+        return record;
+    }
+}
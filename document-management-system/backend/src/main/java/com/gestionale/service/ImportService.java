@@ -9,14 +9,26 @@ import com.gestionale.dto.ImportArticoliFornitoriResponse;
 import com.gestionale.entity.Cliente;
 import com.gestionale.entity.Articolo;
 import com.gestionale.entity.ArticoloFornitore;
+import com.gestionale.entity.PrezzoArticoloFornitore;
+import com.gestionale.entity.RegistroImport;
+import com.gestionale.enums.TipoImport;
 import com.gestionale.repository.ClienteRepository;
 import com.gestionale.repository.ArticoloRepository;
 import com.gestionale.repository.ArticoloFornitoreRepository;
+import com.gestionale.repository.ArticoloFornitoreRepositoryCustom;
+import com.gestionale.repository.PrezzoArticoloFornitoreRepository;
+import com.gestionale.validation.AnagraficaValidator;
+import com.gestionale.validation.ErroreAnagrafica;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -37,66 +49,144 @@ public class ImportService {
     @Autowired
     private ArticoloFornitoreRepository articoloFornitoreRepository;
 
+    @Autowired
+    private PrezzoArticoloFornitoreRepository prezzoArticoloFornitoreRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ImportPipeline importPipeline;
+
+    @Autowired
+    private RegistroImportService registroImportService;
+
+    @Autowired
+    private ArticoloFornitoreService articoloFornitoreService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
-    // Pattern per validazione Partita IVA italiana
-    private static final Pattern PARTITA_IVA_PATTERN = Pattern.compile("^[0-9]{11}$");
+    // Pattern precompilati per il parsing degli indirizzi
+    private static final Pattern SPAZI_PATTERN = Pattern.compile("\\s+");
+    private static final Pattern INDIRIZZO_FORNITORE_PATTERN = Pattern.compile(
+        "(.+?)\\s+(\\d{5})\\s+([A-Z\\s]+?)\\s+([A-Z]{2})\\s*$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern CAP_PATTERN = Pattern.compile("(\\d{5})");
+
+    // Numero di record confermati in ciascuna transazione, prima di svuotare il contesto di persistenza
+    @Value("${import.chunk-size:500}")
+    private int dimensioneBlocco;
+
+    // Numero massimo di articoli validi restituiti nel dettaglio della risposta
+    private static final int MAX_ARTICOLI_VALIDI_RESTITUITI = 100;
+
+    // Numero massimo di chiavi passate in una singola query IN per la verifica dei duplicati
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+
+    public ImportResultDto importClientiFromJson(MultipartFile file, boolean preview, boolean forza) throws IOException {
+        return importClienti(file, preview, forza, 0, ImportProgress.NESSUNO);
+    }
+
+    /**
+     * Importa i clienti dalla sorgente indicata, confermando ogni blocco di record in una transazione.
+     * Le righe fino a rigaDiRipresa (già confermate in un'esecuzione precedente) vengono saltate.
+     * Con forza il file viene rielaborato anche se risulta già importato.
+     */
+    public ImportResultDto importClienti(InputStreamSource sorgente, boolean preview, boolean forza, int rigaDiRipresa, ImportProgress progress) throws IOException {
+        String hashFile = preview ? null : registroImportService.hashFile(sorgente);
+        RegistroImport importazionePrecedente = trovaImportazionePrecedente(TipoImport.CLIENTI, hashFile, forza, rigaDiRipresa);
+        if (importazionePrecedente != null) {
+            ImportResultDto result = new ImportResultDto(true, registroImportService.messaggioGiaImportato(importazionePrecedente),
+                0, 0, new ArrayList<>());
+            Map<String, Object> stats = new HashMap<>();
+            stats.put("giaImportato", true);
+            stats.put("preview", false);
+            result.setStatistics(stats);
+            return result;
+        }
 
-    @Transactional
-    public ImportResultDto importClientiFromJson(MultipartFile file, boolean preview) throws IOException {
-        List<Map<String, Object>> rawData = parseJsonFile(file);
         List<String> errors = new ArrayList<>();
         List<Cliente> clientiDaSalvare = new ArrayList<>();
         List<Map<String, Object>> previewData = new ArrayList<>();
         
-        int totalRecords = rawData.size();
+        int totalRecords = 0;
         int successfulRecords = 0;
 
-        for (int i = 0; i < rawData.size(); i++) {
-            Map<String, Object> record = rawData.get(i);
-            
-            try {
-                Cliente cliente = mapJsonToCliente(record, i + 1);
+        // Partite IVA già presenti, risolte con un'unica passata sul file
+        Set<String> partiteIvaEsistenti = trovaPartiteIvaEsistenti(sorgente);
+        Set<String> partiteIvaNelFile = new HashSet<>();
+
+        int ultimaRigaConfermata = rigaDiRipresa;
+
+        try (ImportRecordReader reader = openRecordReader(sorgente);
+             ImportPipeline.RecordValidati<Cliente> validati = importPipeline.avvia(reader, rigaDiRipresa, (record, riga, recordErrors) -> {
+                 // Mappatura e validazioni business, eseguite in parallelo
+                 Cliente cliente = mapJsonToCliente(record, riga);
+                 if (cliente != null) {
+                     recordErrors.addAll(validateCliente(cliente, riga));
+                 }
+                 return cliente;
+             })) {
+            while (validati.hasNext()) {
+                ImportPipeline.RecordValidato<Cliente> validato = validati.next();
+                int riga = validato.getRiga();
+                totalRecords++;
                 
-                if (cliente != null) {
-                    // Validazioni business
-                    List<String> recordErrors = validateCliente(cliente, i + 1);
+                if (validato.getEccezione() != null) {
+                    errors.add("Riga " + riga + ": Errore nel parsing - " + validato.getEccezione().getMessage());
+                } else {
+                    Cliente cliente = validato.getValore();
                     
-                    if (recordErrors.isEmpty()) {
-                        // Controlla duplicati
-                        if (!isDuplicateCliente(cliente)) {
-                            clientiDaSalvare.add(cliente);
-                            successfulRecords++;
-                            
-                            // Aggiungi ai dati di preview (primi 10)
-                            if (previewData.size() < 10) {
-                                Map<String, Object> previewRecord = createPreviewRecord(cliente, record);
-                                previewData.add(previewRecord);
+                    if (cliente != null) {
+                        List<String> recordErrors = validato.getErrori();
+                        
+                        if (recordErrors.isEmpty()) {
+                            // Controlla duplicati
+                            if (partiteIvaEsistenti.contains(cliente.getPartitaIva())) {
+                                errors.add("Riga " + riga + ": Cliente già esistente (P.IVA: " + cliente.getPartitaIva() + ")");
+                            } else if (!partiteIvaNelFile.add(cliente.getPartitaIva())) {
+                                errors.add("Riga " + riga + ": Partita IVA duplicata nel file (P.IVA: " + cliente.getPartitaIva() + ")");
+                            } else {
+                                successfulRecords++;
+                                
+                                // Aggiungi ai dati di preview (primi 10)
+                                if (previewData.size() < 10) {
+                                    Map<String, Object> previewRecord = createPreviewRecord(cliente, validato.getRecord());
+                                    previewData.add(previewRecord);
+                                }
+                                
+                                if (!preview) {
+                                    clientiDaSalvare.add(cliente);
+                                }
                             }
                         } else {
-                            errors.add(String.format("Riga %d: Cliente già esistente (P.IVA: %s)", 
-                                i + 1, cliente.getPartitaIva()));
+                            errors.addAll(recordErrors);
                         }
-                    } else {
-                        errors.addAll(recordErrors);
                     }
                 }
-            } catch (Exception e) {
-                errors.add(String.format("Riga %d: Errore nel parsing - %s", i + 1, e.getMessage()));
+                
+                // Salva a blocchi per mantenere limitata la memoria usata
+                if (clientiDaSalvare.size() >= dimensioneBlocco) {
+                    salvaBlocco(clienteRepository, clientiDaSalvare, riga, progress);
+                    ultimaRigaConfermata = riga;
+                }
+                progress.aggiorna(riga, errors.size());
             }
-        }
-
-        // Se non è preview, salva effettivamente i dati
-        if (!preview && !clientiDaSalvare.isEmpty()) {
-            try {
-                clienteRepository.saveAll(clientiDaSalvare);
-            } catch (Exception e) {
-                return new ImportResultDto(false, 
-                    "Errore durante il salvataggio: " + e.getMessage(), 
-                    totalRecords, 0, Arrays.asList(e.getMessage()));
+            
+            if (!clientiDaSalvare.isEmpty()) {
+                salvaBlocco(clienteRepository, clientiDaSalvare, reader.getRowNumber(), progress);
             }
+        } catch (RuntimeException e) {
+            progress.interrotto(e.getMessage());
+            return new ImportResultDto(false, 
+                String.format("Errore durante il salvataggio dopo la riga %d: %s", ultimaRigaConfermata, e.getMessage()), 
+                totalRecords, successfulRecords - clientiDaSalvare.size(), Arrays.asList(e.getMessage()));
         }
 
+        registraImportazione(TipoImport.CLIENTI, hashFile, sorgente, rigaDiRipresa, errors.isEmpty(), totalRecords, successfulRecords);
+
         String message = preview ? 
             String.format("Preview completato: %d/%d record validi", successfulRecords, totalRecords) :
             String.format("Importazione completata: %d/%d record importati", successfulRecords, totalRecords);
@@ -121,7 +211,7 @@ public class ImportService {
     }
 
     public ImportResultDto validateClientiJson(MultipartFile file) throws IOException {
-        return importClientiFromJson(file, true); // Preview mode
+        return importClientiFromJson(file, true, false); // Preview mode
     }
 
     public Map<String, Object> getClientiStructure() {
@@ -157,13 +247,67 @@ public class ImportService {
         return structure;
     }
 
-    private List<Map<String, Object>> parseJsonFile(MultipartFile file) throws IOException {
-        return objectMapper.readValue(file.getInputStream(), new TypeReference<List<Map<String, Object>>>() {});
+    /**
+     * Anteprima di un file JSON: primi record e numero totale, letti in streaming
+     */
+    public Map<String, Object> previewJson(MultipartFile file, String chiaveRecord) throws IOException {
+        List<Map<String, Object>> primiRecord = new ArrayList<>();
+        int totale = 0;
+        try (ImportRecordReader reader = openRecordReader(file)) {
+            while (reader.hasNext()) {
+                Map<String, Object> record = reader.next();
+                if (primiRecord.size() < 10) {
+                    primiRecord.add(record);
+                }
+                totale++;
+            }
+        }
+        return Map.of(chiaveRecord, primiRecord, "total", totale);
+    }
+
+    private ImportRecordReader openRecordReader(InputStreamSource sorgente) throws IOException {
+        return ImportRecordReader.apri(sorgente, objectMapper);
+    }
+
+    /**
+     * Salva un blocco di entità e svuota il contesto di persistenza,
+     * così la memoria usata non cresce con la dimensione del file
+     */
+    private <T> void salvaBlocco(JpaRepository<T, Long> repository, List<T> blocco, int ultimaRiga, ImportProgress progress) {
+        transactionTemplate.executeWithoutResult(status -> {
+            repository.saveAll(blocco);
+            entityManager.flush();
+            entityManager.clear();
+        });
+        blocco.clear();
+        progress.bloccoConfermato(ultimaRiga);
+    }
+
+    /**
+     * Importazione precedente dello stesso file, cercata solo per le nuove importazioni
+     * (non in preview, in ripresa o quando la rielaborazione è forzata)
+     */
+    private RegistroImport trovaImportazionePrecedente(TipoImport tipo, String hashFile, boolean forza, int rigaDiRipresa) {
+        if (hashFile == null || forza || rigaDiRipresa > 0) {
+            return null;
+        }
+        return registroImportService.trovaImportazione(tipo, hashFile).orElse(null);
+    }
+
+    /**
+     * Registra il file solo se è stato importato per intero in questa esecuzione senza errori né righe scartate,
+     * così un file corretto dopo un errore può essere ricaricato
+     */
+    private void registraImportazione(TipoImport tipo, String hashFile, InputStreamSource sorgente, int rigaDiRipresa,
+                                      boolean senzaErrori, int totalRecords, int successfulRecords) {
+        if (hashFile != null && rigaDiRipresa == 0 && senzaErrori) {
+            registroImportService.registraImportazione(tipo, hashFile, sorgente, totalRecords, successfulRecords);
+        }
     }
 
     private Cliente mapJsonToCliente(Map<String, Object> record, int rowNumber) {
         String ragioneSociale = getString(record, "ragioneSociale");
-        String partitaIva = cleanPartitaIva(getString(record, "partitaIva"));
+        String partitaIva = AnagraficaValidator.pulisciPartitaIva(getString(record, "partitaIva"));
 
         if (ragioneSociale == null || ragioneSociale.trim().isEmpty()) {
             throw new IllegalArgumentException("Ragione sociale obbligatoria");
@@ -183,6 +327,11 @@ public class ImportService {
             parseIndirizzo(cliente, indirizzo);
         }
 
+        String codiceFiscale = getString(record, "codiceFiscale");
+        if (codiceFiscale != null && !codiceFiscale.trim().isEmpty()) {
+            cliente.setCodiceFiscale(codiceFiscale.trim().toUpperCase());
+        }
+
         String email = getString(record, "email");
         if (email != null && !email.trim().isEmpty()) {
             cliente.setEmail(email.trim());
@@ -224,9 +373,9 @@ public class ImportService {
         if (parti.length >= 2) {
             String secondaParte = parti[1].trim();
             // Estrai CAP, città e provincia
-            String[] tokens = secondaParte.split("\\s+");
+            String[] tokens = SPAZI_PATTERN.split(secondaParte);
             
-            if (tokens.length >= 1 && tokens[0].matches("\\d{5}")) {
+            if (tokens.length >= 1 && AnagraficaValidator.isCapValido(tokens[0])) {
                 cliente.setCap(tokens[0]);
             }
             
@@ -244,7 +393,7 @@ public class ImportService {
                 // Ultimo token per la provincia
                 if (tokens.length > 2) {
                     String lastToken = tokens[tokens.length - 1];
-                    if (lastToken.length() == 2) {
+                    if (AnagraficaValidator.isProvinciaValida(lastToken)) {
                         cliente.setProvincia(lastToken);
                     } else if (citta.length() == 0) {
                         cliente.setCitta(lastToken);
@@ -259,26 +408,67 @@ public class ImportService {
     private List<String> validateCliente(Cliente cliente, int rowNumber) {
         List<String> errors = new ArrayList<>();
 
-        // Validazione Partita IVA
-        if (!isValidPartitaIva(cliente.getPartitaIva())) {
-            errors.add(String.format("Riga %d: Partita IVA non valida (%s)", rowNumber, cliente.getPartitaIva()));
+        // Validazione Partita IVA (formato e cifra di controllo)
+        ErroreAnagrafica errorePartitaIva = AnagraficaValidator.verificaPartitaIva(cliente.getPartitaIva());
+        if (errorePartitaIva != null) {
+            errors.add(errorePartitaIva.messaggio(rowNumber, cliente.getPartitaIva()));
+        }
+
+        // Validazione codice fiscale se presente
+        if (cliente.getCodiceFiscale() != null) {
+            ErroreAnagrafica erroreCodiceFiscale = AnagraficaValidator.verificaCodiceFiscale(cliente.getCodiceFiscale());
+            if (erroreCodiceFiscale != null) {
+                errors.add(erroreCodiceFiscale.messaggio(rowNumber, cliente.getCodiceFiscale()));
+            }
         }
 
         // Validazione email se presente
-        if (cliente.getEmail() != null && !isValidEmail(cliente.getEmail())) {
-            errors.add(String.format("Riga %d: Email non valida (%s)", rowNumber, cliente.getEmail()));
+        if (cliente.getEmail() != null && !AnagraficaValidator.isEmailValida(cliente.getEmail())) {
+            errors.add(ErroreAnagrafica.EMAIL_NON_VALIDA.messaggio(rowNumber, cliente.getEmail()));
         }
 
         // Validazione lunghezza campi
         if (cliente.getRagioneSociale().length() > 255) {
-            errors.add(String.format("Riga %d: Ragione sociale troppo lunga (max 255 caratteri)", rowNumber));
+            errors.add("Riga " + rowNumber + ": Ragione sociale troppo lunga (max 255 caratteri)");
         }
 
         return errors;
     }
 
-    private boolean isDuplicateCliente(Cliente cliente) {
-        return clienteRepository.existsByPartitaIva(cliente.getPartitaIva());
+    /**
+     * Legge le Partite IVA presenti nel file e restituisce quelle già registrate,
+     * così da verificare i duplicati in memoria invece che con una query per record
+     */
+    private Set<String> trovaPartiteIvaEsistenti(InputStreamSource sorgente) throws IOException {
+        Set<String> partiteIva = new HashSet<>();
+        try (ImportRecordReader reader = openRecordReader(sorgente)) {
+            while (reader.hasNext()) {
+                String partitaIva = AnagraficaValidator.pulisciPartitaIva(getString(reader.next(), "partitaIva"));
+                if (partitaIva != null && !partitaIva.isEmpty()) {
+                    partiteIva.add(partitaIva);
+                }
+            }
+        }
+        return risolviPartiteIvaEsistenti(partiteIva);
+    }
+
+    /**
+     * Verifica a blocchi quali Partite IVA sono già registrate
+     */
+    private Set<String> risolviPartiteIvaEsistenti(Collection<String> partiteIva) {
+        Set<String> esistenti = new HashSet<>();
+        List<String> blocco = new ArrayList<>(Math.min(partiteIva.size(), LOOKUP_CHUNK_SIZE));
+        for (String partitaIva : partiteIva) {
+            blocco.add(partitaIva);
+            if (blocco.size() == LOOKUP_CHUNK_SIZE) {
+                esistenti.addAll(clienteRepository.findPartiteIvaEsistenti(blocco));
+                blocco.clear();
+            }
+        }
+        if (!blocco.isEmpty()) {
+            esistenti.addAll(clienteRepository.findPartiteIvaEsistenti(blocco));
+        }
+        return esistenti;
     }
 
     private Map<String, Object> createPreviewRecord(Cliente cliente, Map<String, Object> originalRecord) {
@@ -301,62 +491,97 @@ public class ImportService {
         return preview;
     }
 
-    @Transactional
-    public ImportArticoliResponse importArticoliFromJson(MultipartFile file, boolean preview) throws IOException {
-        List<Map<String, Object>> rawData = parseJsonFile(file);
+    public ImportArticoliResponse importArticoliFromJson(MultipartFile file, boolean preview, boolean forza) throws IOException {
+        return importArticoli(file, preview, forza, 0, ImportProgress.NESSUNO);
+    }
+
+    /**
+     * Importa gli articoli dalla sorgente indicata, confermando ogni blocco di record in una transazione.
+     * Le righe fino a rigaDiRipresa (già confermate in un'esecuzione precedente) vengono saltate.
+     * Con forza il file viene rielaborato anche se risulta già importato.
+     */
+    public ImportArticoliResponse importArticoli(InputStreamSource sorgente, boolean preview, boolean forza, int rigaDiRipresa, ImportProgress progress) throws IOException {
+        String hashFile = preview ? null : registroImportService.hashFile(sorgente);
+        RegistroImport importazionePrecedente = trovaImportazionePrecedente(TipoImport.ARTICOLI, hashFile, forza, rigaDiRipresa);
+        if (importazionePrecedente != null) {
+            return new ImportArticoliResponse(true, 0, 0, 0, new ArrayList<>(),
+                registroImportService.messaggioGiaImportato(importazionePrecedente));
+        }
+
         List<String> errors = new ArrayList<>();
         List<Articolo> articoliDaSalvare = new ArrayList<>();
         Set<String> codiciProcessati = new HashSet<>();
         
-        int totalRecords = rawData.size();
+        int totalRecords = 0;
         int successfulRecords = 0;
 
-        for (int i = 0; i < rawData.size(); i++) {
-            Map<String, Object> record = rawData.get(i);
-            
-            try {
-                Articolo articolo = mapJsonToArticolo(record, i + 1);
+        int ultimaRigaConfermata = rigaDiRipresa;
+
+        try (ImportRecordReader reader = openRecordReader(sorgente);
+             ImportPipeline.RecordValidati<Articolo> validati = importPipeline.avvia(reader, rigaDiRipresa, (record, riga, recordErrors) -> {
+                 // Mappatura e validazioni business, eseguite in parallelo
+                 Articolo articolo = mapJsonToArticolo(record, riga);
+                 if (articolo != null) {
+                     recordErrors.addAll(validateArticolo(articolo, riga));
+                 }
+                 return articolo;
+             })) {
+            while (validati.hasNext()) {
+                ImportPipeline.RecordValidato<Articolo> validato = validati.next();
+                int riga = validato.getRiga();
+                totalRecords++;
                 
-                if (articolo != null) {
-                    // Validazioni business
-                    List<String> recordErrors = validateArticolo(articolo, i + 1);
+                if (validato.getEccezione() != null) {
+                    errors.add("Riga " + riga + ": Errore nel parsing - " + validato.getEccezione().getMessage());
+                } else {
+                    Articolo articolo = validato.getValore();
                     
-                    if (recordErrors.isEmpty()) {
-                        // Controlla duplicati nel file corrente
-                        if (!codiciProcessati.contains(articolo.getCodice())) {
-                            // Controlla duplicati nel database
-                            if (!isDuplicateArticolo(articolo)) {
-                                articoliDaSalvare.add(articolo);
-                                codiciProcessati.add(articolo.getCodice());
-                                successfulRecords++;
+                    if (articolo != null) {
+                        List<String> recordErrors = validato.getErrori();
+                        
+                        if (recordErrors.isEmpty()) {
+                            // Controlla duplicati nel file corrente
+                            if (!codiciProcessati.contains(articolo.getCodice())) {
+                                // Controlla duplicati nel database
+                                if (!isDuplicateArticolo(articolo)) {
+                                    codiciProcessati.add(articolo.getCodice());
+                                    successfulRecords++;
+                                    if (!preview) {
+                                        articoliDaSalvare.add(articolo);
+                                    }
+                                } else {
+                                    errors.add("Riga " + riga + ": Articolo già esistente (Codice: " + articolo.getCodice() + ")");
+                                }
                             } else {
-                                errors.add(String.format("Riga %d: Articolo già esistente (Codice: %s)", 
-                                    i + 1, articolo.getCodice()));
+                                errors.add("Riga " + riga + ": Codice articolo duplicato nel file (Codice: " + articolo.getCodice() + ")");
                             }
                         } else {
-                            errors.add(String.format("Riga %d: Codice articolo duplicato nel file (Codice: %s)", 
-                                i + 1, articolo.getCodice()));
+                            errors.addAll(recordErrors);
                         }
-                    } else {
-                        errors.addAll(recordErrors);
                     }
                 }
-            } catch (Exception e) {
-                errors.add(String.format("Riga %d: Errore nel parsing - %s", i + 1, e.getMessage()));
+                
+                // Salva a blocchi per mantenere limitata la memoria usata
+                if (articoliDaSalvare.size() >= dimensioneBlocco) {
+                    salvaBlocco(articoloRepository, articoliDaSalvare, riga, progress);
+                    ultimaRigaConfermata = riga;
+                }
+                progress.aggiorna(riga, errors.size());
             }
-        }
-
-        // Se non è preview, salva effettivamente i dati
-        if (!preview && !articoliDaSalvare.isEmpty()) {
-            try {
-                articoloRepository.saveAll(articoliDaSalvare);
-            } catch (Exception e) {
-                return new ImportArticoliResponse(false, totalRecords, 0, totalRecords,
-                    Arrays.asList("Errore durante il salvataggio: " + e.getMessage()),
-                    "Errore durante il salvataggio");
+            
+            if (!articoliDaSalvare.isEmpty()) {
+                salvaBlocco(articoloRepository, articoliDaSalvare, reader.getRowNumber(), progress);
             }
+        } catch (RuntimeException e) {
+            progress.interrotto(e.getMessage());
+            int confermati = successfulRecords - articoliDaSalvare.size();
+            return new ImportArticoliResponse(false, totalRecords, confermati, totalRecords - confermati,
+                Arrays.asList("Errore durante il salvataggio: " + e.getMessage()),
+                String.format("Errore durante il salvataggio dopo la riga %d", ultimaRigaConfermata));
         }
 
+        registraImportazione(TipoImport.ARTICOLI, hashFile, sorgente, rigaDiRipresa, errors.isEmpty(), totalRecords, successfulRecords);
+
         String message = preview ? 
             String.format("Preview completato: %d/%d record validi", successfulRecords, totalRecords) :
             String.format("Importazione completata: %d/%d record importati", successfulRecords, totalRecords);
@@ -372,7 +597,7 @@ public class ImportService {
     }
 
     public ImportArticoliResponse validateArticoliJson(MultipartFile file) throws IOException {
-        return importArticoliFromJson(file, true); // Preview mode
+        return importArticoliFromJson(file, true, false); // Preview mode
     }
 
     public Map<String, Object> getArticoliStructure() {
@@ -483,30 +708,30 @@ public class ImportService {
         
         // Validazione codice
         if (articolo.getCodice() == null || articolo.getCodice().trim().isEmpty()) {
-            errors.add(String.format("Riga %d: Codice articolo obbligatorio", rowNumber));
+            errors.add("Riga " + rowNumber + ": Codice articolo obbligatorio");
         } else if (articolo.getCodice().length() > 50) {
-            errors.add(String.format("Riga %d: Codice articolo troppo lungo (max 50 caratteri)", rowNumber));
+            errors.add("Riga " + rowNumber + ": Codice articolo troppo lungo (max 50 caratteri)");
         }
         
         // Validazione descrizione
         if (articolo.getDescrizione() == null || articolo.getDescrizione().trim().isEmpty()) {
-            errors.add(String.format("Riga %d: Descrizione articolo obbligatoria", rowNumber));
+            errors.add("Riga " + rowNumber + ": Descrizione articolo obbligatoria");
         } else if (articolo.getDescrizione().length() > 255) {
-            errors.add(String.format("Riga %d: Descrizione troppo lunga (max 255 caratteri)", rowNumber));
+            errors.add("Riga " + rowNumber + ": Descrizione troppo lunga (max 255 caratteri)");
         }
         
         // Validazione prezzo
         if (articolo.getPrezzo() == null) {
-            errors.add(String.format("Riga %d: Prezzo obbligatorio", rowNumber));
+            errors.add("Riga " + rowNumber + ": Prezzo obbligatorio");
         } else if (articolo.getPrezzo().compareTo(BigDecimal.ZERO) < 0) {
-            errors.add(String.format("Riga %d: Prezzo non può essere negativo", rowNumber));
+            errors.add("Riga " + rowNumber + ": Prezzo non può essere negativo");
         }
         
         // Validazione aliquota IVA
         if (articolo.getAliquotaIva() != null && 
             (articolo.getAliquotaIva().compareTo(BigDecimal.ZERO) < 0 || 
              articolo.getAliquotaIva().compareTo(new BigDecimal("100")) > 0)) {
-            errors.add(String.format("Riga %d: Aliquota IVA deve essere tra 0 e 100", rowNumber));
+            errors.add("Riga " + rowNumber + ": Aliquota IVA deve essere tra 0 e 100");
         }
         
         return errors;
@@ -538,72 +763,102 @@ public class ImportService {
         return value != null ? value.toString() : null;
     }
 
-    private String cleanPartitaIva(String partitaIva) {
-        if (partitaIva == null) return null;
-        return partitaIva.replaceAll("[^0-9]", "");
-    }
 
-    private boolean isValidPartitaIva(String partitaIva) {
-        return partitaIva != null && PARTITA_IVA_PATTERN.matcher(partitaIva).matches();
+    public ImportFornitoriResponse importFornitoriFromJson(MultipartFile file, boolean preview, boolean forza) throws IOException {
+        return importFornitori(file, preview, forza, 0, ImportProgress.NESSUNO);
     }
 
-    private boolean isValidEmail(String email) {
-        return email != null && email.contains("@") && email.contains(".");
-    }
+    /**
+     * Importa i fornitori dalla sorgente indicata, confermando ogni blocco di record in una transazione.
+     * Le righe fino a rigaDiRipresa (già confermate in un'esecuzione precedente) vengono saltate.
+     * Con forza il file viene rielaborato anche se risulta già importato.
+     */
+    public ImportFornitoriResponse importFornitori(InputStreamSource sorgente, boolean preview, boolean forza, int rigaDiRipresa, ImportProgress progress) throws IOException {
+        String hashFile = preview ? null : registroImportService.hashFile(sorgente);
+        RegistroImport importazionePrecedente = trovaImportazionePrecedente(TipoImport.FORNITORI, hashFile, forza, rigaDiRipresa);
+        if (importazionePrecedente != null) {
+            return new ImportFornitoriResponse(true, 0, 0, 0, new ArrayList<>(),
+                registroImportService.messaggioGiaImportato(importazionePrecedente));
+        }
 
-    @Transactional
-    public ImportFornitoriResponse importFornitoriFromJson(MultipartFile file, boolean preview) throws IOException {
-        List<Map<String, Object>> rawData = parseJsonFile(file);
         List<String> errors = new ArrayList<>();
         List<Cliente> fornitoriDaSalvare = new ArrayList<>();
         
-        int totalRecords = rawData.size();
+        int totalRecords = 0;
         int successfulRecords = 0;
 
-        for (int i = 0; i < rawData.size(); i++) {
-            Map<String, Object> record = rawData.get(i);
-            
-            try {
-                Cliente fornitore = mapJsonToFornitore(record, i + 1);
+        // Partite IVA già presenti, risolte con un'unica passata sul file
+        Set<String> partiteIvaEsistenti = trovaPartiteIvaEsistenti(sorgente);
+        Set<String> partiteIvaNelFile = new HashSet<>();
+
+        int ultimaRigaConfermata = rigaDiRipresa;
+
+        try (ImportRecordReader reader = openRecordReader(sorgente);
+             ImportPipeline.RecordValidati<Cliente> validati = importPipeline.avvia(reader, rigaDiRipresa, (record, riga, recordErrors) -> {
+                 // Mappatura e validazioni business, eseguite in parallelo
+                 Cliente fornitore = mapJsonToFornitore(record, riga);
+                 if (fornitore != null) {
+                     recordErrors.addAll(validateFornitore(fornitore, riga));
+                 }
+                 return fornitore;
+             })) {
+            while (validati.hasNext()) {
+                ImportPipeline.RecordValidato<Cliente> validato = validati.next();
+                int riga = validato.getRiga();
+                totalRecords++;
                 
-                if (fornitore != null) {
-                    // Validazioni business
-                    List<String> recordErrors = validateFornitore(fornitore, i + 1);
+                if (validato.getEccezione() != null) {
+                    errors.add("Riga " + riga + ": Errore nel parsing - " + validato.getEccezione().getMessage());
+                } else {
+                    Cliente fornitore = validato.getValore();
                     
-                    if (recordErrors.isEmpty()) {
-                        // Controlla duplicati
-                        if (!isDuplicateFornitore(fornitore)) {
-                            fornitoriDaSalvare.add(fornitore);
-                            successfulRecords++;
+                    if (fornitore != null) {
+                        List<String> recordErrors = validato.getErrori();
+                        
+                        if (recordErrors.isEmpty()) {
+                            // Controlla duplicati
+                            if (partiteIvaEsistenti.contains(fornitore.getPartitaIva())) {
+                                errors.add("Riga " + riga + ": Fornitore già esistente (P.IVA: " + fornitore.getPartitaIva() + ")");
+                            } else if (!partiteIvaNelFile.add(fornitore.getPartitaIva())) {
+                                errors.add("Riga " + riga + ": Partita IVA duplicata nel file (P.IVA: " + fornitore.getPartitaIva() + ")");
+                            } else {
+                                successfulRecords++;
+                                if (!preview) {
+                                    fornitoriDaSalvare.add(fornitore);
+                                }
+                            }
                         } else {
-                            errors.add(String.format("Riga %d: Fornitore già esistente (P.IVA: %s)", 
-                                i + 1, fornitore.getPartitaIva()));
+                            errors.addAll(recordErrors);
                         }
-                    } else {
-                        errors.addAll(recordErrors);
                     }
                 }
-            } catch (Exception e) {
-                errors.add(String.format("Riga %d: Errore nel parsing - %s", i + 1, e.getMessage()));
+                
+                // Salva a blocchi per mantenere limitata la memoria usata
+                if (fornitoriDaSalvare.size() >= dimensioneBlocco) {
+                    salvaBlocco(clienteRepository, fornitoriDaSalvare, riga, progress);
+                    ultimaRigaConfermata = riga;
+                }
+                progress.aggiorna(riga, errors.size());
             }
-        }
-
-        // Se non è preview, salva effettivamente i dati
-        if (!preview && !fornitoriDaSalvare.isEmpty()) {
-            try {
-                clienteRepository.saveAll(fornitoriDaSalvare);
-            } catch (Exception e) {
-                return new ImportFornitoriResponse(false, totalRecords, 0, totalRecords,
-                    Arrays.asList("Errore durante il salvataggio: " + e.getMessage()),
-                    "Errore durante il salvataggio");
+            
+            if (!fornitoriDaSalvare.isEmpty()) {
+                salvaBlocco(clienteRepository, fornitoriDaSalvare, reader.getRowNumber(), progress);
             }
+        } catch (RuntimeException e) {
+            progress.interrotto(e.getMessage());
+            int confermati = successfulRecords - fornitoriDaSalvare.size();
+            return new ImportFornitoriResponse(false, totalRecords, confermati, totalRecords - confermati,
+                Arrays.asList("Errore durante il salvataggio: " + e.getMessage()),
+                String.format("Errore durante il salvataggio dopo la riga %d", ultimaRigaConfermata));
         }
 
+        registraImportazione(TipoImport.FORNITORI, hashFile, sorgente, rigaDiRipresa, errors.isEmpty(), totalRecords, successfulRecords);
+
         String message = preview ? 
             String.format("Preview completato: %d/%d record validi", successfulRecords, totalRecords) :
             String.format("Importazione completata: %d/%d record importati", successfulRecords, totalRecords);
 
-        return new ImportFornitoriResponse(
+        ImportFornitoriResponse response = new ImportFornitoriResponse(
             errors.isEmpty() || successfulRecords > 0,
             totalRecords,
             successfulRecords,
@@ -611,10 +866,14 @@ public class ImportService {
             errors,
             message
         );
+        response.setTotaleFornitoriElaborati(totalRecords);
+        response.setFornitoriImportati(successfulRecords);
+        response.setFornitoriConErrori(totalRecords - successfulRecords);
+        return response;
     }
 
     public ImportFornitoriResponse validateFornitoriJson(MultipartFile file) throws IOException {
-        return importFornitoriFromJson(file, true); // Preview mode
+        return importFornitoriFromJson(file, true, false); // Preview mode
     }
 
     public Map<String, Object> getFornitoriStructure() {
@@ -652,7 +911,7 @@ public class ImportService {
 
     private Cliente mapJsonToFornitore(Map<String, Object> record, int rowNumber) {
         String ragioneSociale = getString(record, "ragioneSociale");
-        String partitaIva = cleanPartitaIva(getString(record, "partitaIva"));
+        String partitaIva = AnagraficaValidator.pulisciPartitaIva(getString(record, "partitaIva"));
         
         if (ragioneSociale == null || ragioneSociale.trim().isEmpty()) {
             return null;
@@ -686,6 +945,11 @@ public class ImportService {
             fornitore.setCap(indirizzoComponents.get("cap"));
         }
         
+        String codiceFiscale = getString(record, "codiceFiscale");
+        if (codiceFiscale != null && !codiceFiscale.trim().isEmpty()) {
+            fornitore.setCodiceFiscale(codiceFiscale.trim().toUpperCase());
+        }
+        
         // Contatti
         String email = getString(record, "email");
         if (email != null && !email.trim().isEmpty()) {
@@ -718,11 +982,9 @@ public class ImportService {
             return result;
         }
         
-        // Pattern per riconoscere CAP (5 cifre), Provincia (2 lettere), Città
+        // Riconosce CAP (5 cifre), Città e Provincia (2 lettere)
         // Esempio: "VIA ROMA 123  20100 MILANO  MI"
-        String indirizzoPattern = "(.+?)\\s+(\\d{5})\\s+([A-Z\\s]+?)\\s+([A-Z]{2})\\s*$";
-        java.util.regex.Pattern pattern = java.util.regex.Pattern.compile(indirizzoPattern, java.util.regex.Pattern.CASE_INSENSITIVE);
-        java.util.regex.Matcher matcher = pattern.matcher(indirizzo.trim());
+        java.util.regex.Matcher matcher = INDIRIZZO_FORNITORE_PATTERN.matcher(indirizzo.trim());
         
         if (matcher.find()) {
             result.put("cap", matcher.group(2));
@@ -730,8 +992,7 @@ public class ImportService {
             result.put("provincia", matcher.group(4).trim().toUpperCase());
         } else {
             // Fallback: cerca solo il CAP
-            java.util.regex.Pattern capPattern = java.util.regex.Pattern.compile("(\\d{5})");
-            java.util.regex.Matcher capMatcher = capPattern.matcher(indirizzo);
+            java.util.regex.Matcher capMatcher = CAP_PATTERN.matcher(indirizzo);
             if (capMatcher.find()) {
                 result.put("cap", capMatcher.group(1));
             }
@@ -745,32 +1006,35 @@ public class ImportService {
         
         // Validazione ragione sociale
         if (fornitore.getRagioneSociale() == null || fornitore.getRagioneSociale().trim().isEmpty()) {
-            errors.add(String.format("Riga %d: Ragione sociale obbligatoria", rowNumber));
+            errors.add("Riga " + rowNumber + ": Ragione sociale obbligatoria");
         } else if (fornitore.getRagioneSociale().length() > 255) {
-            errors.add(String.format("Riga %d: Ragione sociale troppo lunga (max 255 caratteri)", rowNumber));
+            errors.add("Riga " + rowNumber + ": Ragione sociale troppo lunga (max 255 caratteri)");
         }
         
-        // Validazione partita IVA
-        if (fornitore.getPartitaIva() == null || fornitore.getPartitaIva().trim().isEmpty()) {
-            errors.add(String.format("Riga %d: Partita IVA obbligatoria", rowNumber));
-        } else if (!PARTITA_IVA_PATTERN.matcher(fornitore.getPartitaIva()).matches()) {
-            errors.add(String.format("Riga %d: Partita IVA non valida (deve essere di 11 cifre)", rowNumber));
+        // Validazione partita IVA (formato e cifra di controllo)
+        ErroreAnagrafica errorePartitaIva = AnagraficaValidator.verificaPartitaIva(fornitore.getPartitaIva());
+        if (errorePartitaIva != null) {
+            errors.add(errorePartitaIva.messaggio(rowNumber, fornitore.getPartitaIva()));
+        }
+        
+        // Validazione codice fiscale se presente
+        if (fornitore.getCodiceFiscale() != null) {
+            ErroreAnagrafica erroreCodiceFiscale = AnagraficaValidator.verificaCodiceFiscale(fornitore.getCodiceFiscale());
+            if (erroreCodiceFiscale != null) {
+                errors.add(erroreCodiceFiscale.messaggio(rowNumber, fornitore.getCodiceFiscale()));
+            }
         }
         
         // Validazione email
         if (fornitore.getEmail() != null && !fornitore.getEmail().isEmpty()) {
-            if (!isValidEmail(fornitore.getEmail())) {
-                errors.add(String.format("Riga %d: Email non valida", rowNumber));
+            if (!AnagraficaValidator.isEmailValida(fornitore.getEmail())) {
+                errors.add(ErroreAnagrafica.EMAIL_NON_VALIDA.messaggio(rowNumber, fornitore.getEmail()));
             }
         }
         
         return errors;
     }
 
-    private boolean isDuplicateFornitore(Cliente fornitore) {
-        return clienteRepository.findByPartitaIva(fornitore.getPartitaIva()).isPresent();
-    }
-
     // Métodos per importare fornitori
     public List<Map<String, Object>> parseFornitori(String jsonContent) {
         try {
@@ -801,7 +1065,7 @@ public class ImportService {
             }
             
             // Validazione partita IVA italiana (11 cifre)
-            if (!partitaIva.matches("\\d{11}")) {
+            if (AnagraficaValidator.verificaPartitaIva(partitaIva) == ErroreAnagrafica.PARTITA_IVA_FORMATO) {
                 errori.add("Riga " + (i + 1) + ": Partita IVA non valida (deve essere di 11 cifre): " + partitaIva);
                 continue;
             }
@@ -829,12 +1093,19 @@ public class ImportService {
         List<String> duplicati = new ArrayList<>();
         List<String> erroriImport = new ArrayList<>();
         
+        // Verifica duplicati a blocchi, prima dell'importazione
+        Set<String> partiteIva = new HashSet<>();
+        for (Map<String, Object> fornitoreData : response.getFornitoriValidi()) {
+            partiteIva.add((String) fornitoreData.get("partitaIva"));
+        }
+        Set<String> partiteIvaEsistenti = risolviPartiteIvaEsistenti(partiteIva);
+        
         for (Map<String, Object> fornitoreData : response.getFornitoriValidi()) {
             try {
                 String partitaIva = (String) fornitoreData.get("partitaIva");
                 
-                // Verifica duplicati
-                if (clienteRepository.existsByPartitaIva(partitaIva)) {
+                // Verifica duplicati (anche ripetuti nello stesso file)
+                if (!partiteIvaEsistenti.add(partitaIva)) {
                     duplicati.add("Fornitore con P.IVA " + partitaIva + " già esistente");
                     continue;
                 }
@@ -899,7 +1170,7 @@ public class ImportService {
         }
         
         // Parsing dell'indirizzo nel formato "VIA/PIAZZA NOME  CAP CITTA  PROVINCIA"
-        String[] parti = indirizzoCompleto.trim().split("\\s+");
+        String[] parti = SPAZI_PATTERN.split(indirizzoCompleto.trim());
         
         if (parti.length >= 3) {
             StringBuilder via = new StringBuilder();
@@ -910,7 +1181,7 @@ public class ImportService {
             // Cerca il CAP (5 cifre consecutive)
             int capIndex = -1;
             for (int i = 0; i < parti.length; i++) {
-                if (parti[i].matches("\\d{5}")) {
+                if (AnagraficaValidator.isCapValido(parti[i])) {
                     cap = parti[i];
                     capIndex = i;
                     break;
@@ -952,14 +1223,39 @@ public class ImportService {
     
     // ===================== ARTICOLI FORNITORI IMPORT =====================
     
-    @Transactional
-    public ImportArticoliFornitoriResponse importArticoliFornitoriFromJson(MultipartFile file, boolean preview) throws IOException {
-        List<Map<String, Object>> rawData = parseJsonFile(file);
-        return processArticoliFornitori(rawData, preview);
+    public ImportArticoliFornitoriResponse importArticoliFornitoriFromJson(MultipartFile file, boolean preview, boolean forza) throws IOException {
+        return importArticoliFornitori(file, preview, forza, 0, ImportProgress.NESSUNO);
+    }
+    
+    /**
+     * Importa gli articoli fornitori dalla sorgente indicata, confermando ogni blocco di record in una transazione.
+     * Le righe fino a rigaDiRipresa (già confermate in un'esecuzione precedente) vengono saltate.
+     * Con forza il file viene rielaborato anche se risulta già importato.
+     */
+    public ImportArticoliFornitoriResponse importArticoliFornitori(InputStreamSource sorgente, boolean preview, boolean forza, int rigaDiRipresa, ImportProgress progress) throws IOException {
+        String hashFile = preview ? null : registroImportService.hashFile(sorgente);
+        RegistroImport importazionePrecedente = trovaImportazionePrecedente(TipoImport.ARTICOLI_FORNITORI, hashFile, forza, rigaDiRipresa);
+        if (importazionePrecedente != null) {
+            ImportArticoliFornitoriResponse response = new ImportArticoliFornitoriResponse();
+            response.setFileGiaImportato(true);
+            response.setArticoliInvariati(importazionePrecedente.getRecordTotali());
+            return response;
+        }
+
+        ImportArticoliFornitoriResponse response;
+        try (ImportRecordReader reader = openRecordReader(sorgente)) {
+            response = processArticoliFornitori(reader, preview, forza, rigaDiRipresa, progress);
+        }
+        // Le righe scartate non hanno errori in errori ma vanno riproposte: il file non viene registrato
+        int elaborati = response.getArticoliImportati() + response.getArticoliAggiornati();
+        registraImportazione(TipoImport.ARTICOLI_FORNITORI, hashFile, sorgente, rigaDiRipresa,
+            response.getErrori().isEmpty() && response.getArticoliScartati() == 0,
+            elaborati + response.getArticoliDuplicati() + response.getArticoliInvariati() + response.getArticoliScartati(), elaborati);
+        return response;
     }
     
     public ImportArticoliFornitoriResponse validateArticoliFornitoriJson(MultipartFile file) throws IOException {
-        return importArticoliFornitoriFromJson(file, true);
+        return importArticoliFornitoriFromJson(file, true, false);
     }
     
     public Map<String, Object> getArticoliFornitoriStructure() {
@@ -1022,39 +1318,22 @@ public class ImportService {
     
     public ImportArticoliFornitoriResponse importArticoliFornitori(List<Map<String, Object>> articoli) {
         ImportArticoliFornitoriResponse response = new ImportArticoliFornitoriResponse();
+        List<ArticoloFornitore> daSalvare = new ArrayList<>();
+        List<PrezzoArticoloFornitore> prezzi = new ArrayList<>();
         
         for (int i = 0; i < articoli.size(); i++) {
             Map<String, Object> articoloData = articoli.get(i);
             ImportArticoliFornitoriResponse.ArticoloFornitoreDto articoloDto = validateSingleArticoloFornitore(articoloData, i + 1);
             
             if (articoloDto.getErrore() == null || articoloDto.getErrore().isEmpty()) {
-                try {
-                    // Verifica duplicati
-                    String codice = articoloDto.getCodice();
-                    String partitaIvaFornitore = articoloDto.getFornitore().getPartitaIva();
-                    
-                    Optional<ArticoloFornitore> existing = articoloFornitoreRepository.findByCodiceAndFornitorePartitaIva(codice, partitaIvaFornitore);
-                    
-                    if (existing.isPresent()) {
-                        // Aggiorna articolo esistente
-                        ArticoloFornitore articoloEsistente = existing.get();
-                        mapDtoToEntity(articoloDto, articoloEsistente);
-                        articoloFornitoreRepository.save(articoloEsistente);
-                        response.incrementaAggiornati();
-                    } else {
-                        // Crea nuovo articolo
-                        ArticoloFornitore nuovoArticolo = new ArticoloFornitore();
-                        mapDtoToEntity(articoloDto, nuovoArticolo);
-                        articoloFornitoreRepository.save(nuovoArticolo);
-                        response.incrementaImportati();
-                    }
-                    
-                    response.aggiungiArticoloValido(articoloDto);
-                } catch (Exception e) {
-                    articoloDto.setErrore("Errore durante il salvataggio: " + e.getMessage());
-                    response.aggiungiArticoloInvalido(articoloDto);
-                    response.incrementaScartati();
-                    response.aggiungiErrore("Errore riga " + (i + 1) + ": " + e.getMessage());
+                ArticoloFornitore articolo = new ArticoloFornitore();
+                mapDtoToEntity(articoloDto, articolo);
+                daSalvare.add(articolo);
+                prezzi.addAll(prezziDaRegistrare(articoloDto));
+                response.aggiungiArticoloValido(articoloDto);
+                
+                if (daSalvare.size() >= dimensioneBlocco) {
+                    salvaArticoliFornitori(daSalvare, prezzi, response);
                 }
             } else {
                 response.aggiungiArticoloInvalido(articoloDto);
@@ -1062,61 +1341,170 @@ public class ImportService {
             }
         }
         
+        if (!daSalvare.isEmpty()) {
+            salvaArticoliFornitori(daSalvare, prezzi, response);
+        }
+        
         return response;
     }
     
     // ===================== METODI PRIVATI ARTICOLI FORNITORI =====================
     
-    private ImportArticoliFornitoriResponse processArticoliFornitori(List<Map<String, Object>> rawData, boolean preview) {
+    private ImportArticoliFornitoriResponse processArticoliFornitori(ImportRecordReader reader, boolean preview, boolean forza,
+                                                                     int rigaDiRipresa, ImportProgress progress) throws IOException {
         ImportArticoliFornitoriResponse response = new ImportArticoliFornitoriResponse();
+        List<ImportPipeline.RecordValidato<ArticoloFornitoreLetto>> blocco = new ArrayList<>();
+        int ultimaRigaConfermata = rigaDiRipresa;
+        
+        // L'impronta del record viene calcolata insieme alla validazione, sui thread della pipeline
+        try (ImportPipeline.RecordValidati<ArticoloFornitoreLetto> validati = importPipeline.avvia(
+                reader, rigaDiRipresa, (record, riga, errori) -> new ArticoloFornitoreLetto(
+                    validateSingleArticoloFornitore(record, riga), preview ? null : registroImportService.hashRecord(record)))) {
+            while (validati.hasNext()) {
+                blocco.add(validati.next());
+                if (blocco.size() >= dimensioneBlocco) {
+                    ultimaRigaConfermata = elaboraBloccoArticoliFornitori(blocco, preview, forza, response, progress);
+                }
+            }
+            
+            if (!blocco.isEmpty()) {
+                elaboraBloccoArticoliFornitori(blocco, preview, forza, response, progress);
+            }
+        } catch (RuntimeException e) {
+            // Il blocco in errore è annullato: i blocchi precedenti restano confermati e il job può riprendere da lì
+            progress.interrotto(e.getMessage());
+            response.aggiungiErrore(String.format("Errore durante il salvataggio dopo la riga %d: %s",
+                ultimaRigaConfermata, e.getMessage()));
+            return response;
+        }
         
-        if (rawData == null || rawData.isEmpty()) {
+        if (reader.getRowNumber() == 0) {
             response.aggiungiErrore("Il file JSON è vuoto o non valido");
-            return response;
         }
         
-        for (int i = 0; i < rawData.size(); i++) {
-            Map<String, Object> articoloData = rawData.get(i);
-            ImportArticoliFornitoriResponse.ArticoloFornitoreDto articolo = validateSingleArticoloFornitore(articoloData, i + 1);
-            
-            if (articolo.getErrore() == null || articolo.getErrore().isEmpty()) {
-                if (!preview) {
-                    try {
-                        // Verifica duplicati
-                        String codice = articolo.getCodice();
-                        String partitaIvaFornitore = articolo.getFornitore().getPartitaIva();
-                        
-                        Optional<ArticoloFornitore> existing = articoloFornitoreRepository.findByCodiceAndFornitorePartitaIva(codice, partitaIvaFornitore);
-                        
-                        if (existing.isPresent()) {
-                            // Aggiorna articolo esistente
-                            ArticoloFornitore articoloEsistente = existing.get();
-                            mapDtoToEntity(articolo, articoloEsistente);
-                            articoloFornitoreRepository.save(articoloEsistente);
-                            response.incrementaAggiornati();
-                        } else {
-                            // Crea nuovo articolo
-                            ArticoloFornitore nuovoArticolo = new ArticoloFornitore();
-                            mapDtoToEntity(articolo, nuovoArticolo);
-                            articoloFornitoreRepository.save(nuovoArticolo);
-                            response.incrementaImportati();
-                        }
-                    } catch (Exception e) {
-                        articolo.setErrore("Errore durante il salvataggio: " + e.getMessage());
-                        response.aggiungiArticoloInvalido(articolo);
-                        response.incrementaScartati();
-                        response.aggiungiErrore("Errore riga " + (i + 1) + ": " + e.getMessage());
-                        continue;
-                    }
+        return response;
+    }
+    
+    /**
+     * Elabora un blocco di record validati. I record identici a quelli di un'importazione precedente
+     * (stessa impronta), il cui articolo non è stato modificato né eliminato da allora, vengono saltati
+     * con un'unica ricerca per blocco; gli altri sono salvati con le loro impronte. Con forza nessun record viene saltato.
+     * Restituisce l'ultima riga del blocco.
+     */
+    private int elaboraBloccoArticoliFornitori(List<ImportPipeline.RecordValidato<ArticoloFornitoreLetto>> blocco, boolean preview,
+                                                boolean forza, ImportArticoliFornitoriResponse response, ImportProgress progress) {
+        Set<String> giaImportati = Collections.emptySet();
+        if (!preview && !forza) {
+            List<String> hashBlocco = new ArrayList<>(blocco.size());
+            for (ImportPipeline.RecordValidato<ArticoloFornitoreLetto> validato : blocco) {
+                if (validato.getValore() != null) {
+                    hashBlocco.add(validato.getValore().getHash());
                 }
+            }
+            giaImportati = registroImportService.hashRecordArticoliFornitoriInvariati(hashBlocco);
+        }
+        
+        List<ArticoloFornitore> daSalvare = new ArrayList<>();
+        List<PrezzoArticoloFornitore> prezzi = new ArrayList<>();
+        Map<String, ArticoloFornitore> nuoviHash = new LinkedHashMap<>();
+        for (ImportPipeline.RecordValidato<ArticoloFornitoreLetto> validato : blocco) {
+            String hash = validato.getValore() != null ? validato.getValore().getHash() : null;
+            if (hash != null && (giaImportati.contains(hash) || nuoviHash.containsKey(hash))) {
+                response.setArticoliInvariati(response.getArticoliInvariati() + 1);
+            } else if (elaboraArticoloFornitore(validato, preview, daSalvare, prezzi, response) && hash != null) {
+                // L'impronta è registrata con la chiave dell'articolo appena accodato
+                nuoviHash.put(hash, daSalvare.get(daSalvare.size() - 1));
+            }
+            progress.aggiorna(validato.getRiga(), response.getArticoliScartati());
+        }
+        
+        if (!daSalvare.isEmpty()) {
+            salvaArticoliFornitori(daSalvare, prezzi, nuoviHash, response);
+        }
+        int ultimaRiga = blocco.get(blocco.size() - 1).getRiga();
+        if (!preview) {
+            progress.bloccoConfermato(ultimaRiga);
+        }
+        blocco.clear();
+        return ultimaRiga;
+    }
+    
+    /**
+     * Accoda per il salvataggio un articolo fornitore validato, oppure lo registra tra gli scartati.
+     * Restituisce true se l'articolo è valido.
+     */
+    private boolean elaboraArticoloFornitore(ImportPipeline.RecordValidato<ArticoloFornitoreLetto> validato,
+                                             boolean preview, List<ArticoloFornitore> daSalvare, List<PrezzoArticoloFornitore> prezzi,
+                                             ImportArticoliFornitoriResponse response) {
+        if (validato.getEccezione() != null) {
+            response.aggiungiErrore("Riga " + validato.getRiga() + ": Errore nel parsing - " + validato.getEccezione().getMessage());
+            response.incrementaScartati();
+            return false;
+        }
+        ImportArticoliFornitoriResponse.ArticoloFornitoreDto articolo = validato.getValore().getArticolo();
+        
+        if (articolo.getErrore() == null || articolo.getErrore().isEmpty()) {
+            if (!preview) {
+                ArticoloFornitore nuovoArticolo = new ArticoloFornitore();
+                mapDtoToEntity(articolo, nuovoArticolo);
+                daSalvare.add(nuovoArticolo);
+                prezzi.addAll(prezziDaRegistrare(articolo));
+            }
+            // Gli articoli validi sono restituiti solo come campione, non per l'intero file
+            if (response.getArticoliValidi().size() < MAX_ARTICOLI_VALIDI_RESTITUITI) {
                 response.aggiungiArticoloValido(articolo);
-            } else {
-                response.aggiungiArticoloInvalido(articolo);
-                response.incrementaScartati();
             }
+            return true;
         }
+        response.aggiungiArticoloInvalido(articolo);
+        response.incrementaScartati();
+        return false;
+    }
+    
+    /**
+     * Scrive un blocco di articoli fornitori con un upsert massivo e ne aggiunge i prezzi allo storico,
+     * in una propria transazione, e aggiorna i contatori
+     */
+    private void salvaArticoliFornitori(List<ArticoloFornitore> blocco, List<PrezzoArticoloFornitore> prezzi,
+                                        ImportArticoliFornitoriResponse response) {
+        salvaArticoliFornitori(blocco, prezzi, Collections.emptyMap(), response);
+    }
+    
+    /**
+     * Come sopra, registrando nella stessa transazione le impronte dei record salvati
+     */
+    private void salvaArticoliFornitori(List<ArticoloFornitore> blocco, List<PrezzoArticoloFornitore> prezzi,
+                                        Map<String, ArticoloFornitore> hashRecord, ImportArticoliFornitoriResponse response) {
+        ArticoloFornitoreRepositoryCustom.EsitoUpsert esito = transactionTemplate.execute(status -> {
+            ArticoloFornitoreRepositoryCustom.EsitoUpsert risultato = articoloFornitoreRepository.upsertAll(blocco);
+            prezzoArticoloFornitoreRepository.registraAll(prezzi);
+            if (!hashRecord.isEmpty()) {
+                registroImportService.registraRecordArticoliFornitori(hashRecord);
+            }
+            return risultato;
+        });
+        response.setArticoliImportati(response.getArticoliImportati() + esito.getInseriti());
+        response.setArticoliAggiornati(response.getArticoliAggiornati() + esito.getAggiornati());
+        response.setArticoliDuplicati(response.getArticoliDuplicati() + esito.getDuplicati());
+        blocco.clear();
+        prezzi.clear();
+        articoloFornitoreService.invalidaDopoScritturaMassiva();
+    }
+    
+    /**
+     * Articolo fornitore validato con l'impronta del record da cui è stato letto (null in preview)
+     */
+    private static class ArticoloFornitoreLetto {
+        private final ImportArticoliFornitoriResponse.ArticoloFornitoreDto articolo;
+        private final String hash;
         
-        return response;
+        ArticoloFornitoreLetto(ImportArticoliFornitoriResponse.ArticoloFornitoreDto articolo, String hash) {
+            this.articolo = articolo;
+            this.hash = hash;
+        }
+        
+        ImportArticoliFornitoriResponse.ArticoloFornitoreDto getArticolo() { return articolo; }
+        String getHash() { return hash; }
     }
     
     private ImportArticoliFornitoriResponse.ArticoloFornitoreDto validateSingleArticoloFornitore(Map<String, Object> data, int rowNumber) {
@@ -1231,8 +1619,11 @@ public class ImportService {
         if (partitaIva == null || partitaIva.trim().isEmpty()) {
             errors.add("Partita IVA fornitore obbligatoria");
         } else {
-            partitaIva = partitaIva.trim().replaceAll("\\s+", "");
-            if (!PARTITA_IVA_PATTERN.matcher(partitaIva).matches()) {
+            partitaIva = AnagraficaValidator.pulisciPartitaIva(partitaIva);
+            ErroreAnagrafica errorePartitaIva = AnagraficaValidator.verificaPartitaIva(partitaIva);
+            if (errorePartitaIva == ErroreAnagrafica.PARTITA_IVA_CONTROLLO) {
+                errors.add("Partita IVA fornitore non valida (cifra di controllo errata)");
+            } else if (errorePartitaIva != null) {
                 errors.add("Partita IVA fornitore non valida (deve essere 11 cifre)");
             }
             fornitore.setPartitaIva(partitaIva);
@@ -1271,16 +1662,35 @@ public class ImportService {
         entity.setDataDocumento(dto.getDataDocumento());
         entity.setDataUltimoAggiornamento(dto.getDataUltimoAggiornamento());
         entity.setCodiceInterno(dto.getCodiceInterno());
-        
-        // Serializza prezzi storici come JSON se presenti
-        if (dto.getPrezziStorico() != null && !dto.getPrezziStorico().isEmpty()) {
-            try {
-                entity.setPrezziStorici(objectMapper.writeValueAsString(dto.getPrezziStorico()));
-            } catch (IOException e) {
-                // Log dell'errore ma non blocca l'importazione
-                System.err.println("Errore nella serializzazione dei prezzi storici: " + e.getMessage());
+    }
+    
+    /**
+     * Prezzi da aggiungere allo storico per un articolo importato: il prezzo corrente alla data documento
+     * e i prezzi storici del file. Le voci senza data o senza prezzo vengono ignorate.
+     */
+    private List<PrezzoArticoloFornitore> prezziDaRegistrare(ImportArticoliFornitoriResponse.ArticoloFornitoreDto dto) {
+        List<PrezzoArticoloFornitore> prezzi = new ArrayList<>();
+        if (dto.getFornitore() == null || dto.getFornitore().getPartitaIva() == null) {
+            return prezzi;
+        }
+        String partitaIva = dto.getFornitore().getPartitaIva();
+        if (dto.getDataDocumento() != null && dto.getPrezzoUnitario() != null) {
+            prezzi.add(new PrezzoArticoloFornitore(dto.getCodice(), partitaIva, dto.getDataDocumento(),
+                BigDecimal.valueOf(dto.getPrezzoUnitario()), decimale(dto.getQuantita()), null));
+        }
+        if (dto.getPrezziStorico() != null) {
+            for (ImportArticoliFornitoriResponse.PrezzoStoricoDto storico : dto.getPrezziStorico()) {
+                if (storico.getData() != null && storico.getPrezzo() != null) {
+                    prezzi.add(new PrezzoArticoloFornitore(dto.getCodice(), partitaIva, storico.getData(),
+                        BigDecimal.valueOf(storico.getPrezzo()), decimale(storico.getQuantita()), null));
+                }
             }
         }
+        return prezzi;
+    }
+    
+    private static BigDecimal decimale(Double valore) {
+        return valore != null ? BigDecimal.valueOf(valore) : null;
     }
 
     // ===================== METODI DI UTILITÀ AGGIUNTIVI =====================
@@ -0,0 +1,362 @@
+package com.gestionale.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Indice in memoria per i suggerimenti durante la digitazione. Ogni parola del testo è indicizzata
+ * per trigrammi, preceduta da due spazi così che anche le prime una o due lettere abbiano un trigramma:
+ * la ricerca interseca le liste dei trigrammi della richiesta e verifica i candidati sul testo.
+ * Le liste sono array ordinati di long, senza un oggetto per ogni id indicizzato.
+ * Le letture sono concorrenti, caricamento e aggiornamenti esclusivi.
+ */
+final class IndiceTrigrammi {
+
+    private static final Pattern SEGNI_DIACRITICI = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORI = Pattern.compile("[^a-z0-9]+");
+
+    private static final Comparator<Risultato> ORDINE = Comparator
+        .comparingInt((Risultato risultato) -> risultato.punteggio)
+        .thenComparingInt(risultato -> risultato.voce.testo.length())
+        .thenComparing(risultato -> risultato.voce.testo)
+        .thenComparingLong(risultato -> risultato.voce.id);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Voce> voci = new HashMap<>();
+    private final Map<String, ListaId> trigrammi = new HashMap<>();
+    private boolean caricato;
+
+    /**
+     * Voce indicizzata: testo principale, dettaglio (codice o partita IVA) e categoria opzionale per i filtri
+     */
+    static final class Voce {
+        final long id;
+        final String testo;
+        final String dettaglio;
+        final String categoria;
+        private final String normalizzato;
+
+        Voce(long id, String testo, String dettaglio, String categoria) {
+            this.id = id;
+            this.testo = testo != null ? testo : "";
+            this.dettaglio = dettaglio;
+            this.categoria = categoria;
+            this.normalizzato = normalizza(this.testo + " " + (dettaglio != null ? dettaglio : ""));
+        }
+    }
+
+    private static final class Risultato {
+        final Voce voce;
+        final int punteggio;
+
+        Risultato(Voce voce, int punteggio) {
+            this.voce = voce;
+            this.punteggio = punteggio;
+        }
+    }
+
+    boolean isCaricato() {
+        lock.readLock().lock();
+        try {
+            return caricato;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Carica l'indice se non è già caricato. Il caricamento avviene sotto lock: gli aggiornamenti
+     * confermati nel frattempo attendono e vengono applicati dopo, così nessuna modifica va persa.
+     */
+    void caricaSeNecessario(Supplier<? extends Collection<Voce>> caricamento) {
+        lock.writeLock().lock();
+        try {
+            if (!caricato) {
+                voci.clear();
+                trigrammi.clear();
+                caricamento.get().forEach(this::indicizza);
+                // Le liste crescono a blocchi: a caricamento finito si tolgono le posizioni libere
+                trigrammi.values().forEach(ListaId::compatta);
+                caricato = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Scarta il contenuto: l'indice verrà ricaricato al prossimo utilizzo
+     */
+    void invalida() {
+        lock.writeLock().lock();
+        try {
+            voci.clear();
+            trigrammi.clear();
+            caricato = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Inserisce o sostituisce una voce (ignorato finché l'indice non è caricato)
+     */
+    void aggiorna(Voce voce) {
+        lock.writeLock().lock();
+        try {
+            if (caricato) {
+                rimuoviVoce(voce.id);
+                indicizza(voce);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void rimuovi(long id) {
+        lock.writeLock().lock();
+        try {
+            if (caricato) {
+                rimuoviVoce(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int dimensione() {
+        lock.readLock().lock();
+        try {
+            return voci.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Restituisce al massimo limite voci che contengono tutte le parole cercate (le parole di una
+     * o due lettere come inizio di parola), limitate alle categorie indicate se non null.
+     * Prima le voci che iniziano con il testo cercato, poi quelle in cui ogni parola cercata
+     * è l'inizio di una parola, poi le altre; a parità le più corte.
+     */
+    List<Voce> cerca(String testo, Set<String> categorie, int limite) {
+        String[] parole = parole(normalizza(testo));
+        if (parole.length == 0 || limite <= 0) {
+            return Collections.emptyList();
+        }
+        Set<String> richiesti = new LinkedHashSet<>();
+        for (String parola : parole) {
+            richiesti.addAll(trigrammiRicerca(parola));
+        }
+
+        lock.readLock().lock();
+        try {
+            List<ListaId> liste = new ArrayList<>(richiesti.size());
+            for (String trigramma : richiesti) {
+                ListaId lista = trigrammi.get(trigramma);
+                if (lista == null) {
+                    return Collections.emptyList();
+                }
+                liste.add(lista);
+            }
+            liste.sort(Comparator.comparingInt(ListaId::dimensione));
+
+            String cercato = String.join(" ", parole);
+            PriorityQueue<Risultato> migliori = new PriorityQueue<>(limite + 1, ORDINE.reversed());
+            ListaId piuCorta = liste.get(0);
+            candidati:
+            for (int posizione = 0; posizione < piuCorta.dimensione(); posizione++) {
+                long id = piuCorta.id(posizione);
+                for (int i = 1; i < liste.size(); i++) {
+                    if (!liste.get(i).contiene(id)) {
+                        continue candidati;
+                    }
+                }
+                Voce voce = voci.get(id);
+                if (categorie != null && !categorie.contains(voce.categoria)) {
+                    continue;
+                }
+                int punteggio = punteggio(voce, parole, cercato);
+                if (punteggio >= 0) {
+                    migliori.add(new Risultato(voce, punteggio));
+                    if (migliori.size() > limite) {
+                        migliori.poll();
+                    }
+                }
+            }
+
+            List<Risultato> ordinati = new ArrayList<>(migliori);
+            ordinati.sort(ORDINE);
+            List<Voce> risultato = new ArrayList<>(ordinati.size());
+            ordinati.forEach(r -> risultato.add(r.voce));
+            return risultato;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 0 se testo o dettaglio iniziano con il testo cercato, 1 se ogni parola cercata è l'inizio di una parola,
+     * 2 se le parole sono contenute, -1 se la voce non corrisponde
+     */
+    private static int punteggio(Voce voce, String[] cercate, String cercato) {
+        String normalizzato = voce.normalizzato;
+        if (normalizzato.startsWith(cercato)
+                || (voce.dettaglio != null && normalizza(voce.dettaglio).startsWith(cercato))) {
+            return 0;
+        }
+        String[] paroleVoce = parole(normalizzato);
+        boolean tuttiInizi = true;
+        for (String cercata : cercate) {
+            boolean inizio = false;
+            for (String parola : paroleVoce) {
+                if (parola.startsWith(cercata)) {
+                    inizio = true;
+                    break;
+                }
+            }
+            if (!inizio) {
+                // Le parole brevi valgono solo come inizio di parola
+                if (cercata.length() < 3 || !normalizzato.contains(cercata)) {
+                    return -1;
+                }
+                tuttiInizi = false;
+            }
+        }
+        return tuttiInizi ? 1 : 2;
+    }
+
+    private void indicizza(Voce voce) {
+        voci.put(voce.id, voce);
+        for (String trigramma : trigrammiVoce(voce.normalizzato)) {
+            trigrammi.computeIfAbsent(trigramma, chiave -> new ListaId()).aggiungi(voce.id);
+        }
+    }
+
+    private void rimuoviVoce(long id) {
+        Voce precedente = voci.remove(id);
+        if (precedente == null) {
+            return;
+        }
+        for (String trigramma : trigrammiVoce(precedente.normalizzato)) {
+            ListaId lista = trigrammi.get(trigramma);
+            if (lista != null) {
+                lista.rimuovi(id);
+                if (lista.dimensione() == 0) {
+                    trigrammi.remove(trigramma);
+                }
+            }
+        }
+    }
+
+    /**
+     * Id delle voci che contengono un trigramma, ordinati e senza duplicati in un array di long
+     * (8 byte per id, invece di un Long e di un nodo di HashSet). Gli id arrivano quasi sempre
+     * crescenti, quindi l'inserimento avviene di norma in coda; la ricerca di un id è binaria.
+     */
+    private static final class ListaId {
+        private long[] ids = new long[2];
+        private int dimensione;
+
+        int dimensione() {
+            return dimensione;
+        }
+
+        long id(int posizione) {
+            return ids[posizione];
+        }
+
+        boolean contiene(long id) {
+            return Arrays.binarySearch(ids, 0, dimensione, id) >= 0;
+        }
+
+        void aggiungi(long id) {
+            int posizione = dimensione;
+            if (dimensione > 0 && ids[dimensione - 1] >= id) {
+                posizione = Arrays.binarySearch(ids, 0, dimensione, id);
+                if (posizione >= 0) {
+                    return;
+                }
+                posizione = -posizione - 1;
+            }
+            if (dimensione == ids.length) {
+                ids = Arrays.copyOf(ids, dimensione + (dimensione >> 1) + 1);
+            }
+            System.arraycopy(ids, posizione, ids, posizione + 1, dimensione - posizione);
+            ids[posizione] = id;
+            dimensione++;
+        }
+
+        void rimuovi(long id) {
+            int posizione = Arrays.binarySearch(ids, 0, dimensione, id);
+            if (posizione >= 0) {
+                System.arraycopy(ids, posizione + 1, ids, posizione, dimensione - posizione - 1);
+                dimensione--;
+            }
+        }
+
+        void compatta() {
+            if (ids.length > dimensione) {
+                ids = Arrays.copyOf(ids, dimensione);
+            }
+        }
+    }
+
+    private static Set<String> trigrammiVoce(String normalizzato) {
+        Set<String> risultato = new HashSet<>();
+        for (String parola : parole(normalizzato)) {
+            String conMargine = "  " + parola;
+            for (int i = 0; i + 3 <= conMargine.length(); i++) {
+                risultato.add(conMargine.substring(i, i + 3));
+            }
+        }
+        return risultato;
+    }
+
+    /**
+     * Le parole di almeno tre lettere si cercano in qualunque punto, le più brevi come inizio di parola
+     */
+    private static List<String> trigrammiRicerca(String parola) {
+        List<String> risultato = new ArrayList<>();
+        if (parola.length() < 3) {
+            String conMargine = "  " + parola;
+            risultato.add(conMargine.substring(parola.length() - 1, parola.length() + 2));
+        } else {
+            for (int i = 0; i + 3 <= parola.length(); i++) {
+                risultato.add(parola.substring(i, i + 3));
+            }
+        }
+        return risultato;
+    }
+
+    private static String[] parole(String normalizzato) {
+        return normalizzato.isEmpty() ? new String[0] : normalizzato.split(" ");
+    }
+
+    /**
+     * Minuscolo, senza accenti, solo lettere e cifre separate da uno spazio
+     */
+    static String normalizza(String testo) {
+        if (testo == null) {
+            return "";
+        }
+        String senzaAccenti = SEGNI_DIACRITICI.matcher(Normalizer.normalize(testo, Normalizer.Form.NFD)).replaceAll("");
+        return SEPARATORI.matcher(senzaAccenti.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+}
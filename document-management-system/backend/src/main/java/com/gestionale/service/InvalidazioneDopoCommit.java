@@ -0,0 +1,26 @@
+package com.gestionale.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Invalidazione delle cache in memoria dopo una scrittura: eseguita subito e di nuovo dopo il commit
+ * della transazione corrente, così una lettura concorrente prima del commit non lascia in cache i dati precedenti.
+ */
+final class InvalidazioneDopoCommit {
+
+    private InvalidazioneDopoCommit() {
+    }
+
+    static void esegui(Runnable invalida) {
+        invalida.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalida.run();
+                }
+            });
+        }
+    }
+}
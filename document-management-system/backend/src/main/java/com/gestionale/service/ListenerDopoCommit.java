@@ -0,0 +1,50 @@
+package com.gestionale.service;
+
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.internal.SessionFactoryImpl;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Base dei listener Hibernate che tengono allineate strutture in memoria con inserimenti, modifiche
+ * ed eliminazioni di entità. Si registra sugli eventi post insert, update e delete; le sottoclassi leggono
+ * i valori dall'evento e applicano l'aggiornamento con dopoCommit, solo se la transazione viene confermata.
+ */
+abstract class ListenerDopoCommit implements PostInsertEventListener, PostDeleteEventListener, PostUpdateEventListener {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PostConstruct
+    void registra() {
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImpl.class)
+            .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    /**
+     * Esegue l'aggiornamento al termine della transazione della sessione, solo se confermata
+     */
+    protected void dopoCommit(EventSource session, Runnable aggiornamento) {
+        session.getActionQueue().registerProcess((riuscita, sessione) -> {
+            if (riuscita) {
+                aggiornamento.run();
+            }
+        });
+    }
+}
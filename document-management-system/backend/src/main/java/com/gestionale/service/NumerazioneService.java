@@ -4,12 +4,20 @@ import com.gestionale.entity.Numerazione;
 import com.gestionale.entity.TipoDocumento;
 import com.gestionale.repository.NumerazioneRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Service per la gestione delle numerazioni documenti
@@ -21,6 +29,27 @@ public class NumerazioneService {
     @Autowired
     private NumerazioneRepository numerazioneRepository;
 
+    private final TransactionTemplate nuovaTransazione;
+
+    // Numeri riservati per ogni blocco dei tipi documento non fiscali
+    @Value("${numerazione.blocco:50}")
+    private int dimensioneBlocco;
+
+    // Blocchi di numeri riservati in memoria, per tipo documento e anno
+    private final ConcurrentMap<String, BloccoNumeri> blocchi = new ConcurrentHashMap<>();
+
+    // Lock per tipo documento e anno usati durante la prenotazione di un nuovo blocco
+    private final ConcurrentMap<String, Object> lockBlocchi = new ConcurrentHashMap<>();
+
+    // Formato di prefisso, suffisso e lunghezza per tipo documento e anno, letto una sola volta dal database
+    private final ConcurrentMap<String, FormatoNumero> formati = new ConcurrentHashMap<>();
+
+    @Autowired
+    public NumerazioneService(PlatformTransactionManager transactionManager) {
+        this.nuovaTransazione = new TransactionTemplate(transactionManager);
+        this.nuovaTransazione.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
     /**
      * Ottiene il prossimo numero per un tipo documento
      */
@@ -29,34 +58,109 @@ public class NumerazioneService {
     }
 
     /**
-     * Ottiene il prossimo numero per un tipo documento e anno specifico
+     * Ottiene il prossimo numero per un tipo documento e anno specifico.
+     * Per i documenti fiscali l'incremento è un UPDATE atomico sulla riga della numerazione, che resta bloccata
+     * fino alla fine della transazione del chiamante: le creazioni concorrenti attendono il proprio turno e,
+     * se il documento non viene salvato, anche l'incremento viene annullato. La sequenza resta quindi senza
+     * duplicati né buchi. Gli altri tipi assegnano i numeri da un blocco riservato in memoria.
      */
     public Long getNextNumber(TipoDocumento tipoDocumento, Integer anno) {
+        if (!tipoDocumento.richiedeNumerazioneContinua()) {
+            return getNextNumberDaBlocco(tipoDocumento.name(), anno);
+        }
+        return incrementa(tipoDocumento.name(), anno, 1);
+    }
+
+    /**
+     * Riserva con un solo UPDATE un intervallo contiguo di count numeri e restituisce il primo.
+     * Per i documenti fiscali la riga resta bloccata fino alla fine della transazione del chiamante,
+     * che deve salvare tutti i documenti dell'intervallo: se viene annullata, l'intervallo torna disponibile.
+     */
+    public Long allocateRange(TipoDocumento tipoDocumento, Integer anno, int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("Quantità di numeri non valida: " + count);
+        }
         String tipoStr = tipoDocumento.name();
-        
-        // Cerca numerazione esistente
-        Optional<Numerazione> numerazioneOpt = numerazioneRepository
-            .findByTipoDocumentoAndAnno(tipoStr, anno);
-        
-        if (numerazioneOpt.isPresent()) {
-            Numerazione numerazione = numerazioneOpt.get();
-            
-            // Verifica se è necessario reset per nuovo anno
-            if (numerazione.needsResetForYear(anno)) {
-                numerazione.resetPerAnno(anno);
-                numerazioneRepository.save(numerazione);
+        long ultimo = tipoDocumento.richiedeNumerazioneContinua()
+            ? incrementa(tipoStr, anno, count)
+            : nuovaTransazione.execute(status -> incrementa(tipoStr, anno, count));
+        return ultimo - count + 1;
+    }
+
+    /**
+     * Assegna un numero dal blocco riservato per tipo e anno, riservandone uno nuovo quando è esaurito.
+     * I numeri non usati di un blocco (riavvio, transazione annullata) restano come buchi nella sequenza.
+     */
+    private Long getNextNumberDaBlocco(String tipoStr, Integer anno) {
+        String chiave = tipoStr + "/" + anno;
+        while (true) {
+            BloccoNumeri blocco = blocchi.get(chiave);
+            if (blocco != null) {
+                long numero = blocco.assegna();
+                if (numero > 0) {
+                    return numero;
+                }
+            }
+            // Un solo thread per chiave riserva il nuovo blocco, gli altri trovano quello già sostituito.
+            // La prenotazione apre una transazione separata: avviene fuori dalla mappa, sotto un lock
+            // dedicato alla chiave, così l'accesso alle altre chiavi non attende l'I/O sul database
+            synchronized (lockBlocchi.computeIfAbsent(chiave, k -> new Object())) {
+                if (blocchi.get(chiave) == blocco) {
+                    blocchi.put(chiave, riservaBlocco(tipoStr, anno));
+                }
+            }
+        }
+    }
+
+    /**
+     * Riserva un blocco in una transazione separata, confermata subito: il blocco non torna disponibile
+     * se la transazione del chiamante viene annullata e la riga non resta bloccata
+     */
+    private BloccoNumeri riservaBlocco(String tipoStr, Integer anno) {
+        long ultimo = nuovaTransazione.execute(status -> incrementa(tipoStr, anno, dimensioneBlocco));
+        return new BloccoNumeri(ultimo - dimensioneBlocco + 1, ultimo);
+    }
+
+    /**
+     * Incrementa atomicamente l'ultimo numero, creando la numerazione se assente, e restituisce il nuovo valore
+     */
+    private long incrementa(String tipoStr, Integer anno, long quantita) {
+        if (numerazioneRepository.riservaNumeri(tipoStr, anno, quantita) == 0) {
+            creaNumerazioneSeAssente(tipoStr, anno);
+            if (numerazioneRepository.riservaNumeri(tipoStr, anno, quantita) == 0) {
+                throw new IllegalStateException("Numerazione non disponibile per " + tipoStr + "/" + anno);
             }
-            
-            return numerazione.incrementaNumero();
-        } else {
-            // Crea nuova numerazione
-            Numerazione nuovaNumerazione = new Numerazione();
-            nuovaNumerazione.setTipoDocumento(tipoStr);
-            nuovaNumerazione.setAnno(anno);
-            nuovaNumerazione.setUltimoNumero(1L);
-            
-            numerazioneRepository.save(nuovaNumerazione);
-            return 1L;
+        }
+        // Lettura dopo l'UPDATE nella stessa transazione: la riga è bloccata, il valore è quello appena assegnato
+        return numerazioneRepository.getUltimoNumero(tipoStr, anno);
+    }
+
+    /**
+     * Scarta il blocco in memoria quando l'ultimo numero viene modificato direttamente
+     */
+    private void scartaBlocco(String tipoStr, Integer anno) {
+        blocchi.remove(tipoStr + "/" + anno);
+    }
+
+    /**
+     * Crea la numerazione in una transazione separata, così un inserimento concorrente
+     * della stessa riga (vincolo tipo/anno) non invalida la transazione del chiamante
+     */
+    private void creaNumerazioneSeAssente(String tipoStr, Integer anno) {
+        try {
+            nuovaTransazione.executeWithoutResult(status -> {
+                if (!numerazioneRepository.existsByTipoDocumentoAndAnno(tipoStr, anno)) {
+                    Numerazione nuovaNumerazione = new Numerazione();
+                    nuovaNumerazione.setTipoDocumento(tipoStr);
+                    nuovaNumerazione.setAnno(anno);
+                    nuovaNumerazione.setUltimoNumero(0L);
+                    numerazioneRepository.saveAndFlush(nuovaNumerazione);
+                    // Il formato potrebbe essere in cache come assente
+                    invalidaFormati(tipoStr + "/" + anno);
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Numerazione creata nel frattempo da un'altra transazione
         }
     }
 
@@ -84,6 +188,10 @@ public class NumerazioneService {
                 return 1L;
             }
             
+            BloccoNumeri blocco = blocchi.get(tipoStr + "/" + anno);
+            if (blocco != null && blocco.disponibile()) {
+                return blocco.prossimo();
+            }
             return numerazione.getNextNumero();
         } else {
             return 1L;
@@ -98,19 +206,37 @@ public class NumerazioneService {
     }
 
     /**
-     * Formatta il numero con prefisso e suffisso per anno specifico
+     * Formatta il numero con prefisso e suffisso per anno specifico.
+     * Il formato viene letto dalla cache, caricata alla prima richiesta per tipo e anno.
      */
     public String formatNumber(TipoDocumento tipoDocumento, Long numero, Integer anno) {
         String tipoStr = tipoDocumento.name();
-        
-        Optional<Numerazione> numerazioneOpt = numerazioneRepository
-            .findByTipoDocumentoAndAnno(tipoStr, anno);
-        
-        if (numerazioneOpt.isPresent()) {
-            return numerazioneOpt.get().formatNumero(numero);
-        } else {
-            return numero.toString();
+        String chiave = tipoStr + "/" + anno;
+        FormatoNumero formato = formati.get(chiave);
+        if (formato == null) {
+            // Letto fuori dalla mappa: computeIfAbsent terrebbe bloccata la chiave per tutta la query
+            FormatoNumero letto = numerazioneRepository.findByTipoDocumentoAndAnno(tipoStr, anno)
+                .map(FormatoNumero::new)
+                .orElse(FormatoNumero.NESSUNO);
+            formato = formati.putIfAbsent(chiave, letto);
+            if (formato == null) {
+                formato = letto;
+            }
         }
+        return formato.formatta(numero);
+    }
+
+    /**
+     * Rimuove dalla cache i formati modificati (null = tutti), subito e di nuovo al commit della transazione
+     */
+    private void invalidaFormati(String chiave) {
+        InvalidazioneDopoCommit.esegui(() -> {
+            if (chiave == null) {
+                formati.clear();
+            } else {
+                formati.remove(chiave);
+            }
+        });
     }
 
     /**
@@ -124,6 +250,9 @@ public class NumerazioneService {
      * Crea o aggiorna la configurazione di numerazione
      */
     public Numerazione saveNumerazione(Numerazione numerazione) {
+        scartaBlocco(numerazione.getTipoDocumento(), numerazione.getAnno());
+        // Tipo e anno della numerazione salvata potrebbero essere cambiati: si svuota l'intera cache
+        invalidaFormati(null);
         return numerazioneRepository.save(numerazione);
     }
 
@@ -152,6 +281,7 @@ public class NumerazioneService {
         numerazione.setLunghezzaNumero(lunghezza);
         
         numerazioneRepository.save(numerazione);
+        invalidaFormati(tipoStr + "/" + anno);
     }
 
     /**
@@ -167,6 +297,8 @@ public class NumerazioneService {
             Numerazione numerazione = numerazioneOpt.get();
             numerazione.resetPerAnno(anno);
             numerazioneRepository.save(numerazione);
+            scartaBlocco(tipoStr, anno);
+            invalidaFormati(tipoStr + "/" + anno);
         }
     }
 
@@ -186,6 +318,7 @@ public class NumerazioneService {
                 numerazione.setUltimoNumero(0L);
                 
                 numerazioneRepository.save(numerazione);
+                invalidaFormati(tipoStr + "/" + annoCorrente);
             }
         }
     }
@@ -228,6 +361,7 @@ public class NumerazioneService {
                 nuova.setLunghezzaNumero(vecchia.getLunghezzaNumero());
                 
                 numerazioneRepository.save(nuova);
+                invalidaFormati(nuova.getTipoDocumento() + "/" + annoCorrente);
             }
         }
     }
@@ -256,6 +390,8 @@ public class NumerazioneService {
             if (ultimoNumero > numerazione.getUltimoNumero()) {
                 numerazione.setUltimoNumero(ultimoNumero);
                 numerazioneRepository.save(numerazione);
+                scartaBlocco(tipoStr, anno);
+                invalidaFormati(tipoStr + "/" + anno);
             }
         } else {
             Numerazione nuova = new Numerazione();
@@ -263,6 +399,71 @@ public class NumerazioneService {
             nuova.setAnno(anno);
             nuova.setUltimoNumero(ultimoNumero);
             numerazioneRepository.save(nuova);
+            invalidaFormati(tipoStr + "/" + anno);
+        }
+    }
+
+    /**
+     * Intervallo di numeri riservato sul database e assegnato in memoria senza lock
+     */
+    private static class BloccoNumeri {
+        private final AtomicLong successivo;
+        private final long ultimo;
+
+        BloccoNumeri(long primo, long ultimo) {
+            this.successivo = new AtomicLong(primo);
+            this.ultimo = ultimo;
+        }
+
+        /**
+         * Assegna il prossimo numero del blocco, oppure -1 se il blocco è esaurito
+         */
+        long assegna() {
+            long numero = successivo.getAndIncrement();
+            return numero <= ultimo ? numero : -1;
+        }
+
+        long prossimo() {
+            return successivo.get();
+        }
+
+        boolean disponibile() {
+            return successivo.get() <= ultimo;
+        }
+    }
+
+    /**
+     * Formato di una numerazione, separato dall'entità per poter essere condiviso tra i thread.
+     * Produce lo stesso risultato di Numerazione.formatNumero.
+     */
+    private static class FormatoNumero {
+        static final FormatoNumero NESSUNO = new FormatoNumero("", "", 0);
+
+        private final String prefisso;
+        private final String suffisso;
+        private final int lunghezza;
+
+        FormatoNumero(Numerazione numerazione) {
+            this(numerazione.getPrefisso(), numerazione.getSuffisso(), numerazione.getLunghezzaNumero());
+        }
+
+        FormatoNumero(String prefisso, String suffisso, Integer lunghezza) {
+            this.prefisso = prefisso != null ? prefisso : "";
+            this.suffisso = suffisso != null ? suffisso : "";
+            this.lunghezza = lunghezza != null ? lunghezza : 0;
+        }
+
+        String formatta(Long numero) {
+            String cifre = numero.toString();
+            if (prefisso.isEmpty() && suffisso.isEmpty() && cifre.length() >= lunghezza) {
+                return cifre;
+            }
+            StringBuilder formattato = new StringBuilder(prefisso.length() + Math.max(lunghezza, cifre.length()) + suffisso.length());
+            formattato.append(prefisso);
+            for (int i = cifre.length(); i < lunghezza; i++) {
+                formattato.append('0');
+            }
+            return formattato.append(cifre).append(suffisso).toString();
         }
     }
 }
@@ -0,0 +1,74 @@
+package com.gestionale.service;
+
+import com.gestionale.entity.Documento;
+import com.gestionale.entity.TipoDocumento;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+
+/**
+ * Aggiorna le bitmap di VerificaNumerazioneService quando un documento viene inserito, eliminato
+ * o cambia tipo, numero o anno. Gli aggiornamenti sono applicati solo dopo il commit della transazione.
+ * Gli UPDATE e DELETE massivi in JPQL o SQL non passano da qui e vanno segnalati con invalida().
+ */
+@Component
+public class NumeriDocumentoListener extends ListenerDopoCommit {
+
+    @Autowired
+    private VerificaNumerazioneService verificaNumerazioneService;
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Documento) {
+            Documento documento = (Documento) event.getEntity();
+            TipoDocumento tipo = documento.getTipoDocumento();
+            Integer anno = documento.getAnno();
+            Long numero = documento.getNumero();
+            dopoCommit(event.getSession(), () -> verificaNumerazioneService.registraInserimento(tipo, anno, numero));
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Documento) {
+            Documento documento = (Documento) event.getEntity();
+            TipoDocumento tipo = documento.getTipoDocumento();
+            Integer anno = documento.getAnno();
+            Long numero = documento.getNumero();
+            dopoCommit(event.getSession(), () -> verificaNumerazioneService.registraEliminazione(tipo, anno, numero));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Documento)) {
+            return;
+        }
+        Documento documento = (Documento) event.getEntity();
+        Object[] statoPrecedente = event.getOldState();
+        if (statoPrecedente == null) {
+            // Valori precedenti sconosciuti (aggiornamento di un'entità non caricata): le bitmap vanno ricaricate
+            dopoCommit(event.getSession(), verificaNumerazioneService::invalida);
+            return;
+        }
+        EntityPersister persister = event.getPersister();
+        TipoDocumento tipoPrecedente = (TipoDocumento) statoPrecedente[persister.getEntityMetamodel().getPropertyIndex("tipoDocumento")];
+        Long numeroPrecedente = (Long) statoPrecedente[persister.getEntityMetamodel().getPropertyIndex("numero")];
+        Integer annoPrecedente = (Integer) statoPrecedente[persister.getEntityMetamodel().getPropertyIndex("anno")];
+
+        TipoDocumento tipo = documento.getTipoDocumento();
+        Long numero = documento.getNumero();
+        Integer anno = documento.getAnno();
+        if (tipo != tipoPrecedente || !Objects.equals(numero, numeroPrecedente) || !Objects.equals(anno, annoPrecedente)) {
+            dopoCommit(event.getSession(), () -> {
+                verificaNumerazioneService.registraEliminazione(tipoPrecedente, annoPrecedente, numeroPrecedente);
+                verificaNumerazioneService.registraInserimento(tipo, anno, numero);
+            });
+        }
+    }
+}
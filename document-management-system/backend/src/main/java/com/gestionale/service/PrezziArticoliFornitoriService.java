@@ -0,0 +1,83 @@
+package com.gestionale.service;
+
+import com.gestionale.dto.StatistichePrezzoDto;
+import com.gestionale.entity.PrezzoArticoloFornitore;
+import com.gestionale.repository.PrezzoArticoloFornitoreRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Interrogazioni sullo storico prezzi degli articoli fornitori (andamento, ultimo prezzo,
+ * minimo e massimo per periodo), calcolate interamente dal database
+ */
+@Service
+@Transactional(readOnly = true)
+public class PrezziArticoliFornitoriService {
+
+    // Estremi usati quando l'intervallo di date non è indicato
+    private static final LocalDate DATA_MINIMA = LocalDate.of(1900, 1, 1);
+    private static final LocalDate DATA_MASSIMA = LocalDate.of(9999, 12, 31);
+
+    @Autowired
+    private PrezzoArticoloFornitoreRepository prezzoRepository;
+
+    /**
+     * Prezzi di un articolo in ordine cronologico, di un fornitore o di tutti se non indicato
+     */
+    public List<PrezzoArticoloFornitore> getAndamento(String codice, String fornitore, LocalDate da, LocalDate a) {
+        verificaCodice(codice);
+        return prezzoRepository.findAndamento(codice.trim(), normalizzaFornitore(fornitore), inizio(da, a), fine(a));
+    }
+
+    /**
+     * Ultimo prezzo registrato per un articolo di un fornitore
+     */
+    public Optional<PrezzoArticoloFornitore> getUltimoPrezzo(String codice, String fornitore) {
+        verificaCodice(codice);
+        if (normalizzaFornitore(fornitore) == null) {
+            throw new IllegalArgumentException("Partita IVA del fornitore obbligatoria");
+        }
+        return prezzoRepository.findFirstByCodiceAndFornitorePartitaIvaOrderByDataPrezzoDescIdDesc(codice.trim(), fornitore.trim());
+    }
+
+    /**
+     * Prezzo minimo, massimo e medio per mese o per anno
+     */
+    public List<StatistichePrezzoDto> getStatistiche(String codice, String fornitore, String periodo, LocalDate da, LocalDate a) {
+        verificaCodice(codice);
+        String fornitoreNormalizzato = normalizzaFornitore(fornitore);
+        if (periodo == null || "mese".equalsIgnoreCase(periodo)) {
+            return prezzoRepository.findStatisticheMensili(codice.trim(), fornitoreNormalizzato, inizio(da, a), fine(a));
+        }
+        if ("anno".equalsIgnoreCase(periodo)) {
+            return prezzoRepository.findStatisticheAnnuali(codice.trim(), fornitoreNormalizzato, inizio(da, a), fine(a));
+        }
+        throw new IllegalArgumentException("Periodo non valido: " + periodo + " (valori ammessi: mese, anno)");
+    }
+
+    private static void verificaCodice(String codice) {
+        if (codice == null || codice.trim().isEmpty()) {
+            throw new IllegalArgumentException("Codice articolo obbligatorio");
+        }
+    }
+
+    private static String normalizzaFornitore(String fornitore) {
+        return fornitore != null && !fornitore.trim().isEmpty() ? fornitore.trim() : null;
+    }
+
+    private static LocalDate inizio(LocalDate da, LocalDate a) {
+        if (da != null && a != null && da.isAfter(a)) {
+            throw new IllegalArgumentException("La data iniziale è successiva alla data finale");
+        }
+        return da != null ? da : DATA_MINIMA;
+    }
+
+    private static LocalDate fine(LocalDate a) {
+        return a != null ? a : DATA_MASSIMA;
+    }
+}
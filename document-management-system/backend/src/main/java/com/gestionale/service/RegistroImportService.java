@@ -0,0 +1,166 @@
+package com.gestionale.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.gestionale.entity.ArticoloFornitore;
+import com.gestionale.entity.RegistroImport;
+import com.gestionale.enums.TipoImport;
+import com.gestionale.repository.RegistroImportRecordRepository;
+import com.gestionale.repository.RegistroImportRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Registro delle importazioni: riconosce i file già importati dall'hash del contenuto
+ * e, per gli articoli fornitori, i singoli record già importati, così da non rielaborarli.
+ * Un file non viene più riconosciuto quando i dati del suo tipo sono modificati o eliminati dall'utente;
+ * un record quando il suo articolo è stato modificato o eliminato dopo la registrazione.
+ */
+@Service
+public class RegistroImportService {
+
+    private static final DateTimeFormatter FORMATO_DATA_ORA = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+
+    // Numero massimo di impronte passate in una singola query IN
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+
+    @Autowired
+    private RegistroImportRepository registroImportRepository;
+
+    @Autowired
+    private RegistroImportRecordRepository registroImportRecordRepository;
+
+    // Chiavi ordinate, così lo stesso record produce sempre la stessa impronta
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+    /**
+     * Hash SHA-256 del contenuto della sorgente, calcolato in streaming
+     */
+    public String hashFile(InputStreamSource sorgente) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream inputStream = sorgente.getInputStream()) {
+            int letti;
+            while ((letti = inputStream.read(buffer)) != -1) {
+                digest.update(buffer, 0, letti);
+            }
+        }
+        return esadecimale(digest.digest());
+    }
+
+    /**
+     * Impronta di un record, indipendente dall'ordine dei campi. Può essere calcolata in parallelo.
+     */
+    public String hashRecord(Map<String, Object> record) {
+        try {
+            return esadecimale(sha256().digest(objectMapper.writeValueAsBytes(record)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Record non serializzabile: " + e.getMessage(), e);
+        }
+    }
+
+    public Optional<RegistroImport> trovaImportazione(TipoImport tipo, String hashFile) {
+        return registroImportRepository.findByTipoAndHashFile(tipo, hashFile);
+    }
+
+    /**
+     * Registra un file importato completamente; una registrazione concorrente dello stesso file viene ignorata
+     */
+    public void registraImportazione(TipoImport tipo, String hashFile, InputStreamSource sorgente,
+                                     int recordTotali, int recordImportati) {
+        if (registroImportRepository.findByTipoAndHashFile(tipo, hashFile).isPresent()) {
+            return;
+        }
+        try {
+            registroImportRepository.save(new RegistroImport(tipo, hashFile, nomeFile(sorgente), recordTotali, recordImportati));
+        } catch (DataIntegrityViolationException e) {
+            // Stesso file registrato nel frattempo da un'altra importazione
+        }
+    }
+
+    /**
+     * Messaggio restituito quando il file caricato è già stato importato
+     */
+    public String messaggioGiaImportato(RegistroImport registro) {
+        return String.format("File già importato il %s (%s): %d/%d record importati, nessun record rielaborato",
+            registro.getImportatoIl().format(FORMATO_DATA_ORA),
+            registro.getNomeFile() != null ? registro.getNomeFile() : "nome non disponibile",
+            registro.getRecordImportati(), registro.getRecordTotali());
+    }
+
+    /**
+     * Dimentica i file importati dei tipi indicati, da chiamare quando l'utente modifica o elimina i dati importati:
+     * ricaricando lo stesso file i record vengono rielaborati. Eseguito nella transazione del chiamante.
+     */
+    public void invalidaImportazioni(TipoImport... tipi) {
+        registroImportRepository.deleteByTipoIn(Arrays.asList(tipi));
+    }
+
+    /**
+     * Impronte già registrate tra quelle indicate il cui articolo fornitore esiste ancora
+     * e non è stato modificato dopo la registrazione, cercate a blocchi
+     */
+    public Set<String> hashRecordArticoliFornitoriInvariati(Collection<String> hash) {
+        Set<String> invariati = new HashSet<>();
+        List<String> daCercare = new ArrayList<>(hash);
+        for (int i = 0; i < daCercare.size(); i += LOOKUP_CHUNK_SIZE) {
+            invariati.addAll(registroImportRecordRepository.findHashArticoliFornitoriInvariati(
+                daCercare.subList(i, Math.min(i + LOOKUP_CHUNK_SIZE, daCercare.size()))));
+        }
+        return invariati;
+    }
+
+    /**
+     * Registra le impronte dei record importati con la chiave dell'articolo scritto;
+     * va chiamato nella transazione che salva i record, dopo l'upsert
+     */
+    public void registraRecordArticoliFornitori(Map<String, ArticoloFornitore> articoliPerHash) {
+        registroImportRecordRepository.registraTutti(TipoImport.ARTICOLI_FORNITORI, articoliPerHash);
+    }
+
+    private String nomeFile(InputStreamSource sorgente) {
+        if (sorgente instanceof MultipartFile) {
+            return ((MultipartFile) sorgente).getOriginalFilename();
+        }
+        if (sorgente instanceof Resource) {
+            return ((Resource) sorgente).getFilename();
+        }
+        return null;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 non disponibile", e);
+        }
+    }
+
+    private static String esadecimale(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,54 @@
+package com.gestionale.service;
+
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Aggiorna gli indici di SuggerimentiService quando un cliente, un articolo o un articolo fornitore
+ * viene inserito, modificato o eliminato. Gli aggiornamenti sono applicati solo dopo il commit della transazione.
+ * Le scritture massive in JPQL o SQL non passano da qui e vanno segnalate con invalida().
+ */
+@Component
+public class SuggerimentiListener extends ListenerDopoCommit {
+
+    @Autowired
+    private SuggerimentiService suggerimentiService;
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        registraVoce(event.getSession(), event.getPersister(), event.getEntity(), event.getId());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        registraVoce(event.getSession(), event.getPersister(), event.getEntity(), event.getId());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        SuggerimentiService.Risorsa risorsa = SuggerimentiService.Risorsa.di(event.getEntity());
+        if (risorsa != null) {
+            long id = (Long) event.getId();
+            dopoCommit(event.getSession(), () -> suggerimentiService.rimuovi(risorsa, id));
+        }
+    }
+
+    private void registraVoce(EventSource session, EntityPersister persister, Object entita, Object id) {
+        SuggerimentiService.Risorsa risorsa = SuggerimentiService.Risorsa.di(entita);
+        if (risorsa == null) {
+            return;
+        }
+        // Valori letti ora: dopo il commit l'entità potrebbe essere già cambiata
+        Object categoria = risorsa.getCategoria() != null ? persister.getPropertyValue(entita, risorsa.getCategoria()) : null;
+        IndiceTrigrammi.Voce voce = new IndiceTrigrammi.Voce((Long) id,
+            (String) persister.getPropertyValue(entita, risorsa.getTesto()),
+            (String) persister.getPropertyValue(entita, risorsa.getDettaglio()),
+            categoria != null ? categoria.toString() : null);
+        dopoCommit(session, () -> suggerimentiService.aggiorna(risorsa, voce));
+    }
+}
@@ -0,0 +1,196 @@
+package com.gestionale.service;
+
+import com.gestionale.dto.SuggerimentoDto;
+import com.gestionale.entity.Articolo;
+import com.gestionale.entity.ArticoloFornitore;
+import com.gestionale.entity.Cliente;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Suggerimenti durante la digitazione per clienti/fornitori, articoli e articoli fornitori,
+ * serviti da indici a trigrammi in memoria (vedi IndiceTrigrammi) senza interrogare il database.
+ * Gli indici sono caricati una volta e poi aggiornati a ogni modifica confermata (vedi SuggerimentiListener).
+ */
+@Service
+public class SuggerimentiService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SuggerimentiService.class);
+
+    public static final int LIMITE_PREDEFINITO = 10;
+    public static final int LIMITE_MASSIMO = 50;
+
+    /**
+     * Elenchi per cui sono disponibili i suggerimenti, con le proprietà indicizzate
+     */
+    public enum Risorsa {
+        CLIENTI(Cliente.class, "ragioneSociale", "partitaIva", "tipo"),
+        ARTICOLI(Articolo.class, "descrizione", "codice", null),
+        ARTICOLI_FORNITORI(ArticoloFornitore.class, "descrizione", "codice", "fornitorePartitaIva");
+
+        private final Class<?> entita;
+        private final String testo;
+        private final String dettaglio;
+        private final String categoria;
+
+        Risorsa(Class<?> entita, String testo, String dettaglio, String categoria) {
+            this.entita = entita;
+            this.testo = testo;
+            this.dettaglio = dettaglio;
+            this.categoria = categoria;
+        }
+
+        Class<?> getEntita() { return entita; }
+        String getTesto() { return testo; }
+        String getDettaglio() { return dettaglio; }
+        String getCategoria() { return categoria; }
+
+        static Risorsa di(Object entita) {
+            for (Risorsa risorsa : values()) {
+                if (risorsa.entita.isInstance(entita)) {
+                    return risorsa;
+                }
+            }
+            return null;
+        }
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Carica all'avvio, in background, tutti gli indici
+    @Value("${suggerimenti.precarica:true}")
+    private boolean precarica;
+
+    private final TransactionTemplate transazioneLettura;
+
+    private final Map<Risorsa, IndiceTrigrammi> indici = new EnumMap<>(Risorsa.class);
+
+    @Autowired
+    public SuggerimentiService(PlatformTransactionManager transactionManager) {
+        this.transazioneLettura = new TransactionTemplate(transactionManager);
+        this.transazioneLettura.setReadOnly(true);
+        for (Risorsa risorsa : Risorsa.values()) {
+            indici.put(risorsa, new IndiceTrigrammi());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void precaricaIndici() {
+        if (!precarica) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            for (Risorsa risorsa : Risorsa.values()) {
+                try {
+                    indice(risorsa);
+                } catch (RuntimeException e) {
+                    logger.warn("Precaricamento suggerimenti {} non riuscito: {}", risorsa, e.getMessage());
+                }
+            }
+        }, "suggerimenti");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Suggerimenti per un testo parziale, limitati alle categorie indicate se non null
+     */
+    public List<SuggerimentoDto> suggerisci(Risorsa risorsa, String testo, Set<String> categorie, Integer limite) {
+        if (testo == null || testo.trim().isEmpty()) {
+            return Collections.emptyList();
+        }
+        int massimo = limite != null ? Math.min(Math.max(limite, 1), LIMITE_MASSIMO) : LIMITE_PREDEFINITO;
+        return indice(risorsa).cerca(testo, categorie, massimo).stream()
+            .map(voce -> new SuggerimentoDto(voce.id, voce.testo, voce.dettaglio))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Suggerimenti sulle anagrafiche; un tipo CLIENTE o FORNITORE comprende anche i CLIENTE_FORNITORE
+     */
+    public List<SuggerimentoDto> suggerisciClienti(String testo, Cliente.TipoCliente tipo, Integer limite) {
+        Set<String> categorie = null;
+        if (tipo == Cliente.TipoCliente.CLIENTE_FORNITORE) {
+            categorie = Set.of(tipo.name());
+        } else if (tipo != null) {
+            categorie = Set.of(tipo.name(), Cliente.TipoCliente.CLIENTE_FORNITORE.name());
+        }
+        return suggerisci(Risorsa.CLIENTI, testo, categorie, limite);
+    }
+
+    /**
+     * Suggerimenti sugli articoli fornitori, eventualmente di un solo fornitore (partita IVA)
+     */
+    public List<SuggerimentoDto> suggerisciArticoliFornitori(String testo, String partitaIvaFornitore, Integer limite) {
+        Set<String> categorie = partitaIvaFornitore != null && !partitaIvaFornitore.trim().isEmpty()
+            ? Set.of(partitaIvaFornitore.trim())
+            : null;
+        return suggerisci(Risorsa.ARTICOLI_FORNITORI, testo, categorie, limite);
+    }
+
+    /**
+     * Inserisce o sostituisce un elemento appena confermato
+     */
+    void aggiorna(Risorsa risorsa, IndiceTrigrammi.Voce voce) {
+        indici.get(risorsa).aggiorna(voce);
+    }
+
+    /**
+     * Toglie un elemento eliminato
+     */
+    void rimuovi(Risorsa risorsa, long id) {
+        indici.get(risorsa).rimuovi(id);
+    }
+
+    /**
+     * Scarta un indice, che verrà ricaricato al prossimo suggerimento
+     * (scritture massive che non passano dagli eventi Hibernate, come gli upsert delle importazioni)
+     */
+    public void invalida(Risorsa risorsa) {
+        indici.get(risorsa).invalida();
+    }
+
+    private IndiceTrigrammi indice(Risorsa risorsa) {
+        IndiceTrigrammi indice = indici.get(risorsa);
+        if (!indice.isCaricato()) {
+            indice.caricaSeNecessario(() -> transazioneLettura.execute(status -> leggiVoci(risorsa)));
+            logger.info("Indice suggerimenti {} caricato: {} voci", risorsa, indice.dimensione());
+        }
+        return indice;
+    }
+
+    private List<IndiceTrigrammi.Voce> leggiVoci(Risorsa risorsa) {
+        // Nomi di entity e proprietà fissati nell'enum, mai dall'esterno
+        String jpql = "SELECT e.id, e." + risorsa.getTesto() + ", e." + risorsa.getDettaglio()
+            + (risorsa.getCategoria() != null ? ", e." + risorsa.getCategoria() : "")
+            + " FROM " + risorsa.getEntita().getSimpleName() + " e";
+        List<IndiceTrigrammi.Voce> voci = new ArrayList<>();
+        try (Stream<Object[]> righe = entityManager.createQuery(jpql, Object[].class)
+                .setHint("org.hibernate.fetchSize", 1000)
+                .setHint("org.hibernate.readOnly", true)
+                .getResultStream()) {
+            righe.forEach(riga -> voci.add(new IndiceTrigrammi.Voce((Long) riga[0], (String) riga[1], (String) riga[2],
+                riga.length > 3 && riga[3] != null ? riga[3].toString() : null)));
+        }
+        return voci;
+    }
+}
@@ -0,0 +1,223 @@
+package com.gestionale.service;
+
+import com.gestionale.dto.VerificaNumerazioneDto;
+import com.gestionale.entity.TipoDocumento;
+import com.gestionale.repository.DocumentoRepository;
+import com.gestionale.repository.NumerazioneRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+
+/**
+ * Verifica delle numerazioni senza scansioni della tabella documenti.
+ * Per ogni tipo documento e anno mantiene in memoria una bitmap dei numeri usati, caricata una volta
+ * dal database e poi aggiornata a ogni inserimento ed eliminazione confermati (vedi NumeriDocumentoListener).
+ */
+@Service
+public class VerificaNumerazioneService {
+
+    private static final Logger logger = LoggerFactory.getLogger(VerificaNumerazioneService.class);
+
+    // Intervalli mancanti restituiti al massimo in una verifica
+    private static final int MAX_BUCHI_RESTITUITI = 1000;
+
+    @Autowired
+    private DocumentoRepository documentoRepository;
+
+    @Autowired
+    private NumerazioneRepository numerazioneRepository;
+
+    // Carica all'avvio, in background, le bitmap dei documenti fiscali dell'anno corrente
+    @Value("${numerazione.verifica.precarica:true}")
+    private boolean precarica;
+
+    private final TransactionTemplate transazioneLettura;
+
+    private final ConcurrentMap<String, NumeriUsati> numeriUsati = new ConcurrentHashMap<>();
+
+    @Autowired
+    public VerificaNumerazioneService(PlatformTransactionManager transactionManager) {
+        this.transazioneLettura = new TransactionTemplate(transactionManager);
+        this.transazioneLettura.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void precaricaAnnoCorrente() {
+        if (!precarica) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            int anno = LocalDate.now().getYear();
+            for (TipoDocumento tipo : TipoDocumento.values()) {
+                if (tipo.richiedeNumerazioneContinua()) {
+                    try {
+                        numeriUsati(tipo, anno);
+                    } catch (RuntimeException e) {
+                        logger.warn("Precaricamento numeri {}/{} non riuscito: {}", tipo, anno, e.getMessage());
+                    }
+                }
+            }
+        }, "verifica-numerazione");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Verifica la numerazione di un tipo documento per un anno: numeri mancanti e coerenza
+     * con l'ultimo numero registrato in numerazioni (per i documenti fiscali devono coincidere)
+     */
+    public VerificaNumerazioneDto verifica(TipoDocumento tipoDocumento, Integer anno) {
+        Long ultimoAssegnato = numerazioneRepository.getUltimoNumero(tipoDocumento.name(), anno);
+        long assegnato = ultimoAssegnato != null ? ultimoAssegnato : 0L;
+
+        VerificaNumerazioneDto verifica = new VerificaNumerazioneDto();
+        verifica.setTipoDocumento(tipoDocumento);
+        verifica.setAnno(anno);
+        verifica.setUltimoNumeroAssegnato(ultimoAssegnato);
+        verifica.setNumerazioneContinua(tipoDocumento.richiedeNumerazioneContinua());
+        numeriUsati(tipoDocumento, anno).riepiloga(verifica, assegnato);
+        return verifica;
+    }
+
+    /**
+     * Verifica tutte le numerazioni di un anno
+     */
+    public List<VerificaNumerazioneDto> verificaAnno(Integer anno) {
+        List<VerificaNumerazioneDto> verifiche = new ArrayList<>();
+        for (TipoDocumento tipo : TipoDocumento.values()) {
+            VerificaNumerazioneDto verifica = verifica(tipo, anno);
+            if (verifica.getUltimoNumeroAssegnato() != null || verifica.getDocumenti() > 0) {
+                verifiche.add(verifica);
+            }
+        }
+        return verifiche;
+    }
+
+    /**
+     * Registra un numero usato da un documento appena confermato
+     */
+    public void registraInserimento(TipoDocumento tipoDocumento, Integer anno, Long numero) {
+        NumeriUsati numeri = numeriUsati.get(chiave(tipoDocumento, anno));
+        if (numeri != null && numero != null) {
+            numeri.aggiungi(numero);
+        }
+    }
+
+    /**
+     * Libera il numero di un documento eliminato
+     */
+    public void registraEliminazione(TipoDocumento tipoDocumento, Integer anno, Long numero) {
+        NumeriUsati numeri = numeriUsati.get(chiave(tipoDocumento, anno));
+        if (numeri != null && numero != null) {
+            numeri.rimuovi(numero);
+        }
+    }
+
+    /**
+     * Scarta tutte le bitmap, che verranno ricaricate alla prossima verifica
+     * (modifiche ai documenti di cui non si conoscono i valori precedenti)
+     */
+    public void invalida() {
+        numeriUsati.clear();
+    }
+
+    private NumeriUsati numeriUsati(TipoDocumento tipoDocumento, Integer anno) {
+        NumeriUsati numeri = numeriUsati.computeIfAbsent(chiave(tipoDocumento, anno), chiave -> new NumeriUsati());
+        numeri.caricaSeNecessario(() -> transazioneLettura.execute(status -> {
+            BitSet usati = new BitSet();
+            try (Stream<Long> stream = documentoRepository.streamNumeriByTipoAndAnno(tipoDocumento, anno)) {
+                stream.forEach(numero -> usati.set(indice(numero)));
+            }
+            return usati;
+        }));
+        return numeri;
+    }
+
+    private static String chiave(TipoDocumento tipoDocumento, Integer anno) {
+        return tipoDocumento.name() + "/" + anno;
+    }
+
+    private static int indice(long numero) {
+        return Math.toIntExact(numero);
+    }
+
+    @FunctionalInterface
+    private interface Caricamento {
+        BitSet carica();
+    }
+
+    /**
+     * Bitmap dei numeri usati. Il caricamento avviene sotto lock: gli aggiornamenti confermati nel frattempo
+     * attendono e vengono applicati dopo, così nessuna modifica va persa.
+     */
+    private static class NumeriUsati {
+        private BitSet usati;
+
+        synchronized void caricaSeNecessario(Caricamento caricamento) {
+            if (usati == null) {
+                usati = caricamento.carica();
+            }
+        }
+
+        synchronized void aggiungi(long numero) {
+            if (usati != null) {
+                usati.set(indice(numero));
+            }
+        }
+
+        synchronized void rimuovi(long numero) {
+            if (usati != null) {
+                usati.clear(indice(numero));
+            }
+        }
+
+        /**
+         * Riporta conteggi e intervalli mancanti tra 1 e l'ultimo numero usato,
+         * oppure l'ultimo assegnato se maggiore (numeri assegnati ma senza documento)
+         */
+        synchronized void riepiloga(VerificaNumerazioneDto verifica, long ultimoAssegnato) {
+            long ultimoUsato = Math.max(usati.length() - 1, 0);
+            long limite = Math.max(ultimoUsato, ultimoAssegnato);
+            verifica.setDocumenti(usati.cardinality());
+            verifica.setUltimoNumeroUsato(ultimoUsato > 0 ? ultimoUsato : null);
+
+            long mancanti = 0;
+            int da = usati.nextClearBit(1);
+            while (da <= limite) {
+                int successivo = usati.nextSetBit(da);
+                long a = successivo < 0 ? limite : successivo - 1;
+                mancanti += a - da + 1;
+                if (verifica.getBuchi().size() < MAX_BUCHI_RESTITUITI) {
+                    verifica.getBuchi().add(new VerificaNumerazioneDto.IntervalloNumeri(da, a));
+                } else {
+                    verifica.setBuchiTroncati(true);
+                }
+                if (successivo < 0) {
+                    break;
+                }
+                da = usati.nextClearBit(successivo);
+            }
+            verifica.setNumeriMancanti(mancanti);
+
+            // I numeri riservati a blocchi possono restare inutilizzati: per i tipi non fiscali
+            // basta che nessun documento superi l'ultimo numero registrato
+            verifica.setCoerente(verifica.isNumerazioneContinua()
+                ? mancanti == 0 && ultimoUsato == ultimoAssegnato
+                : ultimoUsato <= ultimoAssegnato);
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.gestionale.validation;
+
+import java.util.Set;
+
+/**
+ * Validatori dei campi anagrafici usati dalle importazioni di clienti, fornitori e articoli.
+ * I controlli sono scansioni dei caratteri, senza espressioni regolari, e non allocano sul percorso valido:
+ * le verifiche restituiscono null se il valore è corretto, altrimenti l'errore da riportare.
+ */
+public final class AnagraficaValidator {
+
+    // Sigle delle province italiane, più EE per gli indirizzi esteri
+    private static final Set<String> SIGLE_PROVINCIA = Set.of(
+        "AG", "AL", "AN", "AO", "AP", "AQ", "AR", "AT", "AV", "BA", "BG", "BI", "BL", "BN", "BO", "BR", "BS", "BT",
+        "BZ", "CA", "CB", "CE", "CH", "CL", "CN", "CO", "CR", "CS", "CT", "CZ", "EN", "FC", "FE", "FG", "FI", "FM",
+        "FR", "GE", "GO", "GR", "IM", "IS", "KR", "LC", "LE", "LI", "LO", "LT", "LU", "MB", "MC", "ME", "MI", "MN",
+        "MO", "MS", "MT", "NA", "NO", "NU", "OR", "PA", "PC", "PD", "PE", "PG", "PI", "PN", "PO", "PR", "PT", "PU",
+        "PV", "PZ", "RA", "RC", "RE", "RG", "RI", "RM", "RN", "RO", "SA", "SI", "SO", "SP", "SR", "SS", "SU", "SV",
+        "TA", "TE", "TN", "TO", "TP", "TR", "TS", "TV", "UD", "VA", "VB", "VC", "VE", "VI", "VR", "VT", "VV", "EE");
+
+    // Valori dei caratteri in posizione dispari del codice fiscale, per cifre (0-9) e lettere (A-Z)
+    private static final int[] CF_DISPARI_CIFRE = {1, 0, 5, 7, 9, 13, 15, 17, 19, 21};
+    private static final int[] CF_DISPARI_LETTERE = {
+        1, 0, 5, 7, 9, 13, 15, 17, 19, 21, 2, 4, 18, 20, 11, 3, 6, 8, 12, 14, 16, 10, 22, 25, 24, 23};
+
+    // Lettere che sostituiscono le cifre nei codici fiscali omocodici
+    private static final String CF_OMOCODIA = "LMNPQRSTUV";
+    private static final String CF_MESI = "ABCDEHLMPRST";
+
+    private AnagraficaValidator() {
+    }
+
+    /**
+     * Rimuove dalla Partita IVA tutto ciò che non è una cifra (spazi, prefisso IT, separatori).
+     * Se il valore contiene già solo cifre viene restituito senza copie.
+     */
+    public static String pulisciPartitaIva(String partitaIva) {
+        if (partitaIva == null) {
+            return null;
+        }
+        int lunghezza = partitaIva.length();
+        int i = 0;
+        while (i < lunghezza && isCifra(partitaIva.charAt(i))) {
+            i++;
+        }
+        if (i == lunghezza) {
+            return partitaIva;
+        }
+        StringBuilder cifre = new StringBuilder(lunghezza);
+        cifre.append(partitaIva, 0, i);
+        for (; i < lunghezza; i++) {
+            char c = partitaIva.charAt(i);
+            if (isCifra(c)) {
+                cifre.append(c);
+            }
+        }
+        return cifre.toString();
+    }
+
+    /**
+     * Verifica una Partita IVA già pulita: 11 cifre e cifra di controllo
+     */
+    public static ErroreAnagrafica verificaPartitaIva(String partitaIva) {
+        if (partitaIva == null || partitaIva.isEmpty()) {
+            return ErroreAnagrafica.PARTITA_IVA_OBBLIGATORIA;
+        }
+        if (partitaIva.length() != 11 || !soloCifre(partitaIva, 0, 11)) {
+            return ErroreAnagrafica.PARTITA_IVA_FORMATO;
+        }
+        return cifraControlloPartitaIva(partitaIva) == partitaIva.charAt(10) - '0'
+            ? null : ErroreAnagrafica.PARTITA_IVA_CONTROLLO;
+    }
+
+    public static boolean isPartitaIvaValida(String partitaIva) {
+        return verificaPartitaIva(partitaIva) == null;
+    }
+
+    /**
+     * Verifica un codice fiscale di persona fisica (16 caratteri, anche omocodico)
+     * oppure numerico di persona giuridica (11 cifre, come la Partita IVA)
+     */
+    public static ErroreAnagrafica verificaCodiceFiscale(String codiceFiscale) {
+        if (codiceFiscale == null) {
+            return ErroreAnagrafica.CODICE_FISCALE_FORMATO;
+        }
+        if (codiceFiscale.length() == 11) {
+            ErroreAnagrafica errore = verificaPartitaIva(codiceFiscale);
+            if (errore == ErroreAnagrafica.PARTITA_IVA_CONTROLLO) {
+                return ErroreAnagrafica.CODICE_FISCALE_CONTROLLO;
+            }
+            return errore == null ? null : ErroreAnagrafica.CODICE_FISCALE_FORMATO;
+        }
+        if (codiceFiscale.length() != 16 || !formatoCodiceFiscale(codiceFiscale)) {
+            return ErroreAnagrafica.CODICE_FISCALE_FORMATO;
+        }
+        int somma = 0;
+        for (int i = 0; i < 15; i++) {
+            char c = Character.toUpperCase(codiceFiscale.charAt(i));
+            if (i % 2 == 0) {
+                somma += isCifra(c) ? CF_DISPARI_CIFRE[c - '0'] : CF_DISPARI_LETTERE[c - 'A'];
+            } else {
+                somma += isCifra(c) ? c - '0' : c - 'A';
+            }
+        }
+        return Character.toUpperCase(codiceFiscale.charAt(15)) == (char) ('A' + somma % 26)
+            ? null : ErroreAnagrafica.CODICE_FISCALE_CONTROLLO;
+    }
+
+    public static boolean isCodiceFiscaleValido(String codiceFiscale) {
+        return verificaCodiceFiscale(codiceFiscale) == null;
+    }
+
+    /**
+     * CAP italiano: esattamente 5 cifre
+     */
+    public static boolean isCapValido(String cap) {
+        return cap != null && cap.length() == 5 && soloCifre(cap, 0, 5);
+    }
+
+    /**
+     * Sigla di provincia italiana (maiuscola), oppure EE per l'estero
+     */
+    public static boolean isProvinciaValida(String provincia) {
+        return provincia != null && provincia.length() == 2 && SIGLE_PROVINCIA.contains(provincia);
+    }
+
+    /**
+     * Email nella forma locale@dominio.tld: una sola chiocciola, parte locale non vuota,
+     * dominio con almeno un punto, etichette non vuote e suffisso di almeno due lettere
+     */
+    public static boolean isEmailValida(String email) {
+        if (email == null) {
+            return false;
+        }
+        int chiocciola = email.indexOf('@');
+        if (chiocciola <= 0 || chiocciola != email.lastIndexOf('@')) {
+            return false;
+        }
+        for (int i = 0; i < chiocciola; i++) {
+            char c = email.charAt(i);
+            if (!isAlfanumerico(c) && "._%+'-".indexOf(c) < 0) {
+                return false;
+            }
+        }
+        int lunghezza = email.length();
+        int ultimoPunto = -1;
+        for (int i = chiocciola + 1; i < lunghezza; i++) {
+            char c = email.charAt(i);
+            if (c == '.') {
+                // Etichette del dominio non vuote
+                if (i == chiocciola + 1 || i == ultimoPunto + 1) {
+                    return false;
+                }
+                ultimoPunto = i;
+            } else if (!isAlfanumerico(c) && c != '-') {
+                return false;
+            }
+        }
+        if (ultimoPunto < 0 || lunghezza - ultimoPunto - 1 < 2) {
+            return false;
+        }
+        for (int i = ultimoPunto + 1; i < lunghezza; i++) {
+            char c = email.charAt(i);
+            if (!(c >= 'A' && c <= 'Z') && !(c >= 'a' && c <= 'z')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Verifica un indirizzo email, restituendo l'errore se non valido
+     */
+    public static ErroreAnagrafica verificaEmail(String email) {
+        return isEmailValida(email) ? null : ErroreAnagrafica.EMAIL_NON_VALIDA;
+    }
+
+    private static int cifraControlloPartitaIva(String partitaIva) {
+        int somma = 0;
+        for (int i = 0; i < 10; i++) {
+            int cifra = partitaIva.charAt(i) - '0';
+            if (i % 2 == 1) {
+                cifra *= 2;
+                if (cifra > 9) {
+                    cifra -= 9;
+                }
+            }
+            somma += cifra;
+        }
+        return (10 - somma % 10) % 10;
+    }
+
+    /**
+     * Struttura del codice fiscale: cognome e nome (6 lettere), anno (2), mese (lettera), giorno (2),
+     * comune (lettera + 3) e carattere di controllo; le cifre possono essere sostituite per omocodia
+     */
+    private static boolean formatoCodiceFiscale(String codiceFiscale) {
+        for (int i = 0; i < 16; i++) {
+            char c = Character.toUpperCase(codiceFiscale.charAt(i));
+            boolean valido;
+            switch (i) {
+                case 6: case 7: case 9: case 10: case 12: case 13: case 14:
+                    valido = isCifra(c) || CF_OMOCODIA.indexOf(c) >= 0;
+                    break;
+                case 8:
+                    valido = CF_MESI.indexOf(c) >= 0;
+                    break;
+                default:
+                    valido = c >= 'A' && c <= 'Z';
+            }
+            if (!valido) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean soloCifre(String valore, int da, int a) {
+        for (int i = da; i < a; i++) {
+            if (!isCifra(valore.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isCifra(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isAlfanumerico(char c) {
+        return isCifra(c) || (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z');
+    }
+}
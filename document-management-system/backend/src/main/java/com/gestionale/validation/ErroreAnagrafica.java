@@ -0,0 +1,34 @@
+package com.gestionale.validation;
+
+/**
+ * Errori di validazione dei dati anagrafici.
+ * Il messaggio viene composto solo quando l'errore deve essere riportato.
+ */
+public enum ErroreAnagrafica {
+
+    PARTITA_IVA_OBBLIGATORIA("Partita IVA obbligatoria"),
+    PARTITA_IVA_FORMATO("Partita IVA non valida (deve essere di 11 cifre)"),
+    PARTITA_IVA_CONTROLLO("Partita IVA non valida (cifra di controllo errata)"),
+    CODICE_FISCALE_FORMATO("Codice fiscale non valido"),
+    CODICE_FISCALE_CONTROLLO("Codice fiscale non valido (carattere di controllo errato)"),
+    CAP_NON_VALIDO("CAP non valido (deve essere di 5 cifre)"),
+    PROVINCIA_NON_VALIDA("Sigla provincia non valida"),
+    EMAIL_NON_VALIDA("Email non valida");
+
+    private final String descrizione;
+
+    ErroreAnagrafica(String descrizione) {
+        this.descrizione = descrizione;
+    }
+
+    public String getDescrizione() {
+        return descrizione;
+    }
+
+    /**
+     * Messaggio nel formato del report di importazione con il valore rifiutato: "Riga N: descrizione (valore)"
+     */
+    public String messaggio(int riga, String valore) {
+        return "Riga " + riga + ": " + descrizione + " (" + valore + ")";
+    }
+}
@@ -0,0 +1,84 @@
+package com.gestionale.service;
+
+import com.gestionale.dto.RiepilogoFornitoreDto;
+import com.gestionale.entity.ArticoloFornitore;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica il riepilogo dei fornitori calcolato sul database e la sua cache
+ */
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "suggerimenti.precarica=false"
+})
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ArticoloFornitoreService.class, RegistroImportService.class, SuggerimentiService.class})
+class ArticoloFornitoreServiceRiepilogoTest {
+
+    @Autowired
+    private ArticoloFornitoreService articoloFornitoreService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void riepilogoRaggruppatoPerPartitaIvaETenutoInCache() {
+        entityManager.persist(articolo("A1", "02000000000", "Zeta Forniture", LocalDate.of(2024, 3, 1)));
+        entityManager.persist(articolo("A2", "02000000000", "Zeta Forniture", LocalDate.of(2024, 5, 1)));
+        entityManager.persist(articolo("B1", "01000000000", "Alfa Ricambi", null));
+        entityManager.flush();
+        statistiche().clear();
+
+        List<RiepilogoFornitoreDto> riepilogo = articoloFornitoreService.getRiepilogoFornitori();
+        assertEquals(2, riepilogo.size());
+        assertEquals("Alfa Ricambi", riepilogo.get(0).getRagioneSociale());
+        assertEquals(1L, riepilogo.get(0).getNumeroArticoli());
+        RiepilogoFornitoreDto zeta = riepilogo.get(1);
+        assertEquals("02000000000", zeta.getPartitaIva());
+        assertEquals(2L, zeta.getNumeroArticoli());
+        assertEquals(LocalDate.of(2024, 5, 1), zeta.getUltimaDataDocumento());
+        assertEquals(List.of("Alfa Ricambi", "Zeta Forniture"), articoloFornitoreService.getAllFornitori());
+        // Una sola query: le letture successive vengono dalla cache
+        assertEquals(1, statistiche().getPrepareStatementCount());
+
+        articoloFornitoreService.createArticoloFornitore(articolo("C1", "03000000000", "Beta Utensili", null));
+        entityManager.flush();
+        assertEquals(List.of("Alfa Ricambi", "Beta Utensili", "Zeta Forniture"), articoloFornitoreService.getAllFornitori());
+    }
+
+    private static ArticoloFornitore articolo(String codice, String partitaIva, String ragioneSociale, LocalDate dataDocumento) {
+        ArticoloFornitore articolo = new ArticoloFornitore(codice, "Articolo " + codice);
+        articolo.setQuantita(1.0);
+        articolo.setPrezzoUnitario(10.0);
+        articolo.setImporto(10.0);
+        articolo.setUnitaMisura("NR");
+        articolo.setAliquotaIVA(22);
+        articolo.setFornitorePartitaIva(partitaIva);
+        articolo.setFornitoreRagioneSociale(ragioneSociale);
+        articolo.setFornitoreCategoria("Ferramenta");
+        articolo.setDataDocumento(dataDocumento);
+        return articolo;
+    }
+
+    private Statistics statistiche() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
@@ -0,0 +1,226 @@
+package com.gestionale.service;
+
+import com.gestionale.dto.DocumentoFilter;
+import com.gestionale.dto.DocumentoResponseDto;
+import com.gestionale.dto.DocumentoSintesiDto;
+import com.gestionale.dto.PaginaCursore;
+import com.gestionale.entity.CausaleTrasporto;
+import com.gestionale.entity.Documento;
+import com.gestionale.entity.ModalitaPagamento;
+import com.gestionale.entity.RigaDocumento;
+import com.gestionale.entity.Scadenza;
+import com.gestionale.entity.SoggettoFornitore;
+import com.gestionale.entity.TipoDocumento;
+import com.gestionale.enums.AliquotaIva;
+import com.gestionale.mapper.DocumentoMapperImpl;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica che elenco e dettaglio dei documenti vengano caricati con un numero di query
+ * indipendente dal numero di documenti (nessun caricamento lazy per singolo documento)
+ */
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "numerazione.verifica.precarica=false"
+})
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({DocumentoService.class, DocumentoMapperImpl.class, NumerazioneService.class})
+class DocumentoServiceCaricamentoTest {
+
+    private static final int DOCUMENTI = 50;
+
+    @Autowired
+    private DocumentoService documentoService;
+
+    @Autowired
+    private NumerazioneService numerazioneService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Long primoDocumentoId;
+
+    @BeforeEach
+    void creaDocumenti() {
+        ModalitaPagamento bonifico = new ModalitaPagamento();
+        bonifico.setCodice("BON");
+        bonifico.setDescrizione("Bonifico bancario");
+        entityManager.persist(bonifico);
+
+        CausaleTrasporto vendita = new CausaleTrasporto();
+        vendita.setCodice("VEN");
+        vendita.setDescrizione("Vendita");
+        entityManager.persist(vendita);
+
+        for (int i = 1; i <= DOCUMENTI; i++) {
+            // Un soggetto per documento: ogni associazione lazy non caricata costerebbe una query
+            SoggettoFornitore soggetto = new SoggettoFornitore();
+            soggetto.setRagioneSociale("Soggetto " + i);
+            entityManager.persist(soggetto);
+
+            Documento documento = new Documento();
+            documento.setTipoDocumento(TipoDocumento.PREVENTIVO);
+            documento.setNumero((long) i);
+            documento.setAnno(2024);
+            documento.setDataDocumento(LocalDate.of(2024, 1, 1).plusDays(i));
+            documento.setSoggetto(soggetto);
+            documento.setRagioneSociale(soggetto.getRagioneSociale());
+            documento.setModalitaPagamento(bonifico);
+            documento.setCausaleTrasporto(vendita);
+            for (int r = 1; r <= 3; r++) {
+                RigaDocumento riga = new RigaDocumento();
+                riga.setRigaNumero(r);
+                riga.setDescrizione("Riga " + r);
+                riga.setQuantita(BigDecimal.ONE);
+                riga.setPrezzoUnitario(BigDecimal.TEN);
+                riga.setAliquotaIva(AliquotaIva.VENTIDUE);
+                riga.calcolaTotali();
+                documento.addRiga(riga);
+            }
+            Scadenza scadenza = new Scadenza();
+            scadenza.setNumeroRata(1);
+            scadenza.setDataScadenza(documento.getDataDocumento().plusDays(30));
+            scadenza.setImporto(new BigDecimal("36.60"));
+            documento.addScadenza(scadenza);
+            entityManager.persist(documento);
+            if (primoDocumentoId == null) {
+                primoDocumentoId = documento.getId();
+            }
+        }
+        numerazioneService.configuraNumerazione(TipoDocumento.PREVENTIVO, 2024, "PR", "/24", 4);
+        // Formato già in cache, come dopo il primo elenco: le pagine non richiedono altre query
+        numerazioneService.formatNumber(TipoDocumento.PREVENTIVO, 1L, 2024);
+        entityManager.flush();
+        entityManager.clear();
+        statistiche().clear();
+    }
+
+    @Test
+    @DisplayName("Una pagina di 50 documenti viene caricata con un numero costante di query")
+    void elencoSenzaQueryPerDocumento() {
+        DocumentoFilter filtro = new DocumentoFilter();
+        filtro.setTipoDocumento(TipoDocumento.PREVENTIVO);
+
+        Page<DocumentoResponseDto> pagina = documentoService.getDocumenti(filtro, PageRequest.of(0, DOCUMENTI));
+
+        assertEquals(DOCUMENTI, pagina.getNumberOfElements());
+        assertTrue(pagina.getContent().stream().allMatch(documento ->
+            documento.getRighe().size() == 3 && documento.getScadenze().size() == 1
+                && documento.getModalitaPagamento() != null && documento.getCausaleTrasporto() != null));
+        assertTrue(pagina.getContent().stream().allMatch(documento ->
+            String.format("PR%04d/24", documento.getNumero()).equals(documento.getNumeroFormattato())));
+        // Documenti con associazioni singole, conteggio totale, righe a lotti, scadenze a lotti
+        assertEquals(4, statistiche().getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("Il dettaglio di un documento viene caricato con un numero costante di query")
+    void dettaglioSenzaCaricamentiLazy() {
+        DocumentoResponseDto documento = documentoService.getDocumento(primoDocumentoId);
+
+        assertEquals(3, documento.getRighe().size());
+        assertEquals(1, documento.getScadenze().size());
+        // Documento con associazioni e righe, scadenze
+        assertEquals(2, statistiche().getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("L'elenco di sintesi legge solo i campi proiettati, senza caricare entity")
+    void sintesiSenzaEntity() {
+        DocumentoFilter filtro = new DocumentoFilter();
+        filtro.setTipoDocumento(TipoDocumento.PREVENTIVO);
+
+        Page<DocumentoSintesiDto> pagina = documentoService.getSintesiDocumenti(filtro,
+            PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "dataDocumento")));
+
+        assertEquals(20, pagina.getNumberOfElements());
+        assertEquals(DOCUMENTI, pagina.getTotalElements());
+        DocumentoSintesiDto primo = pagina.getContent().get(0);
+        assertEquals(DOCUMENTI, primo.getNumero());
+        assertEquals("Soggetto " + DOCUMENTI, primo.getRagioneSociale());
+        assertEquals(0, new BigDecimal("30.00").compareTo(primo.getTotaleDocumento()));
+        assertEquals("PR0050/24", primo.getNumeroFormattato());
+        // Pagina e conteggio totale
+        assertEquals(2, statistiche().getPrepareStatementCount());
+        assertEquals(0, statistiche().getEntityLoadCount());
+    }
+
+    @Test
+    @DisplayName("La paginazione per cursore restituisce tutti i documenti in ordine con una query per pagina")
+    void scorrimentoPerCursore() {
+        DocumentoFilter filtro = new DocumentoFilter();
+        List<Long> numeri = new ArrayList<>();
+        String cursore = null;
+        int pagine = 0;
+        do {
+            PaginaCursore<DocumentoSintesiDto> pagina = documentoService.scorriDocumenti(filtro, cursore, 20);
+            pagina.getContenuto().forEach(documento -> numeri.add(documento.getNumero()));
+            cursore = pagina.getCursoreSuccessivo();
+            pagine++;
+        } while (cursore != null);
+
+        assertEquals(3, pagine);
+        assertEquals(DOCUMENTI, numeri.size());
+        for (int i = 0; i < DOCUMENTI; i++) {
+            assertEquals(DOCUMENTI - i, numeri.get(i));
+        }
+        // Nessun conteggio: una sola query per pagina
+        assertEquals(pagine, statistiche().getPrepareStatementCount());
+        assertThrows(IllegalArgumentException.class, () -> documentoService.scorriDocumenti(filtro, "non-valido", 20));
+    }
+
+    @Test
+    @DisplayName("Numero documento, soggetto e stato di invio vengono filtrati nella query")
+    void filtriApplicatiNellaQuery() {
+        DocumentoFilter perNumero = new DocumentoFilter();
+        perNumero.setNumeroDocumento("7/2024");
+        assertEquals(List.of(7L), numeri(perNumero));
+
+        perNumero.setNumeroDocumento("7/2023");
+        assertTrue(numeri(perNumero).isEmpty());
+
+        DocumentoFilter perSoggetto = new DocumentoFilter();
+        perSoggetto.setSoggettoFilter("soggetto 4");
+        perSoggetto.setInviato(false);
+        assertEquals(List.of(49L, 48L, 47L, 46L, 45L, 44L, 43L, 42L, 41L, 40L, 4L), numeri(perSoggetto));
+
+        perSoggetto.setInviato(true);
+        assertTrue(numeri(perSoggetto).isEmpty());
+    }
+
+    private List<Long> numeri(DocumentoFilter filtro) {
+        List<Long> numeri = new ArrayList<>();
+        documentoService.getSintesiDocumenti(filtro, PageRequest.of(0, DOCUMENTI, Sort.by(Sort.Direction.DESC, "numero")))
+            .forEach(documento -> numeri.add(documento.getNumero()));
+        return numeri;
+    }
+
+    private Statistics statistiche() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
@@ -0,0 +1,121 @@
+package com.gestionale.service;
+
+import com.gestionale.dto.DocumentoCreateDto;
+import com.gestionale.dto.DocumentoResponseDto;
+import com.gestionale.dto.RigaDocumentoDto;
+import com.gestionale.entity.Documento;
+import com.gestionale.entity.RigaDocumento;
+import com.gestionale.entity.SoggettoFornitore;
+import com.gestionale.entity.TipoDocumento;
+import com.gestionale.mapper.DocumentoMapperImpl;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica la creazione massiva dei documenti: numerazione a intervalli per tipo e anno e INSERT in batch JDBC
+ */
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "numerazione.verifica.precarica=false"
+})
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({DocumentoService.class, DocumentoMapperImpl.class, NumerazioneService.class})
+class DocumentoServiceCreazioneTest {
+
+    // Più di un blocco del batch JDBC (50)
+    private static final int DOCUMENTI = 120;
+
+    @Autowired
+    private DocumentoService documentoService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Long clienteId;
+
+    @BeforeEach
+    void creaCliente() {
+        SoggettoFornitore cliente = new SoggettoFornitore();
+        cliente.setRagioneSociale("Cliente di prova");
+        cliente.setPartitaIva("01756530232");
+        clienteId = entityManager.persistAndFlush(cliente).getId();
+    }
+
+    @Test
+    @DisplayName("Numeri contigui per tipo e anno, nell'ordine di invio, senza sovrapposizioni tra richieste")
+    void numeriContiguiPerTipoEAnno() {
+        List<DocumentoResponseDto> creati = documentoService.creaDocumenti(List.of(
+            documento(TipoDocumento.FATTURA, 2025),
+            documento(TipoDocumento.PREVENTIVO, 2025),
+            documento(TipoDocumento.FATTURA, 2025),
+            documento(TipoDocumento.FATTURA, 2026),
+            documento(TipoDocumento.PREVENTIVO, 2025),
+            documento(TipoDocumento.FATTURA, 2025)));
+
+        assertEquals(List.of(1L, 1L, 2L, 1L, 2L, 3L),
+            creati.stream().map(DocumentoResponseDto::getNumero).collect(Collectors.toList()));
+
+        // Una seconda richiesta prosegue dall'intervallo successivo
+        List<DocumentoResponseDto> successivi = documentoService.creaDocumenti(List.of(
+            documento(TipoDocumento.FATTURA, 2025),
+            documento(TipoDocumento.FATTURA, 2025)));
+        assertEquals(List.of(4L, 5L),
+            successivi.stream().map(DocumentoResponseDto::getNumero).collect(Collectors.toList()));
+    }
+
+    @Test
+    @DisplayName("Documenti, righe e riepiloghi scritti con INSERT raggruppati in batch JDBC")
+    void insertInBatch() {
+        List<DocumentoCreateDto> documenti = new ArrayList<>();
+        for (int i = 0; i < DOCUMENTI; i++) {
+            // Tipo e anno non usati dagli altri test: la numerazione non fiscale viene confermata subito
+            documenti.add(documento(TipoDocumento.ORDINE, 2030));
+        }
+        Statistics statistiche = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistiche.clear();
+
+        documentoService.creaDocumenti(documenti);
+
+        assertEquals(DOCUMENTI, statistiche.getEntityStatistics(Documento.class.getName()).getInsertCount());
+        assertEquals(DOCUMENTI, statistiche.getEntityStatistics(RigaDocumento.class.getName()).getInsertCount());
+        // Con il batch JDBC ogni INSERT viene preparato una volta per blocco, non una volta per entità
+        assertTrue(statistiche.getPrepareStatementCount() < DOCUMENTI,
+            "Statement preparati: " + statistiche.getPrepareStatementCount());
+    }
+
+    private DocumentoCreateDto documento(TipoDocumento tipo, int anno) {
+        DocumentoCreateDto documento = new DocumentoCreateDto();
+        documento.setTipoDocumento(tipo);
+        documento.setClienteId(clienteId);
+        documento.setDataDocumento(LocalDate.of(anno, 3, 1));
+        RigaDocumentoDto riga = new RigaDocumentoDto();
+        riga.setDescrizione("Riga");
+        riga.setQuantita(BigDecimal.ONE);
+        riga.setPrezzoUnitario(BigDecimal.TEN);
+        riga.setAliquotaIva(new BigDecimal("22"));
+        documento.setRighe(List.of(riga));
+        return documento;
+    }
+}
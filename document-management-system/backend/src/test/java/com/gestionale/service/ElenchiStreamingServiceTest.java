@@ -0,0 +1,90 @@
+package com.gestionale.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gestionale.entity.Articolo;
+import com.gestionale.repository.ArticoloRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica la scrittura in streaming degli elenchi completi e il limite massimo di elementi
+ */
+@DataJpaTest(properties = {
+    "elenchi.limite-massimo=30"
+})
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ElenchiStreamingService.class, JacksonAutoConfiguration.class})
+// Lo streaming apre una propria transazione di sola lettura, come nelle richieste reali
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ElenchiStreamingServiceTest {
+
+    @Autowired
+    private ElenchiStreamingService elenchiStreamingService;
+
+    @Autowired
+    private ArticoloRepository articoloRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void elencoScrittoInStreamingEntroIlLimite() throws Exception {
+        List<Articolo> articoli = new ArrayList<>();
+        for (int i = 1; i <= 40; i++) {
+            Articolo articolo = new Articolo();
+            articolo.setCodice(String.format("ART%03d", i));
+            articolo.setDescrizione("Articolo " + i);
+            articolo.setPrezzoVendita(BigDecimal.TEN);
+            articoli.add(articolo);
+        }
+        articoloRepository.saveAll(articoli);
+        try {
+            assertEquals(30, elenchiStreamingService.limite(null));
+            assertEquals(10, elenchiStreamingService.limite(10));
+            assertEquals(30, elenchiStreamingService.limite(1000));
+            assertThrows(IllegalArgumentException.class, () -> elenchiStreamingService.limite(0));
+
+            JsonNode elenco = scrivi(elenchiStreamingService.limite(null));
+            assertEquals(30, elenco.size());
+            assertEquals("ART001", elenco.get(0).get("codice").asText());
+            assertEquals("ART030", elenco.get(29).get("codice").asText());
+            assertEquals(5, scrivi(5).size());
+
+            ResponseEntity<StreamingResponseBody> risposta = elenchiStreamingService.risposta(articoloRepository::streamAll, 1000);
+            assertEquals("30", risposta.getHeaders().getFirst("X-Limite-Elenco"));
+            ResponseEntity<StreamingResponseBody> rifiutata = elenchiStreamingService.risposta(articoloRepository::streamAll, 0);
+            assertEquals(HttpStatus.BAD_REQUEST, rifiutata.getStatusCode());
+            ByteArrayOutputStream messaggio = new ByteArrayOutputStream();
+            rifiutata.getBody().writeTo(messaggio);
+            assertEquals("Il limite deve essere positivo", messaggio.toString(StandardCharsets.UTF_8));
+        } finally {
+            articoloRepository.deleteAll();
+        }
+    }
+
+    private JsonNode scrivi(int limite) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        elenchiStreamingService.scrivi(articoloRepository::streamAll, limite).writeTo(output);
+        return objectMapper.readTree(output.toByteArray());
+    }
+}
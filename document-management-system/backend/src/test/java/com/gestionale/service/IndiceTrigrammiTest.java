@@ -0,0 +1,80 @@
+package com.gestionale.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica ricerca, ordinamento e aggiornamento dell'indice a trigrammi dei suggerimenti
+ */
+class IndiceTrigrammiTest {
+
+    private IndiceTrigrammi indice;
+
+    @BeforeEach
+    void caricaIndice() {
+        indice = new IndiceTrigrammi();
+        indice.caricaSeNecessario(() -> List.of(
+            new IndiceTrigrammi.Voce(1, "Rossi Mario S.r.l.", "01234567890", "CLIENTE"),
+            new IndiceTrigrammi.Voce(2, "Ferramenta Rossini", "09876543210", "FORNITORE"),
+            new IndiceTrigrammi.Voce(3, "Bianchi & Rossi S.p.A.", "11111111111", "CLIENTE_FORNITORE"),
+            new IndiceTrigrammi.Voce(4, "Città Nuova", "22222222222", "CLIENTE")));
+    }
+
+    @Test
+    @DisplayName("Prima le voci che iniziano con il testo, poi gli inizi di parola, poi le parti di parola")
+    void ordinePerPertinenza() {
+        assertEquals(List.of(1L, 2L, 3L), ids(indice.cerca("ross", null, 10)));
+        assertEquals(List.of(2L), ids(indice.cerca("ossini", null, 10)));
+        assertEquals(List.of(1L), ids(indice.cerca("Mario Ros", null, 10)));
+        assertEquals(List.of(1L), ids(indice.cerca("rossi", null, 1)));
+    }
+
+    @Test
+    @DisplayName("Le parole brevi valgono come inizio di parola, senza accenti e maiuscole")
+    void paroleBreviEAccenti() {
+        assertEquals(List.of(4L), ids(indice.cerca("CITTA", null, 10)));
+        assertEquals(List.of(3L), ids(indice.cerca("s.p", null, 10)));
+        assertEquals(List.of(2L), ids(indice.cerca("0987", null, 10)));
+        assertTrue(indice.cerca("ss", null, 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Filtro per categoria e aggiornamenti dopo il caricamento")
+    void categorieEAggiornamenti() {
+        assertEquals(List.of(2L, 3L), ids(indice.cerca("ross", Set.of("FORNITORE", "CLIENTE_FORNITORE"), 10)));
+
+        indice.aggiorna(new IndiceTrigrammi.Voce(2, "Ferramenta Verdi", "09876543210", "FORNITORE"));
+        indice.rimuovi(1);
+        assertEquals(List.of(3L), ids(indice.cerca("ross", null, 10)));
+        assertEquals(List.of(2L), ids(indice.cerca("verdi", null, 10)));
+        assertEquals(3, indice.dimensione());
+    }
+
+    @Test
+    @DisplayName("Id caricati e aggiornati in ordine sparso restano ricercabili senza duplicati")
+    void idInOrdineSparso() {
+        IndiceTrigrammi sparso = new IndiceTrigrammi();
+        sparso.caricaSeNecessario(() -> List.of(
+            new IndiceTrigrammi.Voce(40, "Verdi Luca", null, null),
+            new IndiceTrigrammi.Voce(7, "Verdi Anna", null, null),
+            new IndiceTrigrammi.Voce(25, "Verdi Marco", null, null)));
+
+        sparso.aggiorna(new IndiceTrigrammi.Voce(12, "Verdi Paolo", null, null));
+        sparso.aggiorna(new IndiceTrigrammi.Voce(25, "Verdi Marco Antonio", null, null));
+        sparso.rimuovi(7);
+
+        assertEquals(List.of(12L, 25L, 40L), ids(sparso.cerca("verdi", null, 10)).stream().sorted().collect(Collectors.toList()));
+        assertEquals(List.of(25L), ids(sparso.cerca("verdi ant", null, 10)));
+    }
+
+    private static List<Long> ids(List<IndiceTrigrammi.Voce> voci) {
+        return voci.stream().map(voce -> voce.id).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,198 @@
+package com.gestionale.service;
+
+import com.gestionale.entity.TipoDocumento;
+import com.gestionale.repository.NumerazioneRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Stress test della numerazione: molti thread creano numeri in transazioni concorrenti,
+ * una parte delle quali viene annullata. I numeri confermati devono essere esattamente 1..N.
+ * Usa H2 in memoria in modalità PostgreSQL, con lock di riga come sul database reale.
+ */
+@DataJpaTest(properties = {
+    "logging.level.com.gestionale=INFO"
+})
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(NumerazioneService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class NumerazioneServiceConcurrencyTest {
+
+    private static final int THREAD = 8;
+    private static final int NUMERI_PER_THREAD = 100;
+
+    @Autowired
+    private NumerazioneService numerazioneService;
+
+    @Autowired
+    private NumerazioneRepository numerazioneRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    @DisplayName("Numeri senza duplicati né buchi con creazioni concorrenti e transazioni annullate")
+    void numerazioneConcorrenteSenzaBuchi() throws Exception {
+        // Anno non ancora numerato: anche la creazione della riga avviene in concorrenza
+        int anno = 2042;
+        TransactionTemplate transazione = new TransactionTemplate(transactionManager);
+        List<Long> confermati = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch partenza = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD);
+        List<Future<?>> esecuzioni = new ArrayList<>();
+        for (int t = 0; t < THREAD; t++) {
+            esecuzioni.add(executor.submit(() -> {
+                partenza.await();
+                for (int i = 0; i < NUMERI_PER_THREAD; i++) {
+                    boolean annulla = ThreadLocalRandom.current().nextInt(10) == 0;
+                    Long numero = transazione.execute(status -> {
+                        Long assegnato = numerazioneService.getNextNumber(TipoDocumento.FATTURA, anno);
+                        if (annulla) {
+                            status.setRollbackOnly();
+                        }
+                        return assegnato;
+                    });
+                    if (!annulla) {
+                        confermati.add(numero);
+                    }
+                }
+                return null;
+            }));
+        }
+        partenza.countDown();
+        for (Future<?> esecuzione : esecuzioni) {
+            esecuzione.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        List<Long> ordinati = new ArrayList<>(confermati);
+        Collections.sort(ordinati);
+        for (int i = 0; i < ordinati.size(); i++) {
+            assertEquals(i + 1L, ordinati.get(i), "Numero duplicato o mancante in posizione " + i);
+        }
+        assertEquals((long) ordinati.size(), numerazioneRepository.getUltimoNumero(TipoDocumento.FATTURA.name(), anno));
+        assertEquals(1, numerazioneRepository.findByTipoDocumentoOrderByAnnoDesc(TipoDocumento.FATTURA.name()).size());
+    }
+
+    @Test
+    @DisplayName("Numeri riservati a blocchi univoci per i documenti non fiscali")
+    void numerazioneABlocchiSenzaDuplicati() throws Exception {
+        int anno = 2043;
+        Set<Long> assegnati = ConcurrentHashMap.newKeySet();
+        CountDownLatch partenza = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD);
+        List<Future<?>> esecuzioni = new ArrayList<>();
+        for (int t = 0; t < THREAD; t++) {
+            esecuzioni.add(executor.submit(() -> {
+                partenza.await();
+                for (int i = 0; i < NUMERI_PER_THREAD; i++) {
+                    Long numero = numerazioneService.getNextNumber(TipoDocumento.PREVENTIVO, anno);
+                    assertTrue(assegnati.add(numero), "Numero duplicato: " + numero);
+                }
+                return null;
+            }));
+        }
+        partenza.countDown();
+        for (Future<?> esecuzione : esecuzioni) {
+            esecuzione.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        assertEquals(THREAD * NUMERI_PER_THREAD, assegnati.size());
+        // I blocchi sono riservati sul database: nessun numero assegnato supera l'ultimo registrato
+        long ultimo = numerazioneRepository.getUltimoNumero(TipoDocumento.PREVENTIVO.name(), anno);
+        assertTrue(assegnati.stream().allMatch(numero -> numero >= 1 && numero <= ultimo));
+    }
+
+    @Test
+    @DisplayName("Intervalli riservati con allocateRange contigui e senza sovrapposizioni tra chiamanti concorrenti")
+    void intervalliConcorrentiSenzaSovrapposizioni() throws Exception {
+        int anno = 2044;
+        TransactionTemplate transazione = new TransactionTemplate(transactionManager);
+        List<long[]> fiscali = Collections.synchronizedList(new ArrayList<>());
+        List<long[]> nonFiscali = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch partenza = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD);
+        List<Future<?>> esecuzioni = new ArrayList<>();
+        for (int t = 0; t < THREAD; t++) {
+            esecuzioni.add(executor.submit(() -> {
+                partenza.await();
+                for (int i = 0; i < NUMERI_PER_THREAD / 10; i++) {
+                    int quantita = ThreadLocalRandom.current().nextInt(1, 20);
+                    boolean annulla = ThreadLocalRandom.current().nextInt(10) == 0;
+                    Long primo = transazione.execute(status -> {
+                        Long assegnato = numerazioneService.allocateRange(TipoDocumento.FATTURA_ACQUISTO, anno, quantita);
+                        if (annulla) {
+                            status.setRollbackOnly();
+                        }
+                        return assegnato;
+                    });
+                    if (!annulla) {
+                        fiscali.add(new long[] {primo, quantita});
+                    }
+                    nonFiscali.add(new long[] {numerazioneService.allocateRange(TipoDocumento.ORDINE, anno, quantita), quantita});
+                }
+                return null;
+            }));
+        }
+        partenza.countDown();
+        for (Future<?> esecuzione : esecuzioni) {
+            esecuzione.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        // Documenti fiscali: gli intervalli confermati, ordinati, coprono esattamente 1..N uno dopo l'altro
+        long atteso = verificaIntervalli(fiscali);
+        assertEquals(atteso, numerazioneRepository.getUltimoNumero(TipoDocumento.FATTURA_ACQUISTO.name(), anno));
+        // Altri tipi: nessuna sovrapposizione, l'intervallo è confermato anche se il chiamante annulla
+        assertEquals(numerazioneRepository.getUltimoNumero(TipoDocumento.ORDINE.name(), anno), verificaIntervalli(nonFiscali));
+    }
+
+    @Test
+    @DisplayName("allocateRange rifiuta quantità non positive")
+    void intervalloVuotoRifiutato() {
+        assertThrows(IllegalArgumentException.class, () -> numerazioneService.allocateRange(TipoDocumento.ORDINE, 2045, 0));
+    }
+
+    /**
+     * Verifica che gli intervalli (primo, quantità) si susseguano senza buchi né sovrapposizioni
+     * a partire da 1 e restituisce l'ultimo numero coperto
+     */
+    private static long verificaIntervalli(List<long[]> intervalli) {
+        List<long[]> ordinati = new ArrayList<>(intervalli);
+        ordinati.sort((a, b) -> Long.compare(a[0], b[0]));
+        long prossimo = 1;
+        for (long[] intervallo : ordinati) {
+            assertEquals(prossimo, intervallo[0], "Intervallo sovrapposto o non contiguo in " + intervallo[0]);
+            prossimo += intervallo[1];
+        }
+        return prossimo - 1;
+    }
+}
@@ -0,0 +1,88 @@
+package com.gestionale.service;
+
+import com.gestionale.entity.Numerazione;
+import com.gestionale.entity.TipoDocumento;
+import com.gestionale.repository.NumerazioneRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Verifica la cache dei formati di numerazione: stesso risultato di Numerazione.formatNumero,
+ * una sola lettura per tipo e anno e invalidazione quando la configurazione cambia
+ */
+class NumerazioneServiceFormatoTest {
+
+    private static final int ANNO = 2025;
+
+    @Mock
+    private NumerazioneRepository numerazioneRepository;
+
+    private NumerazioneService numerazioneService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        numerazioneService = new NumerazioneService(mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(numerazioneService, "numerazioneRepository", numerazioneRepository);
+    }
+
+    @Test
+    @DisplayName("Il numero formattato coincide con Numerazione.formatNumero")
+    void stessoRisultatoDellaNumerazione() {
+        Numerazione[] configurazioni = {
+            numerazione("FT", "/25", 5),
+            numerazione(null, null, null),
+            numerazione("", "-A", 0),
+            numerazione("N", null, 2)
+        };
+        TipoDocumento[] tipi = {TipoDocumento.FATTURA, TipoDocumento.ORDINE, TipoDocumento.PREVENTIVO, TipoDocumento.DDT};
+        for (int i = 0; i < tipi.length; i++) {
+            when(numerazioneRepository.findByTipoDocumentoAndAnno(tipi[i].name(), ANNO)).thenReturn(Optional.of(configurazioni[i]));
+            for (long numero : new long[] {1L, 42L, 123456L}) {
+                assertEquals(configurazioni[i].formatNumero(numero), numerazioneService.formatNumber(tipi[i], numero, ANNO));
+            }
+        }
+        assertEquals("7", numerazioneService.formatNumber(TipoDocumento.NOTA_CREDITO, 7L, ANNO));
+        // Una lettura per tipo e anno, anche senza numerazione configurata
+        verify(numerazioneRepository, times(5)).findByTipoDocumentoAndAnno(anyString(), eq(ANNO));
+    }
+
+    @Test
+    @DisplayName("configuraNumerazione e saveNumerazione scartano il formato in cache")
+    void configurazioneInvalidaLaCache() {
+        Numerazione numerazione = numerazione("FT", null, 3);
+        when(numerazioneRepository.findByTipoDocumentoAndAnno("FATTURA", ANNO)).thenReturn(Optional.of(numerazione));
+        assertEquals("FT007", numerazioneService.formatNumber(TipoDocumento.FATTURA, 7L, ANNO));
+
+        numerazioneService.configuraNumerazione(TipoDocumento.FATTURA, ANNO, "F", "/X", 2);
+        assertEquals("F07/X", numerazioneService.formatNumber(TipoDocumento.FATTURA, 7L, ANNO));
+
+        numerazione.setPrefisso("A");
+        numerazioneService.saveNumerazione(numerazione);
+        assertEquals("A07/X", numerazioneService.formatNumber(TipoDocumento.FATTURA, 7L, ANNO));
+
+        // Senza modifiche il formato resta in cache
+        assertEquals("A08/X", numerazioneService.formatNumber(TipoDocumento.FATTURA, 8L, ANNO));
+        verify(numerazioneRepository, times(4)).findByTipoDocumentoAndAnno("FATTURA", ANNO);
+    }
+
+    private static Numerazione numerazione(String prefisso, String suffisso, Integer lunghezza) {
+        Numerazione numerazione = new Numerazione();
+        numerazione.setAnno(ANNO);
+        numerazione.setUltimoNumero(0L);
+        numerazione.setPrefisso(prefisso);
+        numerazione.setSuffisso(suffisso);
+        numerazione.setLunghezzaNumero(lunghezza);
+        return numerazione;
+    }
+}
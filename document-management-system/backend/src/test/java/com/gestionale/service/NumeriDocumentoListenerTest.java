@@ -0,0 +1,105 @@
+package com.gestionale.service;
+
+import com.gestionale.entity.Documento;
+import com.gestionale.entity.TipoDocumento;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.engine.spi.ActionQueue;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * Verifica che il listener aggiorni le bitmap delle numerazioni solo dopo il commit della transazione
+ */
+class NumeriDocumentoListenerTest {
+
+    private VerificaNumerazioneService verificaNumerazioneService;
+
+    private NumeriDocumentoListener listener;
+
+    private EventSource sessione;
+
+    private ActionQueue actionQueue;
+
+    @BeforeEach
+    void setUp() {
+        verificaNumerazioneService = mock(VerificaNumerazioneService.class);
+        listener = new NumeriDocumentoListener();
+        ReflectionTestUtils.setField(listener, "verificaNumerazioneService", verificaNumerazioneService);
+        actionQueue = mock(ActionQueue.class);
+        sessione = mock(EventSource.class);
+        when(sessione.getActionQueue()).thenReturn(actionQueue);
+    }
+
+    @Test
+    @DisplayName("Inserimento ed eliminazione registrati solo se la transazione viene confermata")
+    void inserimentoEdEliminazioneDopoCommit() {
+        Documento documento = documento(TipoDocumento.FATTURA, 7L, 2025);
+
+        listener.onPostInsert(new PostInsertEvent(documento, 1L, null, null, sessione));
+        completaTransazione(false);
+        verifyNoInteractions(verificaNumerazioneService);
+
+        listener.onPostInsert(new PostInsertEvent(documento, 1L, null, null, sessione));
+        completaTransazione(true);
+        verify(verificaNumerazioneService).registraInserimento(TipoDocumento.FATTURA, 2025, 7L);
+
+        listener.onPostDelete(new PostDeleteEvent(documento, 1L, null, null, sessione));
+        completaTransazione(true);
+        verify(verificaNumerazioneService).registraEliminazione(TipoDocumento.FATTURA, 2025, 7L);
+    }
+
+    @Test
+    @DisplayName("Cambio di numero: il numero precedente viene liberato e il nuovo registrato")
+    void cambioNumero() {
+        EntityPersister persister = mock(EntityPersister.class, RETURNS_DEEP_STUBS);
+        when(persister.getEntityMetamodel().getPropertyIndex("tipoDocumento")).thenReturn(0);
+        when(persister.getEntityMetamodel().getPropertyIndex("numero")).thenReturn(1);
+        when(persister.getEntityMetamodel().getPropertyIndex("anno")).thenReturn(2);
+        Documento documento = documento(TipoDocumento.FATTURA, 9L, 2025);
+        Object[] statoPrecedente = {TipoDocumento.FATTURA, 7L, 2025};
+
+        listener.onPostUpdate(new PostUpdateEvent(documento, 1L, null, statoPrecedente, null, persister, sessione));
+        completaTransazione(true);
+
+        verify(verificaNumerazioneService).registraEliminazione(TipoDocumento.FATTURA, 2025, 7L);
+        verify(verificaNumerazioneService).registraInserimento(TipoDocumento.FATTURA, 2025, 9L);
+    }
+
+    @Test
+    @DisplayName("Aggiornamento senza stato precedente: le bitmap vengono scartate")
+    void aggiornamentoSenzaStatoPrecedente() {
+        Documento documento = documento(TipoDocumento.FATTURA, 9L, 2025);
+
+        listener.onPostUpdate(new PostUpdateEvent(documento, 1L, null, null, null, mock(EntityPersister.class), sessione));
+        completaTransazione(true);
+
+        verify(verificaNumerazioneService).invalida();
+    }
+
+    /**
+     * Esegue l'ultimo aggiornamento registrato dal listener come al termine della transazione
+     */
+    private void completaTransazione(boolean riuscita) {
+        ArgumentCaptor<AfterTransactionCompletionProcess> processo = ArgumentCaptor.forClass(AfterTransactionCompletionProcess.class);
+        verify(actionQueue, atLeastOnce()).registerProcess(processo.capture());
+        processo.getValue().doAfterTransactionCompletion(riuscita, null);
+    }
+
+    private static Documento documento(TipoDocumento tipo, Long numero, Integer anno) {
+        Documento documento = new Documento();
+        documento.setTipoDocumento(tipo);
+        documento.setNumero(numero);
+        documento.setAnno(anno);
+        return documento;
+    }
+}
@@ -0,0 +1,77 @@
+package com.gestionale.service;
+
+import com.gestionale.dto.StatistichePrezzoDto;
+import com.gestionale.entity.PrezzoArticoloFornitore;
+import com.gestionale.repository.PrezzoArticoloFornitoreRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica la scrittura in sola aggiunta dello storico prezzi e le interrogazioni calcolate in SQL
+ */
+@DataJpaTest
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(PrezziArticoliFornitoriService.class)
+class PrezziArticoliFornitoriServiceTest {
+
+    private static final String FORNITORE = "01234567890";
+
+    @Autowired
+    private PrezziArticoliFornitoriService prezziService;
+
+    @Autowired
+    private PrezzoArticoloFornitoreRepository prezzoRepository;
+
+    @Test
+    void storicoPrezziInterrogatoInSql() {
+        List<PrezzoArticoloFornitore> prezzi = List.of(
+            prezzo(FORNITORE, LocalDate.of(2024, 1, 10), "10.00", "F1"),
+            prezzo(FORNITORE, LocalDate.of(2024, 1, 25), "12.00", "F2"),
+            prezzo(FORNITORE, LocalDate.of(2024, 3, 5), "11.00", null),
+            prezzo("09876543210", LocalDate.of(2024, 2, 1), "9.50", "A7"));
+        assertEquals(4, prezzoRepository.registraAll(prezzi));
+        // Un file reimportato non duplica lo storico
+        assertEquals(0, prezzoRepository.registraAll(prezzi));
+        assertEquals(4, prezzoRepository.count());
+
+        List<PrezzoArticoloFornitore> andamento = prezziService.getAndamento("ART1", FORNITORE, null, null);
+        assertEquals(3, andamento.size());
+        assertEquals(LocalDate.of(2024, 1, 10), andamento.get(0).getDataPrezzo());
+        assertEquals(4, prezziService.getAndamento("ART1", null, null, null).size());
+        assertEquals(1, prezziService.getAndamento("ART1", FORNITORE, LocalDate.of(2024, 2, 1), null).size());
+
+        PrezzoArticoloFornitore ultimo = prezziService.getUltimoPrezzo("ART1", FORNITORE).orElseThrow();
+        assertEquals(0, new BigDecimal("11.00").compareTo(ultimo.getPrezzoUnitario()));
+
+        List<StatistichePrezzoDto> mensili = prezziService.getStatistiche("ART1", FORNITORE, "mese", null, null);
+        assertEquals(2, mensili.size());
+        StatistichePrezzoDto gennaio = mensili.get(0);
+        assertEquals(1, gennaio.getMese());
+        assertEquals(0, new BigDecimal("10.00").compareTo(gennaio.getPrezzoMinimo()));
+        assertEquals(0, new BigDecimal("12.00").compareTo(gennaio.getPrezzoMassimo()));
+        assertEquals(2L, gennaio.getNumeroPrezzi());
+
+        List<StatistichePrezzoDto> annuali = prezziService.getStatistiche("ART1", null, "anno", null, null);
+        assertEquals(1, annuali.size());
+        assertNull(annuali.get(0).getMese());
+        assertEquals(0, new BigDecimal("9.50").compareTo(annuali.get(0).getPrezzoMinimo()));
+
+        assertThrows(IllegalArgumentException.class, () -> prezziService.getStatistiche("ART1", null, "settimana", null, null));
+        assertThrows(IllegalArgumentException.class, () -> prezziService.getUltimoPrezzo("ART1", " "));
+    }
+
+    private static PrezzoArticoloFornitore prezzo(String fornitore, LocalDate data, String prezzo, String fattura) {
+        return new PrezzoArticoloFornitore("ART1", fornitore, data, new BigDecimal(prezzo), BigDecimal.ONE, fattura);
+    }
+}
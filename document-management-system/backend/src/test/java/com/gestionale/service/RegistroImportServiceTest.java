@@ -0,0 +1,92 @@
+package com.gestionale.service;
+
+import com.gestionale.entity.ArticoloFornitore;
+import com.gestionale.entity.RegistroImport;
+import com.gestionale.entity.RegistroImportRecord;
+import com.gestionale.enums.TipoImport;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica che il registro delle importazioni dimentichi file e record quando i dati importati cambiano
+ */
+@DataJpaTest(properties = {
+    "suggerimenti.precarica=false"
+})
+@ActiveProfiles("h2")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({RegistroImportService.class, ArticoloFornitoreService.class, SuggerimentiService.class})
+class RegistroImportServiceTest {
+
+    @Autowired
+    private RegistroImportService registroImportService;
+
+    @Autowired
+    private ArticoloFornitoreService articoloFornitoreService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void recordRielaboratiSeIlLoroArticoloCambia() {
+        ArticoloFornitore invariato = entityManager.persist(articolo("A1"));
+        ArticoloFornitore eliminato = entityManager.persist(articolo("A2"));
+        ArticoloFornitore modificato = entityManager.persist(articolo("A3"));
+        entityManager.flush();
+        LocalDateTime adesso = LocalDateTime.now();
+        entityManager.getEntityManager().createQuery("UPDATE ArticoloFornitore a SET a.updatedAt = :data")
+            .setParameter("data", adesso.minusHours(1))
+            .executeUpdate();
+        entityManager.persist(impronta("h1", invariato, adesso.minusMinutes(30)));
+        entityManager.persist(impronta("h2", eliminato, adesso.minusMinutes(30)));
+        entityManager.persist(impronta("h3", modificato, adesso.minusMinutes(30)));
+        entityManager.persist(new RegistroImport(TipoImport.ARTICOLI_FORNITORI, "file", "articoli.json", 3, 3));
+        entityManager.flush();
+        entityManager.clear();
+
+        List<String> hash = List.of("h1", "h2", "h3", "h4");
+        assertEquals(Set.of("h1", "h2", "h3"), registroImportService.hashRecordArticoliFornitoriInvariati(hash));
+
+        articoloFornitoreService.deleteArticoloFornitore(eliminato.getId());
+        ArticoloFornitore modifiche = articolo("A3");
+        modifiche.setDescrizione("Descrizione cambiata");
+        articoloFornitoreService.updateArticoloFornitore(modificato.getId(), modifiche);
+        entityManager.flush();
+
+        assertEquals(Set.of("h1"), registroImportService.hashRecordArticoliFornitoriInvariati(hash));
+        assertTrue(registroImportService.trovaImportazione(TipoImport.ARTICOLI_FORNITORI, "file").isEmpty());
+    }
+
+    private static ArticoloFornitore articolo(String codice) {
+        ArticoloFornitore articolo = new ArticoloFornitore(codice, "Articolo " + codice);
+        articolo.setQuantita(1.0);
+        articolo.setPrezzoUnitario(10.0);
+        articolo.setImporto(10.0);
+        articolo.setUnitaMisura("NR");
+        articolo.setAliquotaIVA(22);
+        articolo.setFornitorePartitaIva("01756530232");
+        articolo.setFornitoreRagioneSociale("Alfa Ricambi");
+        return articolo;
+    }
+
+    private static RegistroImportRecord impronta(String hash, ArticoloFornitore articolo, LocalDateTime registratoIl) {
+        RegistroImportRecord record = new RegistroImportRecord();
+        record.setHash(hash);
+        record.setTipo(TipoImport.ARTICOLI_FORNITORI);
+        record.setCodice(articolo.getCodice());
+        record.setFornitorePartitaIva(articolo.getFornitorePartitaIva());
+        record.setRegistratoIl(registratoIl);
+        return record;
+    }
+}
@@ -0,0 +1,133 @@
+package com.gestionale.service;
+
+import com.gestionale.dto.VerificaNumerazioneDto;
+import com.gestionale.entity.TipoDocumento;
+import com.gestionale.repository.DocumentoRepository;
+import com.gestionale.repository.NumerazioneRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Verifica il riepilogo delle numerazioni calcolato sulle bitmap dei numeri usati
+ */
+class VerificaNumerazioneServiceTest {
+
+    private static final int ANNO = 2025;
+
+    @Mock
+    private DocumentoRepository documentoRepository;
+
+    @Mock
+    private NumerazioneRepository numerazioneRepository;
+
+    private VerificaNumerazioneService verificaNumerazioneService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        verificaNumerazioneService = new VerificaNumerazioneService(mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(verificaNumerazioneService, "documentoRepository", documentoRepository);
+        ReflectionTestUtils.setField(verificaNumerazioneService, "numerazioneRepository", numerazioneRepository);
+    }
+
+    @Test
+    @DisplayName("Numeri mancanti riportati come intervalli")
+    void buchiNellaNumerazione() {
+        numeri(TipoDocumento.FATTURA, 8L, 1L, 2L, 4L, 5L, 8L);
+
+        VerificaNumerazioneDto verifica = verificaNumerazioneService.verifica(TipoDocumento.FATTURA, ANNO);
+
+        assertEquals(5, verifica.getDocumenti());
+        assertEquals(List.of("3-3", "6-7"), intervalli(verifica));
+        assertEquals(3, verifica.getNumeriMancanti());
+        assertEquals(8L, verifica.getUltimoNumeroUsato());
+        assertFalse(verifica.isCoerente());
+    }
+
+    @Test
+    @DisplayName("Anno senza documenti né numerazione")
+    void annoVuoto() {
+        numeri(TipoDocumento.FATTURA, null);
+
+        VerificaNumerazioneDto verifica = verificaNumerazioneService.verifica(TipoDocumento.FATTURA, ANNO);
+
+        assertEquals(0, verifica.getDocumenti());
+        assertNull(verifica.getUltimoNumeroUsato());
+        assertTrue(verifica.getBuchi().isEmpty());
+        assertTrue(verifica.isCoerente());
+        for (TipoDocumento tipo : TipoDocumento.values()) {
+            numeri(tipo, null);
+        }
+        assertTrue(verificaNumerazioneService.verificaAnno(ANNO).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Primo numero mancante e ultimi numeri assegnati senza documento")
+    void primoEUltimoMancanti() {
+        numeri(TipoDocumento.FATTURA, 3L, 2L, 3L);
+        numeri(TipoDocumento.NOTA_CREDITO, 4L, 1L, 2L);
+
+        VerificaNumerazioneDto senzaPrimo = verificaNumerazioneService.verifica(TipoDocumento.FATTURA, ANNO);
+        assertEquals(List.of("1-1"), intervalli(senzaPrimo));
+        assertFalse(senzaPrimo.isCoerente());
+
+        VerificaNumerazioneDto senzaUltimi = verificaNumerazioneService.verifica(TipoDocumento.NOTA_CREDITO, ANNO);
+        assertEquals(List.of("3-4"), intervalli(senzaUltimi));
+        assertEquals(2L, senzaUltimi.getUltimoNumeroUsato());
+        assertEquals(4L, senzaUltimi.getUltimoNumeroAssegnato());
+        assertFalse(senzaUltimi.isCoerente());
+    }
+
+    @Test
+    @DisplayName("Numeri ripetuti contati una volta sola, anche se registrati di nuovo dopo il caricamento")
+    void numeriRipetuti() {
+        numeri(TipoDocumento.FATTURA, 3L, 1L, 2L, 2L, 3L);
+
+        VerificaNumerazioneDto verifica = verificaNumerazioneService.verifica(TipoDocumento.FATTURA, ANNO);
+        assertEquals(3, verifica.getDocumenti());
+        assertTrue(verifica.isCoerente());
+
+        verificaNumerazioneService.registraInserimento(TipoDocumento.FATTURA, ANNO, 3L);
+        assertEquals(3, verificaNumerazioneService.verifica(TipoDocumento.FATTURA, ANNO).getDocumenti());
+
+        verificaNumerazioneService.registraEliminazione(TipoDocumento.FATTURA, ANNO, 3L);
+        VerificaNumerazioneDto dopoEliminazione = verificaNumerazioneService.verifica(TipoDocumento.FATTURA, ANNO);
+        assertEquals(2, dopoEliminazione.getDocumenti());
+        assertEquals(List.of("3-3"), intervalli(dopoEliminazione));
+        verify(documentoRepository, times(1)).streamNumeriByTipoAndAnno(TipoDocumento.FATTURA, ANNO);
+    }
+
+    @Test
+    @DisplayName("Documento non fiscale oltre l'ultimo numero registrato: il numero verrebbe riassegnato")
+    void numeroOltreUltimoAssegnato() {
+        numeri(TipoDocumento.PREVENTIVO, 50L, 1L, 60L);
+
+        VerificaNumerazioneDto verifica = verificaNumerazioneService.verifica(TipoDocumento.PREVENTIVO, ANNO);
+
+        assertFalse(verifica.isNumerazioneContinua());
+        assertFalse(verifica.isCoerente());
+    }
+
+    private void numeri(TipoDocumento tipo, Long ultimoAssegnato, Long... usati) {
+        when(numerazioneRepository.getUltimoNumero(tipo.name(), ANNO)).thenReturn(ultimoAssegnato);
+        when(documentoRepository.streamNumeriByTipoAndAnno(tipo, ANNO)).thenAnswer(invocazione -> Stream.of(usati));
+    }
+
+    private static List<String> intervalli(VerificaNumerazioneDto verifica) {
+        return verifica.getBuchi().stream()
+            .map(intervallo -> intervallo.getDa() + "-" + intervallo.getA())
+            .collect(Collectors.toList());
+    }
+}
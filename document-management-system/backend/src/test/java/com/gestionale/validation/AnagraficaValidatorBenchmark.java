@@ -0,0 +1,125 @@
+package com.gestionale.validation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Confronto tra i validatori di AnagraficaValidator e i controlli usati in precedenza da ImportService
+ * (replaceAll, matches e split con regex compilate a ogni chiamata, String.format per ogni errore).
+ * Ogni operazione elabora l'intero campione di record.
+ *
+ * Esecuzione: mvn test-compile, poi lanciare il main di questa classe con il classpath di test.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnagraficaValidatorBenchmark {
+
+    private static final Pattern PARTITA_IVA_PATTERN = Pattern.compile("^[0-9]{11}$");
+    private static final Pattern SPAZI = Pattern.compile("\\s+");
+
+    // Campione rappresentativo dei file di importazione, con qualche valore non valido
+    private final String[] partiteIva = {
+        "01756530232", "IT 03075980239", "00233470236", "02331070249", "1234567890", "0123456789X", "04119540235"
+    };
+    private final String[] email = {
+        "AMMINISTRAZIONECALCIOPPEANO@GMAIL.COM", "info@azienda.it", "senza-chiocciola.it", "ordini@fornitore.com"
+    };
+    private final String[] indirizzi = {
+        "VIA MAZZINI  41, 37024 NEGRAR  VR", "PIAZZA DOMENICO MARCOLONGO, 37050 OPPEANO  VR", "CORSO ITALIA 1, MILANO"
+    };
+
+    @Benchmark
+    public void partitaIvaAttuale(Blackhole blackhole) {
+        List<String> errori = new ArrayList<>();
+        for (int i = 0; i < partiteIva.length; i++) {
+            String pulita = partiteIva[i].replaceAll("[^0-9]", "");
+            if (!PARTITA_IVA_PATTERN.matcher(pulita).matches()) {
+                errori.add(String.format("Riga %d: Partita IVA non valida (%s)", i + 1, pulita));
+            }
+        }
+        blackhole.consume(errori);
+    }
+
+    @Benchmark
+    public void partitaIvaValidatore(Blackhole blackhole) {
+        List<String> errori = new ArrayList<>();
+        for (int i = 0; i < partiteIva.length; i++) {
+            String pulita = AnagraficaValidator.pulisciPartitaIva(partiteIva[i]);
+            ErroreAnagrafica errore = AnagraficaValidator.verificaPartitaIva(pulita);
+            if (errore != null) {
+                errori.add(errore.messaggio(i + 1, pulita));
+            }
+        }
+        blackhole.consume(errori);
+    }
+
+    @Benchmark
+    public void emailAttuale(Blackhole blackhole) {
+        for (String valore : email) {
+            blackhole.consume(valore.contains("@") && valore.contains("."));
+        }
+    }
+
+    @Benchmark
+    public void emailValidatore(Blackhole blackhole) {
+        for (String valore : email) {
+            blackhole.consume(AnagraficaValidator.isEmailValida(valore));
+        }
+    }
+
+    @Benchmark
+    public void capProvinciaAttuale(Blackhole blackhole) {
+        for (String indirizzo : indirizzi) {
+            String[] parti = indirizzo.split(",");
+            if (parti.length >= 2) {
+                String[] tokens = parti[1].trim().split("\\s+");
+                blackhole.consume(tokens[0].matches("\\d{5}"));
+                blackhole.consume(tokens[tokens.length - 1].length() == 2);
+            }
+        }
+    }
+
+    @Benchmark
+    public void capProvinciaValidatore(Blackhole blackhole) {
+        for (String indirizzo : indirizzi) {
+            String[] parti = indirizzo.split(",");
+            if (parti.length >= 2) {
+                String[] tokens = SPAZI.split(parti[1].trim());
+                blackhole.consume(AnagraficaValidator.isCapValido(tokens[0]));
+                blackhole.consume(AnagraficaValidator.isProvinciaValida(tokens[tokens.length - 1]));
+            }
+        }
+    }
+
+    @Benchmark
+    public void codiceFiscaleValidatore(Blackhole blackhole) {
+        blackhole.consume(AnagraficaValidator.verificaCodiceFiscale("RSSMRA85T10A562S"));
+        blackhole.consume(AnagraficaValidator.verificaCodiceFiscale("RSSMRA85T10A562T"));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(AnagraficaValidatorBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
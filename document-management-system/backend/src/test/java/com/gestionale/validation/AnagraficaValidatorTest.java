@@ -0,0 +1,69 @@
+package com.gestionale.validation;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifica i controlli di Partita IVA e codice fiscale usati per scartare le righe delle importazioni
+ */
+class AnagraficaValidatorTest {
+
+    @Test
+    @DisplayName("Partita IVA: formato e cifra di controllo")
+    void partitaIva() {
+        assertNull(AnagraficaValidator.verificaPartitaIva("01756530232"));
+        assertNull(AnagraficaValidator.verificaPartitaIva("00743110157"));
+        assertNull(AnagraficaValidator.verificaPartitaIva("12345678903"));
+
+        assertEquals(ErroreAnagrafica.PARTITA_IVA_CONTROLLO, AnagraficaValidator.verificaPartitaIva("04119540235"));
+        assertEquals(ErroreAnagrafica.PARTITA_IVA_CONTROLLO, AnagraficaValidator.verificaPartitaIva("12345678901"));
+        assertEquals(ErroreAnagrafica.PARTITA_IVA_FORMATO, AnagraficaValidator.verificaPartitaIva("1234567890"));
+        assertEquals(ErroreAnagrafica.PARTITA_IVA_FORMATO, AnagraficaValidator.verificaPartitaIva("0123456789X"));
+        assertEquals(ErroreAnagrafica.PARTITA_IVA_OBBLIGATORIA, AnagraficaValidator.verificaPartitaIva(""));
+        assertEquals(ErroreAnagrafica.PARTITA_IVA_OBBLIGATORIA, AnagraficaValidator.verificaPartitaIva(null));
+    }
+
+    @Test
+    @DisplayName("La pulizia toglie prefisso e separatori senza copiare i valori già puliti")
+    void pulisciPartitaIva() {
+        String pulita = "01756530232";
+        assertSame(pulita, AnagraficaValidator.pulisciPartitaIva(pulita));
+        assertEquals(pulita, AnagraficaValidator.pulisciPartitaIva("IT 017 565 302 32"));
+        assertNull(AnagraficaValidator.pulisciPartitaIva(null));
+    }
+
+    @Test
+    @DisplayName("Codice fiscale di persona fisica, anche omocodico e in minuscolo")
+    void codiceFiscalePersonaFisica() {
+        assertNull(AnagraficaValidator.verificaCodiceFiscale("RSSMRA85T10A562S"));
+        assertNull(AnagraficaValidator.verificaCodiceFiscale("rssmra85t10a562s"));
+        // Omocodia: cifre sostituite dalle lettere LMNPQRSTUV, con il carattere di controllo ricalcolato
+        assertNull(AnagraficaValidator.verificaCodiceFiscale("RSSMRA85T10A56NH"));
+        assertNull(AnagraficaValidator.verificaCodiceFiscale("RSSMRAURTMLARSNL"));
+
+        assertEquals(ErroreAnagrafica.CODICE_FISCALE_CONTROLLO, AnagraficaValidator.verificaCodiceFiscale("RSSMRA85T10A562T"));
+        assertEquals(ErroreAnagrafica.CODICE_FISCALE_CONTROLLO, AnagraficaValidator.verificaCodiceFiscale("RSSMRA85T10A56NS"));
+        // Mese non valido (F) e lettera non ammessa per omocodia (A) in posizione numerica
+        assertEquals(ErroreAnagrafica.CODICE_FISCALE_FORMATO, AnagraficaValidator.verificaCodiceFiscale("RSSMRA85F10A562S"));
+        assertEquals(ErroreAnagrafica.CODICE_FISCALE_FORMATO, AnagraficaValidator.verificaCodiceFiscale("RSSMRA8AT10A562S"));
+        assertEquals(ErroreAnagrafica.CODICE_FISCALE_FORMATO, AnagraficaValidator.verificaCodiceFiscale("RSSMRA85T10A562"));
+        assertEquals(ErroreAnagrafica.CODICE_FISCALE_FORMATO, AnagraficaValidator.verificaCodiceFiscale(null));
+    }
+
+    @Test
+    @DisplayName("Codice fiscale numerico di 11 cifre verificato come una Partita IVA")
+    void codiceFiscaleNumerico() {
+        assertNull(AnagraficaValidator.verificaCodiceFiscale("00743110157"));
+        assertEquals(ErroreAnagrafica.CODICE_FISCALE_CONTROLLO, AnagraficaValidator.verificaCodiceFiscale("00743110158"));
+        assertEquals(ErroreAnagrafica.CODICE_FISCALE_FORMATO, AnagraficaValidator.verificaCodiceFiscale("0074311015A"));
+    }
+
+    @Test
+    @DisplayName("Messaggio del report con riga e valore rifiutato")
+    void messaggio() {
+        assertEquals("Riga 7: Partita IVA non valida (cifra di controllo errata) (04119540235)",
+            ErroreAnagrafica.PARTITA_IVA_CONTROLLO.messaggio(7, "04119540235"));
+    }
+}
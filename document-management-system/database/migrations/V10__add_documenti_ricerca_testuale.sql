@@ -0,0 +1,33 @@
+-- V10__add_documenti_ricerca_testuale.sql
+-- Ricerca testuale sui documenti servita da indici
+-- Descrizione: indici trigrammi (pg_trgm) per le ricerche per sottostringa su ragione sociale e partita IVA,
+-- colonna tsvector aggiornata da trigger per la ricerca per parole nelle note
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- LIKE '%testo%' su ragione sociale e partita IVA
+CREATE INDEX IF NOT EXISTS idx_documenti_ragione_sociale_trgm
+    ON documenti USING gin (lower(ragione_sociale) gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_documenti_partita_iva_trgm
+    ON documenti USING gin (partita_iva gin_trgm_ops);
+
+-- Parole delle note, con stemming italiano
+ALTER TABLE documenti ADD COLUMN IF NOT EXISTS testo_ricerca tsvector;
+
+CREATE OR REPLACE FUNCTION documenti_aggiorna_testo_ricerca() RETURNS trigger AS $$
+BEGIN
+    NEW.testo_ricerca := to_tsvector('italian', coalesce(NEW.note, ''));
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_documenti_testo_ricerca ON documenti;
+CREATE TRIGGER trg_documenti_testo_ricerca
+    BEFORE INSERT OR UPDATE OF note ON documenti
+    FOR EACH ROW EXECUTE FUNCTION documenti_aggiorna_testo_ricerca();
+
+UPDATE documenti SET testo_ricerca = to_tsvector('italian', coalesce(note, ''));
+
+CREATE INDEX IF NOT EXISTS idx_documenti_testo_ricerca
+    ON documenti USING gin (testo_ricerca);
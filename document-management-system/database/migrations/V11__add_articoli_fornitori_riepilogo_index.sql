@@ -0,0 +1,7 @@
+-- V11__add_articoli_fornitori_riepilogo_index.sql
+-- Indice per il riepilogo dei fornitori degli articoli
+-- Descrizione: il raggruppamento per partita IVA (ragione sociale, categoria, numero articoli,
+-- ultima data documento) legge solo l'indice senza accedere alla tabella
+
+CREATE INDEX IF NOT EXISTS idx_articoli_fornitori_riepilogo
+    ON articoli_fornitori(fornitore_partita_iva, fornitore_ragione_sociale, fornitore_categoria, data_documento);
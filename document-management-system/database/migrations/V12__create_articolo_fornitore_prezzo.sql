@@ -0,0 +1,35 @@
+-- V12__create_articolo_fornitore_prezzo.sql
+-- Storico prezzi degli articoli fornitori
+-- Descrizione: sostituisce la colonna JSON articoli_fornitori.prezzi_storici con una riga per prezzo
+-- (articolo, fornitore, data, prezzo, quantità, numero fattura), scritta in sola aggiunta dalle importazioni.
+-- Andamento, ultimo prezzo e minimo/massimo per periodo vengono calcolati in SQL sull'indice (codice, fornitore, data).
+
+CREATE TABLE IF NOT EXISTS articolo_fornitore_prezzo (
+    id BIGSERIAL PRIMARY KEY,
+    codice VARCHAR(50) NOT NULL,
+    fornitore_partita_iva VARCHAR(20) NOT NULL,
+    data_prezzo DATE NOT NULL,
+    prezzo_unitario NUMERIC(15,4) NOT NULL,
+    quantita NUMERIC(15,4),
+    numero_fattura VARCHAR(50),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_articolo_fornitore_prezzo_chiave
+    ON articolo_fornitore_prezzo(codice, fornitore_partita_iva, data_prezzo);
+
+-- Il prezzo corrente di ogni articolo diventa il primo punto dello storico
+INSERT INTO articolo_fornitore_prezzo (codice, fornitore_partita_iva, data_prezzo, prezzo_unitario, quantita, created_at)
+SELECT af.codice, af.fornitore_partita_iva, af.data_documento, af.prezzo_unitario, af.quantita, CURRENT_TIMESTAMP
+FROM articoli_fornitori af
+WHERE af.data_documento IS NOT NULL
+  AND af.prezzo_unitario IS NOT NULL
+  AND NOT EXISTS (
+      SELECT 1 FROM articolo_fornitore_prezzo p
+      WHERE p.codice = af.codice
+        AND p.fornitore_partita_iva = af.fornitore_partita_iva
+        AND p.data_prezzo = af.data_documento
+  );
+
+-- prezzi_storici non viene più scritta dall'applicazione: resta per consultazione e può essere eliminata
+COMMENT ON COLUMN articoli_fornitori.prezzi_storici IS 'Non più aggiornata: vedi articolo_fornitore_prezzo';
@@ -0,0 +1,9 @@
+-- V13__add_registro_import_record_articolo.sql
+-- Chiave dell'articolo fornitore nelle impronte dei record importati
+-- Descrizione: un record già importato viene saltato solo se il suo articolo esiste ancora e non è stato
+-- aggiornato dopo la registrazione. Le impronte esistenti non hanno chiave: i loro record vengono
+-- rielaborati una volta al prossimo caricamento e registrati di nuovo.
+-- La ricerca parte dall'impronta e usa idx_articoli_fornitori_codice_fornitore sugli articoli.
+
+ALTER TABLE registro_import_record ADD COLUMN IF NOT EXISTS codice VARCHAR(50);
+ALTER TABLE registro_import_record ADD COLUMN IF NOT EXISTS fornitore_partita_iva VARCHAR(20);
@@ -0,0 +1,14 @@
+-- V14__add_keyset_pagination_indexes.sql
+-- Indici per la paginazione per chiave degli elenchi documenti, articoli e clienti
+-- Descrizione: ogni indice segue l'ordinamento della pagina (documenti per data, numero e id decrescenti,
+-- articoli per descrizione e id, clienti per ragione sociale e id), così la pagina successiva è letta
+-- a partire dall'ultima chiave restituita senza ordinare la tabella
+
+CREATE INDEX IF NOT EXISTS idx_documenti_data_numero_id
+    ON documenti(data_documento DESC, numero DESC, id DESC);
+
+CREATE INDEX IF NOT EXISTS idx_articoli_descrizione_id
+    ON articoli(descrizione, id);
+
+CREATE INDEX IF NOT EXISTS idx_clienti_ragione_sociale_id
+    ON clienti(ragione_sociale, id);
@@ -0,0 +1,32 @@
+-- V15__add_articolo_fornitore_prezzo_unique.sql
+-- Vincolo di unicità sullo storico prezzi degli articoli fornitori
+-- Descrizione: la scrittura in sola aggiunta passa da INSERT ... WHERE NOT EXISTS a INSERT ... ON CONFLICT DO NOTHING,
+-- così due importazioni concorrenti non registrano due volte lo stesso prezzo. Il numero fattura non noto diventa
+-- stringa vuota (i NULL sarebbero tutti distinti per il vincolo). Il vincolo inizia con (codice, fornitore, data)
+-- e sostituisce l'indice idx_articolo_fornitore_prezzo_chiave.
+
+-- Duplicati registrati prima del vincolo: resta la prima riga
+DELETE FROM articolo_fornitore_prezzo p
+USING articolo_fornitore_prezzo precedente
+WHERE precedente.id < p.id
+  AND precedente.codice = p.codice
+  AND precedente.fornitore_partita_iva = p.fornitore_partita_iva
+  AND precedente.data_prezzo = p.data_prezzo
+  AND precedente.prezzo_unitario = p.prezzo_unitario
+  AND COALESCE(precedente.numero_fattura, '') = COALESCE(p.numero_fattura, '');
+
+UPDATE articolo_fornitore_prezzo SET numero_fattura = '' WHERE numero_fattura IS NULL;
+
+ALTER TABLE articolo_fornitore_prezzo
+    ALTER COLUMN numero_fattura SET DEFAULT '',
+    ALTER COLUMN numero_fattura SET NOT NULL;
+
+DO $$
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'uk_articolo_fornitore_prezzo_chiave') THEN
+        ALTER TABLE articolo_fornitore_prezzo ADD CONSTRAINT uk_articolo_fornitore_prezzo_chiave
+            UNIQUE (codice, fornitore_partita_iva, data_prezzo, prezzo_unitario, numero_fattura);
+    END IF;
+END $$;
+
+DROP INDEX IF EXISTS idx_articolo_fornitore_prezzo_chiave;
@@ -0,0 +1,6 @@
+-- V5__add_articoli_fornitori_lookup_index.sql
+-- Indice per la ricerca a blocchi degli articoli fornitori durante l'importazione
+-- Descrizione: l'upsert massivo cerca gli articoli esistenti per (codice, fornitore_partita_iva)
+
+CREATE INDEX IF NOT EXISTS idx_articoli_fornitori_codice_fornitore
+    ON articoli_fornitori(codice, fornitore_partita_iva);
@@ -0,0 +1,15 @@
+-- V6__add_fatture_acquisto.sql
+-- Supporto alle fatture di acquisto importate da fatture.json
+-- Descrizione: numero attribuito dal fornitore e nuovo tipo documento FATTURA_ACQUISTO
+
+ALTER TABLE documenti ADD COLUMN IF NOT EXISTS numero_esterno VARCHAR(50);
+
+ALTER TABLE documenti DROP CONSTRAINT IF EXISTS chk_documenti_tipo;
+ALTER TABLE documenti ADD CONSTRAINT chk_documenti_tipo CHECK (tipo_documento IN (
+    'PREVENTIVO', 'ORDINE', 'DDT', 'FATTURA', 'FATTURA_ELETTRONICA', 'FATTURA_ACQUISTO',
+    'NOTA_CREDITO', 'NOTA_DEBITO', 'RICEVUTA'));
+
+-- Ricerca delle fatture già importate per fornitore e numero
+CREATE INDEX IF NOT EXISTS idx_documenti_fornitore_numero_esterno
+    ON documenti(partita_iva, numero_esterno)
+    WHERE numero_esterno IS NOT NULL;
@@ -0,0 +1,21 @@
+-- V7__create_registro_import.sql
+-- Registro delle importazioni
+-- Descrizione: impronta SHA-256 dei file importati e dei singoli record degli articoli fornitori,
+-- usata per saltare i file ricaricati e i record invariati
+
+CREATE TABLE IF NOT EXISTS registro_import (
+    id BIGSERIAL PRIMARY KEY,
+    tipo VARCHAR(30) NOT NULL,
+    hash_file VARCHAR(64) NOT NULL,
+    nome_file VARCHAR(255),
+    record_totali INTEGER NOT NULL,
+    record_importati INTEGER NOT NULL,
+    importato_il TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_registro_import_tipo_hash UNIQUE (tipo, hash_file)
+);
+
+CREATE TABLE IF NOT EXISTS registro_import_record (
+    hash VARCHAR(64) PRIMARY KEY,
+    tipo VARCHAR(30) NOT NULL,
+    registrato_il TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
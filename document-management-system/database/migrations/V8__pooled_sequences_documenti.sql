@@ -0,0 +1,9 @@
+-- V8__pooled_sequences_documenti.sql
+-- Identificativi di documenti, righe, scadenze e riepiloghi IVA assegnati da sequenze a blocchi
+-- Descrizione: l'applicazione riserva 50 id per ogni chiamata alla sequenza (allocationSize = 50),
+-- così Hibernate può raggruppare gli INSERT in batch JDBC. L'incremento deve coincidere con allocationSize.
+
+ALTER SEQUENCE documenti_id_seq INCREMENT BY 50;
+ALTER SEQUENCE righe_documenti_id_seq INCREMENT BY 50;
+ALTER SEQUENCE scadenze_id_seq INCREMENT BY 50;
+ALTER SEQUENCE riepiloghi_iva_id_seq INCREMENT BY 50;
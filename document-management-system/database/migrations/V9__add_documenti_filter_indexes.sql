@@ -0,0 +1,17 @@
+-- V9__add_documenti_filter_indexes.sql
+-- Indici composti per gli elenchi documenti filtrati
+-- Descrizione: tutti i campi di DocumentoFilter sono applicati in SQL; i filtri per uguaglianza
+-- più usati (tipo e numero, soggetto, stato) combinati con l'ordinamento per data usano questi indici
+
+CREATE INDEX IF NOT EXISTS idx_documenti_tipo_anno_numero
+    ON documenti(tipo_documento, anno, numero);
+
+CREATE INDEX IF NOT EXISTS idx_documenti_soggetto_data
+    ON documenti(soggetto_id, data_documento);
+
+CREATE INDEX IF NOT EXISTS idx_documenti_stato_data
+    ON documenti(stato, data_documento);
+
+-- Sostituiti dagli indici composti che iniziano con la stessa colonna
+DROP INDEX IF EXISTS idx_documenti_soggetto;
+DROP INDEX IF EXISTS idx_documenti_stato;
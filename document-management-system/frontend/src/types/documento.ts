@@ -78,6 +78,7 @@ export interface Documento {
   tipoDocumento: TipoDocumento;
   numero: number;
   anno: number;
+  numeroFormattato?: string;
   dataDocumento: string;
   dataScadenza?: string;
   soggetto: Soggetto;